@@ -5,6 +5,7 @@ import * as flatbuffers from 'flatbuffers';
 import { ExpIndexElementType } from '../scene/exp-index-element-type.js';
 import { ExpMaterial } from '../scene/exp-material.js';
 import { ExpPrimitiveType } from '../scene/exp-primitive-type.js';
+import { ExpVec3 } from '../scene/exp-vec3.js';
 import { ExpVertexFormat } from '../scene/exp-vertex-format.js';
 
 
@@ -81,8 +82,18 @@ vertexBufferArray():Uint8Array|null {
   return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
 }
 
+positionOffset(obj?:ExpVec3):ExpVec3|null {
+  const offset = this.bb!.__offset(this.bb_pos, 18);
+  return offset ? (obj || new ExpVec3()).__init(this.bb_pos + offset, this.bb!) : null;
+}
+
+positionScale(obj?:ExpVec3):ExpVec3|null {
+  const offset = this.bb!.__offset(this.bb_pos, 20);
+  return offset ? (obj || new ExpVec3()).__init(this.bb_pos + offset, this.bb!) : null;
+}
+
 static startExpMesh(builder:flatbuffers.Builder) {
-  builder.startObject(7);
+  builder.startObject(9);
 }
 
 static addMaterial(builder:flatbuffers.Builder, materialOffset:flatbuffers.Offset) {
@@ -137,6 +148,14 @@ static startVertexBufferVector(builder:flatbuffers.Builder, numElems:number) {
   builder.startVector(1, numElems, 1);
 }
 
+static addPositionOffset(builder:flatbuffers.Builder, positionOffsetOffset:flatbuffers.Offset) {
+  builder.addFieldStruct(7, positionOffsetOffset, 0);
+}
+
+static addPositionScale(builder:flatbuffers.Builder, positionScaleOffset:flatbuffers.Offset) {
+  builder.addFieldStruct(8, positionScaleOffset, 0);
+}
+
 static endExpMesh(builder:flatbuffers.Builder):flatbuffers.Offset {
   const offset = builder.endObject();
   return offset;
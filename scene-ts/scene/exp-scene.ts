@@ -50,8 +50,13 @@ animatedTexturesLength():number {
   return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
 }
 
+formatVersion():number {
+  const offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.readUint32(this.bb_pos + offset) : 0;
+}
+
 static startExpScene(builder:flatbuffers.Builder) {
-  builder.startObject(3);
+  builder.startObject(4);
 }
 
 static addCamera(builder:flatbuffers.Builder, cameraOffset:flatbuffers.Offset) {
@@ -90,6 +95,10 @@ static startAnimatedTexturesVector(builder:flatbuffers.Builder, numElems:number)
   builder.startVector(4, numElems, 4);
 }
 
+static addFormatVersion(builder:flatbuffers.Builder, formatVersion:number) {
+  builder.addFieldInt32(3, formatVersion, 0);
+}
+
 static endExpScene(builder:flatbuffers.Builder):flatbuffers.Offset {
   const offset = builder.endObject();
   return offset;
@@ -103,11 +112,12 @@ static finishSizePrefixedExpSceneBuffer(builder:flatbuffers.Builder, offset:flat
   builder.finish(offset, undefined, true);
 }
 
-static createExpScene(builder:flatbuffers.Builder, cameraOffset:flatbuffers.Offset, meshesOffset:flatbuffers.Offset, animatedTexturesOffset:flatbuffers.Offset):flatbuffers.Offset {
+static createExpScene(builder:flatbuffers.Builder, cameraOffset:flatbuffers.Offset, meshesOffset:flatbuffers.Offset, animatedTexturesOffset:flatbuffers.Offset, formatVersion:number):flatbuffers.Offset {
   ExpScene.startExpScene(builder);
   ExpScene.addCamera(builder, cameraOffset);
   ExpScene.addMeshes(builder, meshesOffset);
   ExpScene.addAnimatedTextures(builder, animatedTexturesOffset);
+  ExpScene.addFormatVersion(builder, formatVersion);
   return ExpScene.endExpScene(builder);
 }
 }
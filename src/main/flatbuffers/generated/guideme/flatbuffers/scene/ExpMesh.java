@@ -172,27 +172,26 @@ public boolean mutateVertexBuffer(int j, int vertex_buffer) {
         }
     }
 
-    public static int createExpMesh(FlatBufferBuilder builder,
-            int materialOffset,
-            int vertexFormatOffset,
-            int primitiveType,
-            int indexBufferOffset,
-            int indexType,
-            long indexCount,
-            int vertexBufferOffset) {
-        builder.startTable(7);
-        ExpMesh.addVertexBuffer(builder, vertexBufferOffset);
-        ExpMesh.addIndexCount(builder, indexCount);
-        ExpMesh.addIndexBuffer(builder, indexBufferOffset);
-        ExpMesh.addVertexFormat(builder, vertexFormatOffset);
-        ExpMesh.addMaterial(builder, materialOffset);
-        ExpMesh.addIndexType(builder, indexType);
-        ExpMesh.addPrimitiveType(builder, primitiveType);
-        return ExpMesh.endExpMesh(builder);
+    public guideme.flatbuffers.scene.ExpVec3 positionOffset() {
+        return positionOffset(new guideme.flatbuffers.scene.ExpVec3());
+    }
+
+    public guideme.flatbuffers.scene.ExpVec3 positionOffset(guideme.flatbuffers.scene.ExpVec3 obj) {
+        int o = __offset(18);
+        return o != 0 ? obj.__assign(o + bb_pos, bb) : null;
+    }
+
+    public guideme.flatbuffers.scene.ExpVec3 positionScale() {
+        return positionScale(new guideme.flatbuffers.scene.ExpVec3());
+    }
+
+    public guideme.flatbuffers.scene.ExpVec3 positionScale(guideme.flatbuffers.scene.ExpVec3 obj) {
+        int o = __offset(20);
+        return o != 0 ? obj.__assign(o + bb_pos, bb) : null;
     }
 
     public static void startExpMesh(FlatBufferBuilder builder) {
-        builder.startTable(7);
+        builder.startTable(9);
     }
 
     public static void addMaterial(FlatBufferBuilder builder, int materialOffset) {
@@ -247,6 +246,14 @@ public static void startVertexBufferVector(FlatBufferBuilder builder, int numEle
         builder.startVector(1, numElems, 1);
     }
 
+    public static void addPositionOffset(FlatBufferBuilder builder, int positionOffsetOffset) {
+        builder.addStruct(7, positionOffsetOffset, 0);
+    }
+
+    public static void addPositionScale(FlatBufferBuilder builder, int positionScaleOffset) {
+        builder.addStruct(8, positionScaleOffset, 0);
+    }
+
     public static int endExpMesh(FlatBufferBuilder builder) {
         int o = builder.endTable();
         return o;
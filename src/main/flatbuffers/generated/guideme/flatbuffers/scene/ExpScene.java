@@ -91,8 +91,13 @@ public guideme.flatbuffers.scene.ExpAnimatedTexturePart.Vector animatedTexturesV
         return o != 0 ? obj.__assign(__vector(o), 4, bb) : null;
     }
 
+    public long formatVersion() {
+        int o = __offset(10);
+        return o != 0 ? (long) bb.getInt(o + bb_pos) & 0xFFFFFFFFL : 0L;
+    }
+
     public static void startExpScene(FlatBufferBuilder builder) {
-        builder.startTable(3);
+        builder.startTable(4);
     }
 
     public static void addCamera(FlatBufferBuilder builder, int cameraOffset) {
@@ -129,6 +134,10 @@ public static void startAnimatedTexturesVector(FlatBufferBuilder builder, int nu
         builder.startVector(4, numElems, 4);
     }
 
+    public static void addFormatVersion(FlatBufferBuilder builder, long formatVersion) {
+        builder.addInt(3, (int) formatVersion, (int) 0L);
+    }
+
     public static int endExpScene(FlatBufferBuilder builder) {
         int o = builder.endTable();
         return o;
@@ -8,12 +8,18 @@ public abstract class LytAxisBox extends LytBox {
 
     private AlignItems alignItems = AlignItems.START;
 
+    @Override
+    protected boolean isLayoutThreadSafe() {
+        return true;
+    }
+
     public AlignItems getAlignItems() {
         return alignItems;
     }
 
     public void setAlignItems(AlignItems alignItems) {
         this.alignItems = alignItems;
+        invalidateLayout();
     }
 
     public int getGap() {
@@ -22,5 +28,6 @@ public int getGap() {
 
     public void setGap(int gap) {
         this.gap = gap;
+        invalidateLayout();
     }
 }
@@ -4,10 +4,19 @@
 import guideme.layout.LayoutContext;
 import guideme.render.RenderContext;
 import guideme.style.BorderStyle;
+import java.util.ArrayList;
+import java.util.List;
 import net.minecraft.client.renderer.MultiBufferSource;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Vector2i;
 
 public abstract class LytBlock extends LytNode {
+    /**
+     * Number of layouts for other widths that are kept in addition to the current one, i.e. to quickly switch back
+     * and forth between window sizes or the document width with and without the navigation bar.
+     */
+    private static final int MAX_SAVED_LAYOUTS = 3;
+
     /**
      * Content rectangle.
      */
@@ -28,6 +37,17 @@ public abstract class LytBlock extends LytNode {
      */
     private boolean fullWidth;
 
+    // The result of the last layout is reused until the block is invalidated or laid out with a different width.
+    // The offset is relative to the position the layout was computed for.
+    private boolean layoutCached;
+    private int cachedAvailableWidth;
+    private int cachedOffsetX;
+    private int cachedOffsetY;
+
+    // Layouts for other widths that were replaced by the current one, most recently used first
+    @Nullable
+    private List<SavedLayout> savedLayouts;
+
     @Override
     public LytRect getBounds() {
         return bounds;
@@ -47,19 +67,135 @@ public final void setLayoutPos(Vector2i point) {
     }
 
     public final LytRect layout(LayoutContext context, int x, int y, int availableWidth) {
+        // Pending floats change the space available to the content, so they'd have to be part of the cache key
+        var cacheable = !context.hasFloats();
+        if (cacheable && layoutCached && cachedAvailableWidth == availableWidth) {
+            setLayoutPos(new Vector2i(x + cachedOffsetX, y + cachedOffsetY));
+            return bounds;
+        }
+
+        var savedLayout = cacheable ? takeSavedLayout(availableWidth) : null;
+        saveCurrentLayout();
+        if (savedLayout != null) {
+            savedLayout.state.restore(context);
+            bounds = savedLayout.bounds;
+            layoutCached = true;
+            cachedAvailableWidth = availableWidth;
+            cachedOffsetX = savedLayout.offsetX;
+            cachedOffsetY = savedLayout.offsetY;
+            setLayoutPos(new Vector2i(x + cachedOffsetX, y + cachedOffsetY));
+            return bounds;
+        }
+
         bounds = computeLayout(context, x, y, availableWidth);
         if (fullWidth && bounds.width() < availableWidth) {
             bounds = bounds.withWidth(availableWidth);
         }
+
+        // Floats left behind by this block affect the blocks after it, and would be lost when reusing the layout
+        layoutCached = cacheable && !context.hasFloats();
+        cachedAvailableWidth = availableWidth;
+        cachedOffsetX = bounds.x() - x;
+        cachedOffsetY = bounds.y() - y;
         return bounds;
     }
 
+    @Nullable
+    private SavedLayout takeSavedLayout(int availableWidth) {
+        if (savedLayouts != null) {
+            for (var it = savedLayouts.iterator(); it.hasNext();) {
+                var savedLayout = it.next();
+                if (savedLayout.availableWidth == availableWidth) {
+                    // The restored state becomes the current layout, and may be modified from here on
+                    it.remove();
+                    return savedLayout;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void saveCurrentLayout() {
+        if (!layoutCached) {
+            return;
+        }
+
+        var state = saveLayoutState();
+        if (state != null) {
+            if (savedLayouts == null) {
+                savedLayouts = new ArrayList<>(MAX_SAVED_LAYOUTS);
+            }
+            savedLayouts.removeIf(savedLayout -> savedLayout.availableWidth == cachedAvailableWidth);
+            if (savedLayouts.size() >= MAX_SAVED_LAYOUTS) {
+                savedLayouts.removeLast();
+            }
+            savedLayouts.addFirst(new SavedLayout(cachedAvailableWidth, bounds, cachedOffsetX, cachedOffsetY, state));
+        }
+        layoutCached = false;
+    }
+
+    /**
+     * Captures the result of the last {@link #computeLayout}, so it can be {@linkplain SavedLayoutState#restore
+     * restored} when the block is laid out with the same width again after being laid out with another width. The
+     * captured state must no longer be modified by the block once it has been laid out again.
+     * <p>
+     * Blocks that are cheap to lay out once their children have been laid out, such as containers, should return
+     * null. They will be laid out again, while their children restore their own state.
+     */
+    @Nullable
+    protected SavedLayoutState saveLayoutState() {
+        return null;
+    }
+
+    @Override
+    public void invalidateLayout() {
+        layoutCached = false;
+        savedLayouts = null;
+        super.invalidateLayout();
+    }
+
+    /**
+     * @return True if the current or a saved layout of this block can be reused for the given available width.
+     */
+    boolean isLayoutCached(int availableWidth) {
+        if (layoutCached && cachedAvailableWidth == availableWidth) {
+            return true;
+        }
+        if (savedLayouts != null) {
+            for (var savedLayout : savedLayouts) {
+                if (savedLayout.availableWidth == availableWidth) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indicates whether {@link #computeLayout} may be called on a thread other than the client thread, as long as no
+     * other thread lays out the same subtree at the same time. This requires the layout to only depend on this block,
+     * its descendants and the given {@link LayoutContext}. Subclasses changing the layout of a thread-safe block have to
+     * override this again if their layout is not.
+     */
+    protected boolean isLayoutThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Discards the cached layout of only this block, without invalidating its ancestors.
+     */
+    void discardLayoutCache() {
+        layoutCached = false;
+        savedLayouts = null;
+    }
+
     public int getMarginTop() {
         return marginTop;
     }
 
     public void setMarginTop(int marginTop) {
         this.marginTop = marginTop;
+        invalidateLayout();
     }
 
     public int getMarginLeft() {
@@ -68,6 +204,7 @@ public int getMarginLeft() {
 
     public void setMarginLeft(int marginLeft) {
         this.marginLeft = marginLeft;
+        invalidateLayout();
     }
 
     public int getMarginRight() {
@@ -76,6 +213,7 @@ public int getMarginRight() {
 
     public void setMarginRight(int marginRight) {
         this.marginRight = marginRight;
+        invalidateLayout();
     }
 
     public int getMarginBottom() {
@@ -84,6 +222,7 @@ public int getMarginBottom() {
 
     public void setMarginBottom(int marginBottom) {
         this.marginBottom = marginBottom;
+        invalidateLayout();
     }
 
     public int getMarginStart(LytAxis axis) {
@@ -106,6 +245,7 @@ public BorderStyle getBorderTop() {
 
     public void setBorderTop(BorderStyle borderTop) {
         this.borderTop = borderTop;
+        invalidateLayout();
     }
 
     public BorderStyle getBorderLeft() {
@@ -114,6 +254,7 @@ public BorderStyle getBorderLeft() {
 
     public void setBorderLeft(BorderStyle borderLeft) {
         this.borderLeft = borderLeft;
+        invalidateLayout();
     }
 
     public BorderStyle getBorderRight() {
@@ -122,6 +263,7 @@ public BorderStyle getBorderRight() {
 
     public void setBorderRight(BorderStyle borderRight) {
         this.borderRight = borderRight;
+        invalidateLayout();
     }
 
     public BorderStyle getBorderBottom() {
@@ -130,6 +272,7 @@ public BorderStyle getBorderBottom() {
 
     public void setBorderBottom(BorderStyle borderBottom) {
         this.borderBottom = borderBottom;
+        invalidateLayout();
     }
 
     public void setBorder(BorderStyle style) {
@@ -145,6 +288,7 @@ public boolean isFullWidth() {
 
     public void setFullWidth(boolean fullWidth) {
         this.fullWidth = fullWidth;
+        invalidateLayout();
     }
 
     protected abstract LytRect computeLayout(LayoutContext context, int x, int y, int availableWidth);
@@ -157,4 +301,20 @@ public void setFullWidth(boolean fullWidth) {
     public abstract void renderBatch(RenderContext context, MultiBufferSource buffers);
 
     public abstract void render(RenderContext context);
+
+    /**
+     * The result of a layout captured by {@link #saveLayoutState()}.
+     */
+    @FunctionalInterface
+    protected interface SavedLayoutState {
+        /**
+         * Makes the captured layout the current layout of the block again instead of computing it. The block is moved
+         * from the position it had when the layout was captured using {@link #onLayoutMoved} afterward.
+         */
+        void restore(LayoutContext context);
+    }
+
+    private record SavedLayout(int availableWidth, LytRect bounds, int offsetX, int offsetY,
+            SavedLayoutState state) {
+    }
 }
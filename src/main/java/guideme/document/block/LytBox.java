@@ -27,6 +27,7 @@ public void removeChild(LytNode node) {
         if (node instanceof LytBlock block && block.parent == this) {
             children.remove(block);
             block.parent = null;
+            invalidateLayout();
         }
     }
 
@@ -37,6 +38,7 @@ public void append(LytBlock block) {
         }
         block.parent = this;
         children.add(block);
+        invalidateLayout();
     }
 
     public void clearContent() {
@@ -44,6 +46,7 @@ public void clearContent() {
             child.parent = null;
         }
         children.clear();
+        invalidateLayout();
     }
 
     protected abstract LytRect computeBoxLayout(LayoutContext context, int x, int y, int availableWidth);
@@ -81,22 +84,27 @@ public final void setPadding(int padding) {
         paddingTop = padding;
         paddingRight = padding;
         paddingBottom = padding;
+        invalidateLayout();
     }
 
     public void setPaddingLeft(int paddingLeft) {
         this.paddingLeft = paddingLeft;
+        invalidateLayout();
     }
 
     public void setPaddingTop(int paddingTop) {
         this.paddingTop = paddingTop;
+        invalidateLayout();
     }
 
     public void setPaddingRight(int paddingRight) {
         this.paddingRight = paddingRight;
+        invalidateLayout();
     }
 
     public void setPaddingBottom(int paddingBottom) {
         this.paddingBottom = paddingBottom;
+        invalidateLayout();
     }
 
     public @Nullable SymbolicColor getBackgroundColor() {
@@ -1,9 +1,13 @@
 package guideme.document.block;
 
 import guideme.document.LytRect;
+import guideme.document.flow.InlineBlockAlignment;
 import guideme.document.flow.LytFlowContainer;
 import guideme.document.flow.LytFlowContent;
 import guideme.document.flow.LytFlowInlineBlock;
+import guideme.document.flow.LytFlowText;
+import guideme.layout.FontMetrics;
+import guideme.layout.FontMetricsSnapshot;
 import guideme.layout.LayoutContext;
 import guideme.layout.Layouts;
 import guideme.render.RenderContext;
@@ -13,14 +17,40 @@
 import java.util.Objects;
 import net.minecraft.client.renderer.MultiBufferSource;
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Layout document. Has a viewport and an overall size which may exceed the document size vertically, but not
  * horizontally.
  */
 public class LytDocument extends LytNode implements LytBlockContainer {
+    private static final Logger LOG = LoggerFactory.getLogger(LytDocument.class);
+
+    private static final int PADDING = 5;
+
+    /**
+     * Laying out blocks in parallel only pays off for documents with many blocks.
+     */
+    private static final int MIN_PARALLEL_BLOCKS = 16;
+
+    /**
+     * Assumed height of blocks that have not been laid out yet, if no block has been laid out to measure them.
+     */
+    private static final int ESTIMATED_BLOCK_HEIGHT = 20;
+
     private final List<LytBlock> blocks = new ArrayList<>();
 
+    private boolean parallelLayout;
+
+    private boolean virtualLayout;
+
+    /**
+     * Progress of a virtual layout that has not reached the end of the document yet.
+     */
+    @Nullable
+    private PendingLayout pendingLayout;
+
     @Nullable
     private Layout layout;
 
@@ -78,12 +108,53 @@ public void clearContent() {
         invalidateLayout();
     }
 
+    public boolean isParallelLayout() {
+        return parallelLayout;
+    }
+
+    /**
+     * Lays out top-level blocks that are independent of the content around them on a fork-join pool before the
+     * document itself is laid out. This shortens the time needed to lay out very long documents, but uses additional
+     * threads.
+     */
+    public void setParallelLayout(boolean parallelLayout) {
+        this.parallelLayout = parallelLayout;
+    }
+
+    public boolean isVirtualLayout() {
+        return virtualLayout;
+    }
+
+    /**
+     * Only lays out as many blocks as needed when updating the layout, and estimates the height of the remaining
+     * blocks from the blocks laid out so far. More blocks have to be laid out using {@link #layoutUntil} or
+     * {@link #layoutThrough} before they are scrolled into view. Blocks that have not been laid out yet are neither
+     * rendered, nor can they be picked.
+     * <p>
+     * Since blocks are always laid out in order, the position of all blocks laid out so far is exact.
+     */
+    public void setVirtualLayout(boolean virtualLayout) {
+        if (this.virtualLayout != virtualLayout) {
+            this.virtualLayout = virtualLayout;
+            invalidateLayout();
+        }
+    }
+
+    /**
+     * @return True if not all blocks have been laid out by a virtual layout yet.
+     */
+    public boolean hasPendingLayout() {
+        return pendingLayout != null;
+    }
+
     public boolean hasLayout() {
         return layout != null;
     }
 
+    @Override
     public void invalidateLayout() {
         layout = null;
+        pendingLayout = null;
     }
 
     public void updateLayout(LayoutContext context, int availableWidth) {
@@ -91,32 +162,180 @@ public void updateLayout(LayoutContext context, int availableWidth) {
             return;
         }
 
-        layout = createLayout(context, availableWidth);
+        if (virtualLayout && !context.hasFloats()) {
+            pendingLayout = new PendingLayout(context, availableWidth);
+            layout = pendingLayout.toLayout();
+        } else {
+            pendingLayout = null;
+            layout = createLayout(context, availableWidth);
+        }
+    }
+
+    /**
+     * Continues a virtual layout until the laid out blocks extend to at least the given y position.
+     */
+    public void layoutUntil(int y) {
+        continueLayout(y, -1);
+    }
+
+    /**
+     * Continues a virtual layout until the top-level block containing the given node has been laid out.
+     */
+    public void layoutThrough(LytNode node) {
+        var topLevelNode = node;
+        while (topLevelNode != null && topLevelNode.getParent() != this) {
+            topLevelNode = topLevelNode.getParent();
+        }
+        if (topLevelNode instanceof LytBlock block) {
+            continueLayout(Integer.MIN_VALUE, blocks.indexOf(block));
+        }
+    }
+
+    private void continueLayout(int y, int lastBlock) {
+        var pending = pendingLayout;
+        if (pending == null) {
+            return;
+        }
+
+        if (parallelLayout) {
+            // Blocks are only laid out in parallel up to the estimated position of y. The distance is computed in long,
+            // since layoutThrough passes Integer.MIN_VALUE and layoutUntil may be given Integer.MAX_VALUE.
+            var remainingHeight = (long) y - pending.y;
+            var estimatedBlockCount = 0;
+            if (remainingHeight > 0) {
+                estimatedBlockCount = (int) Math.min(blocks.size(),
+                        Math.ceil(remainingHeight / pending.getAverageBlockHeight()));
+            }
+            var end = Math.min(blocks.size(), Math.max(lastBlock + 1, pending.nextBlock + estimatedBlockCount));
+            if (end > pending.nextBlock) {
+                layoutBlocksInParallel(pending.context, pending.availableWidth, blocks.subList(pending.nextBlock, end));
+            }
+        }
+
+        while (pending.nextBlock < blocks.size() && (pending.y < y || pending.nextBlock <= lastBlock)) {
+            if (!pending.layoutNextBlock()) {
+                // A block exceeded the available width, which requires laying out all blocks again
+                pendingLayout = null;
+                layout = createLayout(new LayoutContext(pending.context), pending.availableWidth);
+                return;
+            }
+        }
+
+        if (pending.nextBlock >= blocks.size()) {
+            pendingLayout = null;
+        }
+        layout = pending.toLayout();
+    }
+
+    private List<LytBlock> getLaidOutBlocks() {
+        return pendingLayout != null ? blocks.subList(0, pendingLayout.nextBlock) : blocks;
     }
 
     private Layout createLayout(LayoutContext context, int availableWidth) {
+        if (parallelLayout && !context.hasFloats()) {
+            layoutBlocksInParallel(context, availableWidth, blocks);
+        }
+
         var bounds = Layouts.verticalLayout(context,
                 blocks,
                 0,
                 0,
                 availableWidth,
-                5,
-                5,
-                5,
-                5,
+                PADDING,
+                PADDING,
+                PADDING,
+                PADDING,
                 0,
                 AlignItems.START);
 
         return new Layout(availableWidth, bounds.height());
     }
 
+    /**
+     * Lays out all top-level blocks that can be laid out independently at y=0 in parallel. This only fills the layout
+     * caches of the blocks, which the sequential layout of the document then moves into place. Blocks that fail to lay
+     * out here are simply laid out again by the sequential layout.
+     */
+    private static void layoutBlocksInParallel(FontMetrics fontMetrics, int availableWidth, List<LytBlock> candidates) {
+        var innerWidth = availableWidth - 2 * PADDING;
+
+        var pendingBlocks = new ArrayList<LytBlock>();
+        for (var block : candidates) {
+            var blockWidth = getBlockWidth(block, innerWidth);
+            if (!block.isLayoutCached(blockWidth) && canLayoutInParallel(block)) {
+                pendingBlocks.add(block);
+            }
+        }
+        if (pendingBlocks.size() < MIN_PARALLEL_BLOCKS) {
+            return;
+        }
+
+        // Fonts may only be accessed on the client thread, so all metrics needed by the blocks are captured up front
+        var snapshotBuilder = FontMetricsSnapshot.builder(fontMetrics);
+        for (var block : pendingBlocks) {
+            block.visit(new LytVisitor() {
+                @Override
+                public Result beforeFlowContent(LytFlowContent content) {
+                    if (content instanceof LytFlowText text) {
+                        snapshotBuilder.addText(text.getText(), text.resolveStyle());
+                    }
+                    return Result.CONTINUE;
+                }
+            });
+        }
+        var snapshot = snapshotBuilder.build();
+
+        pendingBlocks.parallelStream().forEach(block -> {
+            try {
+                block.layout(new LayoutContext(snapshot), PADDING + block.getMarginLeft(), 0,
+                        getBlockWidth(block, innerWidth));
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to lay out {} in parallel, laying it out sequentially instead", block, e);
+            }
+        });
+    }
+
+    private static int getBlockWidth(LytBlock block, int innerWidth) {
+        return Math.max(1, innerWidth - block.getMarginLeft() - block.getMarginRight());
+    }
+
+    /**
+     * A block can be laid out in parallel if all blocks in it are thread-safe, and it does not contain any floats, which
+     * would affect the layout of the blocks after it.
+     */
+    private static boolean canLayoutInParallel(LytBlock block) {
+        // Flow content can't stop the visitor early, so the result is tracked separately
+        var visitor = new LytVisitor() {
+            boolean threadSafe = true;
+
+            @Override
+            public Result beforeNode(LytNode node) {
+                if (node instanceof LytBlock childBlock && !childBlock.isLayoutThreadSafe()) {
+                    threadSafe = false;
+                }
+                return threadSafe ? Result.CONTINUE : Result.STOP;
+            }
+
+            @Override
+            public Result beforeFlowContent(LytFlowContent content) {
+                if (content instanceof LytFlowInlineBlock inlineBlock
+                        && inlineBlock.getAlignment() != InlineBlockAlignment.INLINE) {
+                    threadSafe = false;
+                }
+                return threadSafe ? Result.CONTINUE : Result.STOP;
+            }
+        };
+        block.visit(visitor);
+        return visitor.threadSafe;
+    }
+
     @Deprecated(forRemoval = true)
     public void render(SimpleRenderContext context) {
         this.render((RenderContext) context);
     }
 
     public void render(RenderContext context) {
-        for (var block : blocks) {
+        for (var block : getLaidOutBlocks()) {
             if (block.isCulled(context.viewport())) {
                 continue;
             }
@@ -125,7 +344,7 @@ public void render(RenderContext context) {
     }
 
     public void renderBatch(RenderContext context, MultiBufferSource buffers) {
-        for (var block : blocks) {
+        for (var block : getLaidOutBlocks()) {
             if (!context.intersectsViewport(block.getBounds())) {
                 continue;
             }
@@ -149,6 +368,24 @@ public void setHoveredElement(HitTestResult hoveredElement) {
         }
     }
 
+    @Override
+    @Nullable
+    public LytNode pickNode(int x, int y) {
+        if (!getBounds().contains(x, y)) {
+            return null;
+        }
+
+        // Blocks that have not been laid out yet may still have the bounds of an outdated layout
+        for (var block : getLaidOutBlocks()) {
+            var node = block.pickNode(x, y);
+            if (node != null) {
+                return node;
+            }
+        }
+
+        return this;
+    }
+
     public HitTestResult pick(int x, int y) {
         return pick(this, x, y);
     }
@@ -178,6 +415,54 @@ public void onMouseEnter(@Nullable LytFlowContent hoveredContent) {
     public record Layout(int availableWidth, int contentHeight) {
     }
 
+    /**
+     * Lays out the blocks of the document one by one, exactly like {@link Layouts#verticalLayout} would.
+     */
+    private final class PendingLayout {
+        private final LayoutContext context;
+        private final int availableWidth;
+        private int nextBlock;
+        // Position below the last laid out block, excluding its bottom margin
+        private int y = PADDING;
+        @Nullable
+        private LytBlock previousBlock;
+        private int contentWidth = PADDING;
+        private int contentHeight = PADDING;
+
+        PendingLayout(LayoutContext context, int availableWidth) {
+            this.context = context;
+            this.availableWidth = availableWidth;
+        }
+
+        /**
+         * @return False if the block exceeded the available width.
+         */
+        boolean layoutNextBlock() {
+            var block = blocks.get(nextBlock++);
+            y = Layouts.offsetIntoContentArea(LytAxis.VERTICAL, y, previousBlock, block);
+            var blockWidth = getBlockWidth(block, availableWidth - 2 * PADDING);
+            var blockBounds = block.layout(context, PADDING + block.getMarginLeft(), y, blockWidth);
+            y += blockBounds.height() + block.getMarginBottom();
+            contentWidth = Math.max(contentWidth, blockBounds.right());
+            contentHeight = Math.max(contentHeight, blockBounds.bottom());
+            previousBlock = block;
+            return contentWidth <= availableWidth;
+        }
+
+        float getAverageBlockHeight() {
+            return nextBlock > 0 ? Math.max(1f, (float) (y - PADDING) / nextBlock) : ESTIMATED_BLOCK_HEIGHT;
+        }
+
+        Layout toLayout() {
+            var height = contentHeight;
+            var remainingBlocks = blocks.size() - nextBlock;
+            if (remainingBlocks > 0) {
+                height = Math.max(height, y) + Math.round(remainingBlocks * getAverageBlockHeight());
+            }
+            return new Layout(availableWidth, height + PADDING);
+        }
+    }
+
     public record HitTestResult(LytNode node, @Nullable LytFlowContent content) {
     }
 }
@@ -55,6 +55,7 @@ public LytSize getSize() {
 
     public void setSize(LytSize size) {
         this.size = size;
+        invalidateLayout();
     }
 
     public void setSize(int width, int height) {
@@ -34,5 +34,6 @@ public boolean isWrap() {
 
     public void setWrap(boolean wrap) {
         this.wrap = wrap;
+        invalidateLayout();
     }
 }
@@ -48,6 +48,7 @@ public void setImage(ResourceLocation id, byte @Nullable [] imageData) {
         } else {
             this.texture = GuidePageTexture.missing();
         }
+        invalidateLayout();
     }
 
     @Override
@@ -2,7 +2,9 @@
 
 import guideme.document.LytRect;
 import guideme.document.flow.LytFlowContent;
+import guideme.internal.util.ResolvedStyleMemo;
 import guideme.libs.mdast.model.MdAstNode;
+import guideme.style.ResolvedTextStyle;
 import guideme.style.Styleable;
 import guideme.style.TextStyle;
 import java.util.Collections;
@@ -16,6 +18,14 @@ public abstract class LytNode implements Styleable {
     private TextStyle style = TextStyle.EMPTY;
     private TextStyle hoverStyle = TextStyle.EMPTY;
 
+    private final ResolvedStyleMemo resolvedStyles = new ResolvedStyleMemo();
+
+    /**
+     * The flow content embedding this node if it's not part of the node tree, i.e. the block of an inline block.
+     */
+    @Nullable
+    private LytFlowContent flowParent;
+
     /**
      * An optional association of this layout node with the node in the source document.
      */
@@ -29,6 +39,26 @@ public List<? extends LytNode> getChildren() {
         return Collections.emptyList();
     }
 
+    /**
+     * Marks the layout of this node as outdated, which also invalidates the layout of all its ancestors. Call this when
+     * a change to this node affects its size or the position of its content.
+     */
+    public void invalidateLayout() {
+        if (parent != null) {
+            parent.invalidateLayout();
+        } else if (flowParent != null) {
+            flowParent.invalidateLayout();
+        }
+    }
+
+    /**
+     * Sets the flow content that embeds this node without it being part of the node tree. Changes to the layout of
+     * this node are then forwarded to the block containing that flow content.
+     */
+    public void setFlowParent(@Nullable LytFlowContent flowParent) {
+        this.flowParent = flowParent;
+    }
+
     /**
      * Get the document we're a part of, if any.
      */
@@ -127,6 +157,17 @@ public TextStyle getStyle() {
     @Override
     public void setStyle(TextStyle style) {
         this.style = style;
+        // Styles are inherited, which can change the layout of any node below this one
+        visit(new LytVisitor() {
+            @Override
+            public Result beforeNode(LytNode node) {
+                if (node instanceof LytBlock block) {
+                    block.discardLayoutCache();
+                }
+                return Result.CONTINUE;
+            }
+        });
+        invalidateLayout();
     }
 
     @Override
@@ -139,6 +180,16 @@ public void setHoverStyle(TextStyle style) {
         this.hoverStyle = style;
     }
 
+    @Override
+    public ResolvedTextStyle resolveStyle() {
+        return resolvedStyles.resolveStyle(getStyle(), getStylingParent());
+    }
+
+    @Override
+    public ResolvedTextStyle resolveHoverStyle(ResolvedTextStyle baseStyle) {
+        return resolvedStyles.resolveHoverStyle(getHoverStyle(), getStylingParent(), baseStyle);
+    }
+
     @Override
     public @Nullable Styleable getStylingParent() {
         return parent;
@@ -25,6 +25,7 @@ public class LytParagraph extends LytBlock implements LytFlowContainer {
     public void append(LytFlowContent child) {
         content.append(child);
         child.setParent(this);
+        invalidateLayout();
     }
 
     @Override
@@ -54,6 +55,17 @@ public LytRect computeLayout(LayoutContext context, int x, int y, int availableW
         return bounds;
     }
 
+    @Override
+    protected SavedLayoutState saveLayoutState() {
+        var state = content.saveLayout();
+        return context -> content.restoreLayout(context, state);
+    }
+
+    @Override
+    protected boolean isLayoutThreadSafe() {
+        return true;
+    }
+
     @Override
     protected void onLayoutMoved(int deltaX, int deltaY) {
         content.move(deltaX, deltaY);
@@ -136,6 +148,7 @@ public boolean isEmpty() {
 
     public void clearContent() {
         content.clear();
+        invalidateLayout();
     }
 
     public int getPaddingLeft() {
@@ -144,6 +157,7 @@ public int getPaddingLeft() {
 
     public void setPaddingLeft(int paddingLeft) {
         this.paddingLeft = paddingLeft;
+        invalidateLayout();
     }
 
     public int getPaddingTop() {
@@ -152,6 +166,7 @@ public int getPaddingTop() {
 
     public void setPaddingTop(int paddingTop) {
         this.paddingTop = paddingTop;
+        invalidateLayout();
     }
 
     public int getPaddingRight() {
@@ -160,6 +175,7 @@ public int getPaddingRight() {
 
     public void setPaddingRight(int paddingRight) {
         this.paddingRight = paddingRight;
+        invalidateLayout();
     }
 
     public int getPaddingBottom() {
@@ -168,5 +184,6 @@ public int getPaddingBottom() {
 
     public void setPaddingBottom(int paddingBottom) {
         this.paddingBottom = paddingBottom;
+        invalidateLayout();
     }
 }
@@ -41,10 +41,7 @@ private void setCurrent(LytBlock block) {
             currentChildren.clear();
             currentBlock = block;
             currentChildren.add(block);
-            var document = getDocument();
-            if (document != null) {
-                document.invalidateLayout();
-            }
+            invalidateLayout();
         }
     }
 
@@ -71,7 +68,7 @@ protected LytRect computeLayout(LayoutContext context, int x, int y, int availab
 
     @Override
     protected void onLayoutMoved(int deltaX, int deltaY) {
-        currentBlock.onLayoutMoved(deltaX, deltaY);
+        currentBlock.setLayoutPos(currentBlock.getBounds().point().add(deltaX, deltaY));
     }
 
     @Override
@@ -61,6 +61,7 @@ public boolean isLargeSlot() {
 
     public void setLargeSlot(boolean largeSlot) {
         this.largeSlot = largeSlot;
+        invalidateLayout();
     }
 
     @Override
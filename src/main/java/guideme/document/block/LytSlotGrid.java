@@ -168,12 +168,13 @@ private void setSlot(int x, int y, LytSlot newSlot) {
         var slotIndex = getSlotIndex(x, y);
         var slot = slots[slotIndex];
         if (slot != null) {
-            slot.removeChild(slot);
+            removeChild(slot);
             slots[slotIndex] = null;
         }
 
         slot = slots[slotIndex] = newSlot;
         append(slot);
+        invalidateLayout();
     }
 
     @Override
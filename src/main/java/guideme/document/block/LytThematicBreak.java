@@ -12,6 +12,11 @@ public LytRect computeLayout(LayoutContext context, int x, int y, int availableW
         return new LytRect(x, y, availableWidth, 6);
     }
 
+    @Override
+    protected boolean isLayoutThreadSafe() {
+        return true;
+    }
+
     @Override
     protected void onLayoutMoved(int deltaX, int deltaY) {
     }
@@ -3,11 +3,13 @@
 import guideme.color.SymbolicColor;
 import guideme.document.LytRect;
 import guideme.document.block.LytBlock;
+import guideme.document.block.LytNode;
 import guideme.layout.LayoutContext;
 import guideme.render.RenderContext;
 import java.util.ArrayList;
 import java.util.List;
 import net.minecraft.client.renderer.MultiBufferSource;
+import org.jetbrains.annotations.Nullable;
 
 public class LytTable extends LytBlock {
     /**
@@ -57,6 +59,11 @@ protected LytRect computeLayout(LayoutContext context, int x, int y, int availab
                 currentY - y);
     }
 
+    @Override
+    protected boolean isLayoutThreadSafe() {
+        return true;
+    }
+
     @Override
     protected void onLayoutMoved(int deltaX, int deltaY) {
         for (var col : columns) {
@@ -72,7 +79,12 @@ protected void onLayoutMoved(int deltaX, int deltaY) {
 
     @Override
     public void renderBatch(RenderContext context, MultiBufferSource buffers) {
-        for (var row : getChildren()) {
+        var viewport = context.viewport();
+        for (int i = findFirstRowEndingAfter(viewport.y()); i < rows.size(); i++) {
+            var row = rows.get(i);
+            if (row.bounds.y() > viewport.bottom()) {
+                break;
+            }
             for (var cell : row.getChildren()) {
                 cell.renderBatch(context, buffers);
             }
@@ -92,7 +104,15 @@ public void render(RenderContext context) {
             context.fillRect(colRight, bounds.y(), 1, bounds.height(), SymbolicColor.TABLE_BORDER);
         }
 
-        for (int i = 0; i < rows.size() - 1; i++) {
+        // Only render the rows within the viewport, since tables can have hundreds of them
+        var viewport = context.viewport();
+        var firstRow = findFirstRowEndingAfter(viewport.y());
+        var endRow = firstRow;
+        while (endRow < rows.size() && rows.get(endRow).bounds.y() <= viewport.bottom()) {
+            endRow++;
+        }
+
+        for (int i = firstRow; i < Math.min(endRow, rows.size() - 1); i++) {
             var row = rows.get(i);
 
             if (i == 0) {
@@ -102,16 +122,55 @@ public void render(RenderContext context) {
             context.fillRect(bounds.x(), row.bounds.bottom(), bounds.width(), 1, SymbolicColor.TABLE_BORDER);
         }
 
-        for (var row : rows) {
-            for (var cell : row.getChildren()) {
+        for (int i = firstRow; i < endRow; i++) {
+            for (var cell : rows.get(i).getChildren()) {
                 cell.render(context);
             }
         }
     }
 
+    @Override
+    @Nullable
+    public LytNode pickNode(int x, int y) {
+        if (!bounds.contains(x, y)) {
+            return null;
+        }
+
+        var rowIndex = findFirstRowEndingAfter(y);
+        if (rowIndex < rows.size()) {
+            var node = rows.get(rowIndex).pickNode(x, y);
+            if (node != null) {
+                return node;
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Binary searches the rows, which are sorted by their position, for the first row whose bottom edge (including
+     * the border below it) is below the given y position.
+     *
+     * @return The index of the row, or the number of rows if there is no such row.
+     */
+    private int findFirstRowEndingAfter(int y) {
+        int low = 0;
+        int high = rows.size();
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (rows.get(mid).bounds.bottom() + CELL_BORDER <= y) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     public LytTableRow appendRow() {
         var row = new LytTableRow(this);
         rows.add(row);
+        invalidateLayout();
         return row;
     }
 
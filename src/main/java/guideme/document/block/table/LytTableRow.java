@@ -26,6 +26,7 @@ public LytRect getBounds() {
     public LytTableCell appendCell() {
         var cell = new LytTableCell(table, this, table.getOrCreateColumn(cells.size()));
         cells.add(cell);
+        invalidateLayout();
         return cell;
     }
 
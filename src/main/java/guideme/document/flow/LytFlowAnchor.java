@@ -8,6 +8,7 @@
 public class LytFlowAnchor extends LytFlowContent {
     private final String name;
 
+    private boolean hasLayoutY;
     private int layoutY;
 
     public LytFlowAnchor(String name) {
@@ -18,11 +19,22 @@ public String getName() {
         return name;
     }
 
+    /**
+     * @return The vertical position of this anchor, or empty if it has not been laid out.
+     */
     public OptionalInt getLayoutY() {
-        return layoutY >= 0 ? OptionalInt.of(layoutY) : OptionalInt.empty();
+        return hasLayoutY ? OptionalInt.of(layoutY) : OptionalInt.empty();
     }
 
     public void setLayoutY(int layoutY) {
         this.layoutY = layoutY;
+        this.hasLayoutY = true;
+    }
+
+    /**
+     * Removes the vertical position of this anchor, i.e. because the layout it was part of is no longer current.
+     */
+    public void clearLayoutY() {
+        this.hasLayoutY = false;
     }
 }
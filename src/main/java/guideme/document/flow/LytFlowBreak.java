@@ -13,6 +13,7 @@ public boolean isClearLeft() {
 
     public void setClearLeft(boolean clearLeft) {
         this.clearLeft = clearLeft;
+        invalidateLayout();
     }
 
     public boolean isClearRight() {
@@ -21,5 +22,6 @@ public boolean isClearRight() {
 
     public void setClearRight(boolean clearRight) {
         this.clearRight = clearRight;
+        invalidateLayout();
     }
 }
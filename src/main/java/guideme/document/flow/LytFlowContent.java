@@ -1,6 +1,9 @@
 package guideme.document.flow;
 
+import guideme.document.block.LytNode;
 import guideme.document.block.LytVisitor;
+import guideme.internal.util.ResolvedStyleMemo;
+import guideme.style.ResolvedTextStyle;
 import guideme.style.Styleable;
 import guideme.style.TextStyle;
 import org.jetbrains.annotations.Nullable;
@@ -11,12 +14,27 @@ public class LytFlowContent implements Styleable {
 
     private LytFlowParent parent;
 
+    private final ResolvedStyleMemo resolvedStyles = new ResolvedStyleMemo();
+
     public LytFlowParent getParent() {
         return parent;
     }
 
     public void setParent(LytFlowParent parent) {
         this.parent = parent;
+        invalidateLayout();
+    }
+
+    /**
+     * Marks the layout of the block containing this flow content as outdated. Call this when a change to this content
+     * affects its size.
+     */
+    public void invalidateLayout() {
+        if (parent instanceof LytFlowContent flowContent) {
+            flowContent.invalidateLayout();
+        } else if (parent instanceof LytNode node) {
+            node.invalidateLayout();
+        }
     }
 
     /**
@@ -44,6 +62,7 @@ public TextStyle getStyle() {
     @Override
     public void setStyle(TextStyle style) {
         this.style = style;
+        invalidateLayout();
     }
 
     @Override
@@ -56,6 +75,16 @@ public void setHoverStyle(TextStyle style) {
         this.hoverStyle = style;
     }
 
+    @Override
+    public ResolvedTextStyle resolveStyle() {
+        return resolvedStyles.resolveStyle(getStyle(), getStylingParent());
+    }
+
+    @Override
+    public ResolvedTextStyle resolveHoverStyle(ResolvedTextStyle baseStyle) {
+        return resolvedStyles.resolveHoverStyle(getHoverStyle(), getStylingParent(), baseStyle);
+    }
+
     @Override
     public @Nullable Styleable getStylingParent() {
         return getParent() instanceof Styleable stylingParent ? stylingParent : null;
@@ -5,8 +5,9 @@
 import guideme.document.block.LytVisitor;
 import guideme.document.interaction.GuideTooltip;
 import guideme.document.interaction.InteractiveElement;
+import guideme.layout.CachingFontMetrics;
+import guideme.layout.FontMetrics;
 import guideme.layout.LayoutContext;
-import guideme.layout.MinecraftFontMetrics;
 import guideme.ui.GuideUiHost;
 import java.util.Optional;
 
@@ -21,7 +22,14 @@ public LytBlock getBlock() {
     }
 
     public void setBlock(LytBlock block) {
+        if (this.block != null) {
+            this.block.setFlowParent(null);
+        }
         this.block = block;
+        if (block != null) {
+            block.setFlowParent(this);
+        }
+        invalidateLayout();
     }
 
     public InlineBlockAlignment getAlignment() {
@@ -30,15 +38,24 @@ public InlineBlockAlignment getAlignment() {
 
     public void setAlignment(InlineBlockAlignment alignment) {
         this.alignment = alignment;
+        invalidateLayout();
     }
 
     public LytSize getPreferredSize(int lineWidth) {
+        return getPreferredSize(CachingFontMetrics.minecraftFont(), lineWidth);
+    }
+
+    /**
+     * Computes the size of the block using the given font metrics, which has to be used when laying out the block on
+     * a thread other than the client thread.
+     */
+    public LytSize getPreferredSize(FontMetrics fontMetrics, int lineWidth) {
         if (block == null) {
             return LytSize.empty();
         }
 
         // We need to compute the layout
-        var layoutContext = new LayoutContext(new MinecraftFontMetrics());
+        var layoutContext = new LayoutContext(fontMetrics);
         var bounds = block.layout(layoutContext, 0, 0, lineWidth);
         return new LytSize(bounds.right(), bounds.bottom());
     }
@@ -21,6 +21,7 @@ public void append(LytFlowContent child) {
         }
         child.setParent(this);
         children.add(child);
+        invalidateLayout();
     }
 
     @Override
@@ -12,6 +12,7 @@ public String getText() {
 
     public void setText(String text) {
         this.text = Objects.requireNonNull(text, "text");
+        invalidateLayout();
     }
 
     public static LytFlowText of(String text) {
@@ -2,8 +2,8 @@
 
 import guideme.document.LytRect;
 import guideme.document.block.LytBlock;
+import guideme.layout.CachingFontMetrics;
 import guideme.layout.LayoutContext;
-import guideme.layout.MinecraftFontMetrics;
 import guideme.render.SimpleRenderContext;
 import guideme.siteexport.ExportableResourceProvider;
 import guideme.siteexport.ResourceExporter;
@@ -87,7 +87,7 @@ private LytRect getLayoutBox() {
         var currentViewport = new LytRect(0, 0, screen.width, screen.height);
         if (layoutBox == null || !currentViewport.equals(layoutViewport)) {
             layoutViewport = currentViewport;
-            var layoutContext = new LayoutContext(new MinecraftFontMetrics());
+            var layoutContext = new LayoutContext(CachingFontMetrics.minecraftFont());
             layoutBox = content.layout(layoutContext, 0, 0, screen.width / 2);
         }
         return layoutBox;
@@ -1,5 +1,6 @@
 package guideme.hooks;
 
+import com.mojang.blaze3d.opengl.GlStateManager;
 import com.mojang.blaze3d.pipeline.RenderTarget;
 import com.mojang.blaze3d.textures.GpuTexture;
 import net.minecraft.client.Minecraft;
@@ -8,6 +9,13 @@ public final class RenderToTextureHooks {
 
     public static RenderTarget targetOverride;
 
+    /**
+     * If positive, rendering into {@link #targetOverride} is limited to a viewport of this size at the lower left
+     * corner of the target, rather than covering the entire target.
+     */
+    public static int viewportWidth;
+    public static int viewportHeight;
+
     public static GpuTexture replaceColorTarget(GpuTexture colorTarget) {
         if (targetOverride != null && colorTarget == Minecraft.getInstance().getMainRenderTarget().getColorTexture()) {
             return targetOverride.getColorTexture();
@@ -15,6 +23,17 @@ public static GpuTexture replaceColorTarget(GpuTexture colorTarget) {
         return colorTarget;
     }
 
+    /**
+     * Called after a render pass was created for the given color target, which resets the viewport to cover the entire
+     * target.
+     */
+    public static void applyViewport(GpuTexture colorTarget) {
+        if (targetOverride != null && colorTarget == targetOverride.getColorTexture()
+                && viewportWidth > 0 && viewportHeight > 0) {
+            GlStateManager._viewport(0, 0, viewportWidth, viewportHeight);
+        }
+    }
+
     public static GpuTexture replaceDepthTarget(GpuTexture depthTarget) {
         if (targetOverride != null && depthTarget == Minecraft.getInstance().getMainRenderTarget().getDepthTexture()) {
             return targetOverride.getDepthTexture();
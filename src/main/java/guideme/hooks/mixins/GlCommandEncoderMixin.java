@@ -23,7 +23,9 @@ public RenderPass overrideRenderTargets(GpuTexture colorBuffer,
         colorBuffer = RenderToTextureHooks.replaceColorTarget(colorBuffer);
         depthBuffer = RenderToTextureHooks.replaceDepthTarget(depthBuffer);
 
-        return original.call(colorBuffer, clearColor, depthBuffer, clearDepth);
+        var renderPass = original.call(colorBuffer, clearColor, depthBuffer, clearDepth);
+        RenderToTextureHooks.applyViewport(colorBuffer);
+        return renderPass;
     }
 
     @WrapMethod(method = "clearColorTexture")
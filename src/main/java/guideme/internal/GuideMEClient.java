@@ -9,12 +9,15 @@
 import guideme.internal.data.GuideMEModelProvider;
 import guideme.internal.hotkey.OpenGuideHotkey;
 import guideme.internal.item.GuideItemDispatchUnbaked;
+import guideme.internal.scene.SceneRenderScheduler;
 import guideme.internal.screen.GlobalInMemoryHistory;
 import guideme.internal.screen.GuideNavigation;
 import guideme.internal.search.GuideSearch;
 import guideme.internal.siteexport.SiteExportOnStartup;
 import guideme.internal.util.Blitter;
+import guideme.layout.CachingFontMetrics;
 import guideme.render.GuiAssets;
+import guideme.scene.level.GuidebookLevelPool;
 import java.util.Objects;
 import java.util.Set;
 import net.minecraft.client.Minecraft;
@@ -24,6 +27,7 @@
 import net.minecraft.data.DataGenerator;
 import net.minecraft.data.PackOutput;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.ResourceManagerReloadListener;
 import net.minecraft.sounds.SoundEvent;
 import net.minecraft.world.item.crafting.RecipeMap;
 import net.minecraft.world.item.crafting.RecipeType;
@@ -40,9 +44,11 @@
 import net.neoforged.neoforge.client.event.RegisterItemModelsEvent;
 import net.neoforged.neoforge.client.event.RegisterKeyMappingsEvent;
 import net.neoforged.neoforge.client.event.RegisterRenderPipelinesEvent;
+import net.neoforged.neoforge.client.event.RenderFrameEvent;
 import net.neoforged.neoforge.client.event.TextureAtlasStitchedEvent;
 import net.neoforged.neoforge.client.gui.ConfigurationScreen;
 import net.neoforged.neoforge.client.gui.IConfigScreenFactory;
+import net.neoforged.neoforge.client.resources.VanillaClientListeners;
 import net.neoforged.neoforge.common.ModConfigSpec;
 import net.neoforged.neoforge.common.NeoForge;
 import net.neoforged.neoforge.data.event.GatherDataEvent;
@@ -60,6 +66,8 @@ public class GuideMEClient {
     public static final ResourceLocation GUIDE_CLICK_ID = GuideME.makeId("guide.click");
     public static SoundEvent GUIDE_CLICK_EVENT = SoundEvent.createVariableRangeEvent(GUIDE_CLICK_ID);
 
+    private static final ResourceLocation FONT_METRICS_RELOAD_ID = GuideME.makeId("font_metrics");
+
     private final GuideSearch search = new GuideSearch();
 
     private RecipeMap recipeMap = RecipeMap.EMPTY;
@@ -89,11 +97,16 @@ public GuideMEClient(ModContainer modContainer, IEventBus modBus) {
 
         modBus.addListener((AddClientReloadListenersEvent evt) -> {
             evt.addListener(GuideReloadListener.ID, new GuideReloadListener());
+            // Cached glyph advances have to be discarded after the fonts themselves have been reloaded
+            evt.addListener(FONT_METRICS_RELOAD_ID,
+                    (ResourceManagerReloadListener) resourceManager -> CachingFontMetrics.invalidateMinecraftFont());
+            evt.addDependency(VanillaClientListeners.FONTS, FONT_METRICS_RELOAD_ID);
         });
         NeoForge.EVENT_BUS.addListener((ClientTickEvent.Pre evt) -> {
             search.processWork();
             processDevWatchers();
         });
+        NeoForge.EVENT_BUS.addListener((RenderFrameEvent.Pre evt) -> SceneRenderScheduler.beginFrame());
 
         GuideOnStartup.init();
         SiteExportOnStartup.init();
@@ -112,6 +125,7 @@ private void onReceiveRecipes(RecipesReceivedEvent event) {
     private void onPlayerDisconnect(ClientPlayerNetworkEvent.LoggingOut event) {
         recipeMap = RecipeMap.EMPTY;
         availableRecipeTypes = Set.of();
+        GuidebookLevelPool.clear();
     }
 
     private void registerRenderPipelines(RegisterRenderPipelinesEvent event) {
@@ -181,6 +195,14 @@ public boolean isFullWidthLayout() {
         return clientConfig.fullWidthLayout.getAsBoolean();
     }
 
+    public boolean isParallelLayout() {
+        return clientConfig.parallelLayout.getAsBoolean();
+    }
+
+    public boolean isVirtualLayout() {
+        return clientConfig.virtualLayout.getAsBoolean();
+    }
+
     public void setFullWidthLayout(boolean fullWidth) {
         if (fullWidth != isFullWidthLayout()) {
             clientConfig.fullWidthLayout.set(fullWidth);
@@ -237,6 +259,8 @@ private static class ClientConfig {
         final ModConfigSpec.BooleanValue adaptiveScaling;
         final ModConfigSpec.BooleanValue showDebugGuiOverlays;
         final ModConfigSpec.BooleanValue fullWidthLayout;
+        final ModConfigSpec.BooleanValue parallelLayout;
+        final ModConfigSpec.BooleanValue virtualLayout;
         final ModConfigSpec.BooleanValue ignoreTranslatedGuides;
 
         public ClientConfig() {
@@ -257,6 +281,14 @@ public ClientConfig() {
                     .comment(
                             "Use the full width of the screen for the guide when it is opened.")
                     .define("fullWidthLayout", true);
+            parallelLayout = builder
+                    .comment(
+                            "Lay out independent parts of very long guide pages on multiple threads.")
+                    .define("parallelLayout", false);
+            virtualLayout = builder
+                    .comment(
+                            "Only lay out the visible part of guide pages, and the rest while scrolling through them.")
+                    .define("virtualLayout", false);
             builder.pop();
 
             builder.push("debug");
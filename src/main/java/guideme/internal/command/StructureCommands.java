@@ -10,6 +10,7 @@
 import guideme.internal.GuideRegistry;
 import guideme.internal.GuidebookText;
 import guideme.internal.MutableGuide;
+import guideme.internal.scene.CompactStructure;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -29,6 +30,7 @@
 import net.minecraft.commands.arguments.coordinates.BlockPosArgument;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Vec3i;
+import net.minecraft.core.registries.Registries;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.NbtAccounter;
 import net.minecraft.nbt.NbtIo;
@@ -64,9 +66,10 @@ private StructureCommands() {
     @Nullable
     private static String lastOpenedOrSavedPath;
 
-    private static final String[] FILE_PATTERNS = { "*.snbt", "*.nbt" };
+    private static final String[] FILE_PATTERNS = { "*.snbt", "*.nbt", "*" + CompactStructure.EXTENSION };
 
-    private static final String FILE_PATTERN_DESC = "Structure NBT Files (*.snbt, *.nbt)";
+    private static final String FILE_PATTERN_DESC = "Structure Files (*.snbt, *.nbt, *" + CompactStructure.EXTENSION
+            + ")";
 
     public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
         var rootCommand = Commands.literal("guideme");
@@ -281,6 +284,13 @@ private static void importStructure(CommandSourceStack source, ServerLevel level
     private static boolean placeStructure(ServerLevel level,
             BlockPos origin,
             String structurePath) throws CommandSyntaxException, IOException {
+        if (CompactStructure.isCompactStructure(structurePath)) {
+            var data = Files.readAllBytes(Paths.get(structurePath));
+            var blocks = level.registryAccess().lookupOrThrow(Registries.BLOCK);
+            CompactStructure.read(data, blocks).placeInWorld(level, origin, Block.UPDATE_CLIENTS);
+            return true;
+        }
+
         var manager = level.getServer().getStructureManager();
         CompoundTag compound;
         if (structurePath.toLowerCase(Locale.ROOT).endsWith(".snbt")) {
@@ -359,6 +369,12 @@ private static void exportStructure(CommandSourceStack source, ServerLevel level
                                 1 + to.getY() - origin.getY(),
                                 1 + to.getZ() - origin.getZ());
 
+                        if (CompactStructure.isCompactStructure(selectedPath)) {
+                            CompactStructure.fromWorld(level, origin, actualSize).write(Paths.get(selectedPath));
+                            source.sendSuccess(() -> Component.literal("Saved structure"), true);
+                            return null;
+                        }
+
                         var structureTemplate = new StructureTemplate();
                         structureTemplate.fillFromWorld(
                                 level,
@@ -0,0 +1,306 @@
+package guideme.internal.scene;
+
+import guideme.scene.level.GuidebookLevel;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.Vec3i;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntArrayTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.util.Mth;
+import net.minecraft.util.SimpleBitStorage;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * A compact, pre-baked structure format for guidebook scenes.
+ * <p/>
+ * In contrast to the vanilla structure format, which stores a compound tag per block, this format stores a block state
+ * palette and a bit-packed array of palette indices covering the entire structure volume. Block entity data is only
+ * stored for blocks that actually have a block entity. This makes it possible to load large structures without
+ * creating a tag per block and without going through
+ * {@link net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate#placeInWorld}.
+ * <p/>
+ * The file is a compressed NBT compound with the following layout:
+ * <ul>
+ * <li><code>format</code>: the format version (currently {@value #FORMAT_VERSION})</li>
+ * <li><code>size</code>: int array with the x, y and z size of the structure</li>
+ * <li><code>palette</code>: list of block states, where index 0 is always air</li>
+ * <li><code>blocks</code>: long array with the palette indices, packed as in {@link SimpleBitStorage}, in x, z, y
+ * order</li>
+ * <li><code>block_entities</code>: list of compounds with a relative <code>pos</code> and the block entity data in
+ * <code>nbt</code>. The position must be inside the structure and hold a block other than air.</li>
+ * </ul>
+ */
+public final class CompactStructure {
+    /**
+     * File extension used to identify compact structure files.
+     */
+    public static final String EXTENSION = ".gmstruct";
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final Vec3i size;
+    private final List<BlockState> palette;
+    private final SimpleBitStorage blocks;
+    /**
+     * Block entity data keyed by the packed position relative to the structure origin.
+     */
+    private final Long2ObjectMap<CompoundTag> blockEntities;
+
+    private CompactStructure(Vec3i size,
+            List<BlockState> palette,
+            SimpleBitStorage blocks,
+            Long2ObjectMap<CompoundTag> blockEntities) {
+        this.size = size;
+        this.palette = palette;
+        this.blocks = blocks;
+        this.blockEntities = blockEntities;
+    }
+
+    public static boolean isCompactStructure(String path) {
+        return path.toLowerCase(Locale.ROOT).endsWith(EXTENSION);
+    }
+
+    /**
+     * Captures the blocks and block entities in the given box of a level.
+     */
+    public static CompactStructure fromWorld(Level level, BlockPos origin, Vec3i size) {
+        return fromWorld(level, level.registryAccess(), origin, size);
+    }
+
+    /**
+     * Captures the blocks and block entities in the given box of a block getter.
+     *
+     * @param registries Used to save block entity data.
+     */
+    public static CompactStructure fromWorld(BlockGetter level, HolderLookup.Provider registries, BlockPos origin,
+            Vec3i size) {
+        var palette = new ArrayList<BlockState>();
+        var paletteIndices = new Object2IntOpenHashMap<BlockState>();
+        paletteIndices.defaultReturnValue(-1);
+        addToPalette(palette, paletteIndices, Blocks.AIR.defaultBlockState());
+
+        var volume = getVolume(size);
+        var indices = new int[volume];
+        var blockEntities = new Long2ObjectOpenHashMap<CompoundTag>();
+
+        var pos = new BlockPos.MutableBlockPos();
+        for (var y = 0; y < size.getY(); y++) {
+            for (var z = 0; z < size.getZ(); z++) {
+                for (var x = 0; x < size.getX(); x++) {
+                    pos.setWithOffset(origin, x, y, z);
+                    var state = level.getBlockState(pos);
+                    if (state.isAir()) {
+                        continue; // Air is always index 0
+                    }
+
+                    indices[getIndex(size, x, y, z)] = addToPalette(palette, paletteIndices, state);
+
+                    if (state.hasBlockEntity()) {
+                        var blockEntity = level.getBlockEntity(pos);
+                        if (blockEntity != null) {
+                            blockEntities.put(BlockPos.asLong(x, y, z),
+                                    blockEntity.saveWithId(registries));
+                        }
+                    }
+                }
+            }
+        }
+
+        var blocks = new SimpleBitStorage(getBitsPerEntry(palette.size()), volume);
+        for (var i = 0; i < indices.length; i++) {
+            blocks.set(i, indices[i]);
+        }
+
+        return new CompactStructure(new Vec3i(size.getX(), size.getY(), size.getZ()), palette, blocks,
+                blockEntities);
+    }
+
+    private static int addToPalette(List<BlockState> palette, Object2IntMap<BlockState> paletteIndices,
+            BlockState state) {
+        var index = paletteIndices.getInt(state);
+        if (index == -1) {
+            index = palette.size();
+            palette.add(state);
+            paletteIndices.put(state, index);
+        }
+        return index;
+    }
+
+    /**
+     * Reads a compact structure from the compressed NBT data of a structure file.
+     */
+    public static CompactStructure read(byte[] data, HolderGetter<Block> blockLookup) throws IOException {
+        var tag = NbtIo.readCompressed(new ByteArrayInputStream(data), NbtAccounter.unlimitedHeap());
+
+        var format = tag.getIntOr("format", 0);
+        if (format != FORMAT_VERSION) {
+            throw new IOException("Unsupported compact structure format: " + format);
+        }
+
+        var sizeArray = tag.getIntArray("size").orElseThrow(() -> new IOException("Missing size"));
+        if (sizeArray.length != 3 || sizeArray[0] < 0 || sizeArray[1] < 0 || sizeArray[2] < 0) {
+            throw new IOException("Invalid size");
+        }
+        var size = new Vec3i(sizeArray[0], sizeArray[1], sizeArray[2]);
+        int volume;
+        try {
+            volume = getVolume(size);
+        } catch (ArithmeticException e) {
+            throw new IOException("Structure size " + size.toShortString() + " is too large");
+        }
+
+        var paletteTag = tag.getListOrEmpty("palette");
+        if (paletteTag.isEmpty()) {
+            throw new IOException("Missing palette");
+        }
+        var palette = new ArrayList<BlockState>(paletteTag.size());
+        for (var i = 0; i < paletteTag.size(); i++) {
+            palette.add(NbtUtils.readBlockState(blockLookup, paletteTag.getCompoundOrEmpty(i)));
+        }
+
+        var blockData = tag.getLongArray("blocks").orElseThrow(() -> new IOException("Missing blocks"));
+        SimpleBitStorage blocks;
+        try {
+            blocks = new SimpleBitStorage(getBitsPerEntry(palette.size()), volume, blockData);
+        } catch (SimpleBitStorage.InitializationException e) {
+            throw new IOException("Invalid block data: " + e.getMessage());
+        }
+
+        var blockEntitiesTag = tag.getListOrEmpty("block_entities");
+        var blockEntities = new Long2ObjectOpenHashMap<CompoundTag>(blockEntitiesTag.size());
+        for (var i = 0; i < blockEntitiesTag.size(); i++) {
+            var blockEntityTag = blockEntitiesTag.getCompoundOrEmpty(i);
+            var pos = blockEntityTag.getIntArray("pos").orElse(new int[0]);
+            if (pos.length != 3) {
+                throw new IOException("Invalid block entity position");
+            }
+            var x = pos[0];
+            var y = pos[1];
+            var z = pos[2];
+            if (x < 0 || y < 0 || z < 0 || x >= size.getX() || y >= size.getY() || z >= size.getZ()) {
+                throw new IOException("Block entity position " + x + ", " + y + ", " + z
+                        + " is outside of structure size " + size.toShortString());
+            }
+            var paletteIndex = blocks.get(getIndex(size, x, y, z));
+            if (paletteIndex == 0 || paletteIndex >= palette.size()) {
+                throw new IOException("Block entity at " + x + ", " + y + ", " + z + " has no block");
+            }
+            blockEntities.put(BlockPos.asLong(x, y, z), blockEntityTag.getCompoundOrEmpty("nbt"));
+        }
+
+        return new CompactStructure(size, palette, blocks, blockEntities);
+    }
+
+    public void write(Path path) throws IOException {
+        var tag = new CompoundTag();
+        NbtUtils.addCurrentDataVersion(tag);
+        tag.putInt("format", FORMAT_VERSION);
+        tag.putIntArray("size", new int[] { size.getX(), size.getY(), size.getZ() });
+
+        var paletteTag = new ListTag();
+        for (var state : palette) {
+            paletteTag.add(NbtUtils.writeBlockState(state));
+        }
+        tag.put("palette", paletteTag);
+
+        tag.putLongArray("blocks", blocks.getRaw());
+
+        var blockEntitiesTag = new ListTag();
+        for (var entry : blockEntities.long2ObjectEntrySet()) {
+            var pos = BlockPos.of(entry.getLongKey());
+            var blockEntityTag = new CompoundTag();
+            blockEntityTag.put("pos", new IntArrayTag(new int[] { pos.getX(), pos.getY(), pos.getZ() }));
+            blockEntityTag.put("nbt", entry.getValue());
+            blockEntitiesTag.add(blockEntityTag);
+        }
+        tag.put("block_entities", blockEntitiesTag);
+
+        NbtIo.writeCompressed(tag, path);
+    }
+
+    /**
+     * Places this structure with its minimum corner at the given origin. For guidebook levels, blocks are written
+     * straight into the chunks, skipping neighbor updates and block placement logic.
+     */
+    public void placeInWorld(Level level, BlockPos origin, int flags) {
+        var pos = new BlockPos.MutableBlockPos();
+        var directToChunk = level instanceof GuidebookLevel;
+
+        for (var y = 0; y < size.getY(); y++) {
+            for (var z = 0; z < size.getZ(); z++) {
+                for (var x = 0; x < size.getX(); x++) {
+                    var paletteIndex = blocks.get(getIndex(size, x, y, z));
+                    if (paletteIndex == 0 || paletteIndex >= palette.size()) {
+                        continue;
+                    }
+
+                    var state = palette.get(paletteIndex);
+                    pos.setWithOffset(origin, x, y, z);
+                    if (directToChunk) {
+                        level.getChunkAt(pos).setBlockState(pos, state, flags);
+                    } else {
+                        level.setBlock(pos, state, flags);
+                    }
+                }
+            }
+        }
+
+        for (var entry : blockEntities.long2ObjectEntrySet()) {
+            var relativePos = BlockPos.of(entry.getLongKey());
+            pos.setWithOffset(origin, relativePos.getX(), relativePos.getY(), relativePos.getZ());
+            var blockEntity = level.getBlockEntity(pos);
+            if (blockEntity != null) {
+                blockEntity.loadWithComponents(entry.getValue(), level.registryAccess());
+            }
+        }
+    }
+
+    public Vec3i getSize() {
+        return size;
+    }
+
+    /**
+     * @return The block state at the given position relative to the structure origin.
+     */
+    public BlockState getBlockState(int x, int y, int z) {
+        if (x < 0 || y < 0 || z < 0 || x >= size.getX() || y >= size.getY() || z >= size.getZ()) {
+            return Blocks.AIR.defaultBlockState();
+        }
+        var paletteIndex = blocks.get(getIndex(size, x, y, z));
+        return paletteIndex < palette.size() ? palette.get(paletteIndex) : Blocks.AIR.defaultBlockState();
+    }
+
+    /**
+     * @throws ArithmeticException If the volume does not fit into an int.
+     */
+    private static int getVolume(Vec3i size) {
+        return Math.multiplyExact(Math.multiplyExact(size.getX(), size.getY()), size.getZ());
+    }
+
+    private static int getIndex(Vec3i size, int x, int y, int z) {
+        return (y * size.getZ() + z) * size.getX() + x;
+    }
+
+    private static int getBitsPerEntry(int paletteSize) {
+        return Math.max(1, Mth.ceillog2(paletteSize));
+    }
+}
@@ -0,0 +1,36 @@
+package guideme.internal.scene;
+
+import com.mojang.blaze3d.vertex.VertexFormatElement;
+import guideme.flatbuffers.scene.ExpVertexElementType;
+import guideme.flatbuffers.scene.ExpVertexElementUsage;
+
+/**
+ * Maps vertex format elements to their representation in exported scenes. Shared between writing and reading scene
+ * exports, so that both always agree on the file format.
+ */
+public final class ExportedVertexFormats {
+    private ExportedVertexFormats() {
+    }
+
+    public static int mapUsage(VertexFormatElement.Usage usage) {
+        return switch (usage) {
+            case POSITION -> ExpVertexElementUsage.POSITION;
+            case NORMAL -> ExpVertexElementUsage.NORMAL;
+            case COLOR -> ExpVertexElementUsage.COLOR;
+            case UV -> ExpVertexElementUsage.UV;
+            case GENERIC -> throw new IllegalStateException("Should have been skipped");
+        };
+    }
+
+    public static int mapType(VertexFormatElement.Type type) {
+        return switch (type) {
+            case FLOAT -> ExpVertexElementType.FLOAT;
+            case UBYTE -> ExpVertexElementType.UBYTE;
+            case BYTE -> ExpVertexElementType.BYTE;
+            case USHORT -> ExpVertexElementType.USHORT;
+            case SHORT -> ExpVertexElementType.SHORT;
+            case UINT -> ExpVertexElementType.UINT;
+            case INT -> ExpVertexElementType.INT;
+        };
+    }
+}
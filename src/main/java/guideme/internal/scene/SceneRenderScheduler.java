@@ -0,0 +1,80 @@
+package guideme.internal.scene;
+
+/**
+ * Limits how many guidebook scenes may re-render per frame, so pages with many animated or interactive scenes don't
+ * scale the frame time with the number of scenes. Scenes that don't get to render reuse their last image.
+ * <p/>
+ * Scenes take turns in rounds: within a round, each scene may render once, unless it has priority (i.e. because the
+ * user is interacting with it). A new round starts once all scenes that wanted to render in the current round got
+ * their turn. If all scenes fit into the budget, this means every scene renders every frame.
+ * <p/>
+ * The time budget is measured on the CPU side, since GPU timings are not available without stalling the pipeline.
+ */
+public final class SceneRenderScheduler {
+    /**
+     * Maximum number of non-priority scene renders per frame.
+     */
+    private static final int MAX_RENDERS_PER_FRAME = 4;
+
+    /**
+     * Once this much time was spent rendering scenes in a frame, no further non-priority scenes are rendered.
+     */
+    private static final long FRAME_BUDGET_NS = 4_000_000;
+
+    private static long round = 1;
+    private static int rendersThisFrame;
+    private static long nanosThisFrame;
+    /**
+     * Whether any scene was denied its turn due to the budget in the current frame.
+     */
+    private static boolean deniedThisFrame;
+
+    private SceneRenderScheduler() {
+    }
+
+    /**
+     * Resets the budget. Called at the start of every frame.
+     */
+    public static void beginFrame() {
+        // Only start a new round once every scene that wanted to render had its turn
+        if (!deniedThisFrame) {
+            round++;
+        }
+        rendersThisFrame = 0;
+        nanosThisFrame = 0;
+        deniedThisFrame = false;
+    }
+
+    /**
+     * Asks whether the scene owning the given ticket may render in this frame. If this returns true, the caller must
+     * report the time spent rendering via {@link #endRender}.
+     *
+     * @param priority Scenes with priority are always allowed to render, but still count against the budget.
+     */
+    public static boolean tryBeginRender(Ticket ticket, boolean priority) {
+        if (!priority) {
+            if (ticket.lastRenderedRound >= round) {
+                return false; // Already had its turn in this round
+            }
+            if (rendersThisFrame >= MAX_RENDERS_PER_FRAME || nanosThisFrame >= FRAME_BUDGET_NS) {
+                deniedThisFrame = true;
+                return false;
+            }
+        }
+
+        ticket.lastRenderedRound = round;
+        rendersThisFrame++;
+        return true;
+    }
+
+    public static void endRender(long elapsedNanos) {
+        nanosThisFrame += elapsedNanos;
+    }
+
+    /**
+     * Tracks the scheduling state of a single scene.
+     */
+    public static final class Ticket {
+        private long lastRenderedRound;
+    }
+}
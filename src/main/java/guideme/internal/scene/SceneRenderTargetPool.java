@@ -0,0 +1,221 @@
+package guideme.internal.scene;
+
+import com.mojang.blaze3d.pipeline.TextureTarget;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.textures.GpuTexture;
+import guideme.internal.GuideME;
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.texture.AbstractTexture;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Pools the off-screen render targets used to render guidebook scenes, so that scenes don't have to create and destroy
+ * a framebuffer every frame.
+ * <p/>
+ * Targets are allocated with their size rounded up to a multiple of {@link #SIZE_GRANULARITY}, so small changes in
+ * the size of a scene reuse the same target. Scenes are only rendered into the requested size at the lower left corner
+ * of the target, and only that part of the texture must be drawn (see {@link PooledRenderTarget#getMaxU()} and
+ * {@link PooledRenderTarget#getMaxV()}). Callers may also request a smaller size than the one the image is drawn at, to
+ * render at a reduced resolution.
+ * <p/>
+ * Each pooled target has a texture registered with the texture manager for its entire lifetime.
+ * <p/>
+ * Leases may be held across frames to retain a rendered image, as long as the lease holder keeps calling
+ * {@link PooledRenderTarget#touch()}. Targets that haven't been used for {@link #IDLE_RETENTION_MS} are destroyed,
+ * even if they are still leased, so lease holders have to check {@link PooledRenderTarget#isDestroyed()}.
+ */
+public final class SceneRenderTargetPool {
+    private static final int SIZE_GRANULARITY = 32;
+
+    /**
+     * Targets are destroyed if they haven't been used for this long.
+     */
+    private static final long IDLE_RETENTION_MS = 10000;
+
+    private static final List<PooledRenderTarget> targets = new ArrayList<>();
+
+    private static int nextTextureId;
+
+    private SceneRenderTargetPool() {
+    }
+
+    /**
+     * Leases a render target that is at least as large as the given size. It has to be returned using
+     * {@link #release}.
+     *
+     * @param scaled Whether the image will be drawn at a different size than requested, in which case it is drawn with
+     *               linear filtering. Otherwise, the image is drawn pixel for pixel with nearest filtering.
+     */
+    public static PooledRenderTarget acquire(int width, int height, boolean scaled) {
+        RenderSystem.assertOnRenderThread();
+
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        var allocatedWidth = roundUp(width);
+        var allocatedHeight = roundUp(height);
+        var useStencil = Minecraft.getInstance().getMainRenderTarget().useStencil;
+        var now = Util.getMillis();
+
+        evictIdleTargets(now);
+
+        PooledRenderTarget result = null;
+        for (var target : targets) {
+            if (!target.leased
+                    && target.renderTarget.width == allocatedWidth
+                    && target.renderTarget.height == allocatedHeight
+                    && target.renderTarget.useStencil == useStencil) {
+                result = target;
+                break;
+            }
+        }
+
+        if (result == null) {
+            var renderTarget = new TextureTarget("GuideScene RTT", allocatedWidth, allocatedHeight, true, useStencil);
+            var textureId = GuideME.makeId("scene_off_screen_surface_" + nextTextureId++);
+            result = new PooledRenderTarget(renderTarget, textureId);
+            Minecraft.getInstance().getTextureManager().register(textureId, result.texture);
+            targets.add(result);
+        }
+
+        result.leased = true;
+        result.lastUsed = now;
+        result.width = width;
+        result.height = height;
+        // Only blur when the image is not drawn at its actual pixel size
+        result.texture.setFilter(scaled, false);
+        return result;
+    }
+
+    /**
+     * Returns a previously leased render target to the pool.
+     */
+    public static void release(PooledRenderTarget target) {
+        target.leased = false;
+        target.lastUsed = Util.getMillis();
+    }
+
+    /**
+     * Destroys all pooled render targets. Targets that are still leased are destroyed as well.
+     */
+    public static void clear() {
+        RenderSystem.assertOnRenderThread();
+
+        for (var target : targets) {
+            target.destroy();
+        }
+        targets.clear();
+    }
+
+    private static void evictIdleTargets(long now) {
+        var it = targets.iterator();
+        while (it.hasNext()) {
+            var target = it.next();
+            if (now - target.lastUsed > IDLE_RETENTION_MS) {
+                target.destroy();
+                it.remove();
+            }
+        }
+    }
+
+    private static int roundUp(int size) {
+        return (size + SIZE_GRANULARITY - 1) / SIZE_GRANULARITY * SIZE_GRANULARITY;
+    }
+
+    public static final class PooledRenderTarget {
+        private final TextureTarget renderTarget;
+        private final ResourceLocation textureId;
+        private final ExternalTexture texture;
+        private boolean leased;
+        private boolean destroyed;
+        private long lastUsed;
+        private int width;
+        private int height;
+
+        private PooledRenderTarget(TextureTarget renderTarget, ResourceLocation textureId) {
+            this.renderTarget = renderTarget;
+            this.textureId = textureId;
+            this.texture = new ExternalTexture(renderTarget.getColorTexture());
+        }
+
+        public TextureTarget getRenderTarget() {
+            return renderTarget;
+        }
+
+        /**
+         * The width that was requested when leasing this target. Rendering is limited to this width by
+         * {@link guideme.hooks.RenderToTextureHooks}.
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * The height that was requested when leasing this target.
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * The texture coordinate of the right edge of the requested area.
+         */
+        public float getMaxU() {
+            return width / (float) renderTarget.width;
+        }
+
+        /**
+         * The texture coordinate of the top edge of the requested area. Textures start at the bottom, so the image has
+         * to be drawn flipped from {@code getMaxV()} at the top to 0 at the bottom.
+         */
+        public float getMaxV() {
+            return height / (float) renderTarget.height;
+        }
+
+        /**
+         * The id under which the color texture of this target is registered with the texture manager.
+         */
+        public ResourceLocation getTextureId() {
+            return textureId;
+        }
+
+        /**
+         * Marks this target as used, which prevents it from being destroyed while a lease is held across frames.
+         */
+        public void touch() {
+            lastUsed = Util.getMillis();
+        }
+
+        /**
+         * @return True if the pool destroyed this target, because it was idle or the pool was cleared. The target
+         *         must not be used anymore.
+         */
+        public boolean isDestroyed() {
+            return destroyed;
+        }
+
+        private void destroy() {
+            destroyed = true;
+            Minecraft.getInstance().getTextureManager().release(textureId);
+            renderTarget.destroyBuffers();
+        }
+    }
+
+    /**
+     * Wraps the color texture of a render target to be able to use it via a resource location. The texture itself is
+     * owned by the render target.
+     */
+    private static class ExternalTexture extends AbstractTexture {
+        public ExternalTexture(GpuTexture texture) {
+            this.texture = texture;
+            this.setFilter(false, false);
+        }
+
+        @Override
+        public void close() {
+            // The texture is destroyed together with the render target
+        }
+    }
+}
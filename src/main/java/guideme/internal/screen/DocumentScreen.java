@@ -10,15 +10,18 @@
 import guideme.document.block.LytBlock;
 import guideme.document.block.LytDocument;
 import guideme.document.block.LytNode;
+import guideme.document.block.LytVisitor;
 import guideme.document.flow.LytFlowContainer;
 import guideme.document.interaction.GuideTooltip;
 import guideme.document.interaction.InteractiveElement;
 import guideme.internal.GuideMEClient;
 import guideme.internal.util.DashPattern;
 import guideme.internal.util.DashedRectangle;
+import guideme.layout.CachingFontMetrics;
 import guideme.layout.LayoutContext;
-import guideme.layout.MinecraftFontMetrics;
 import guideme.render.RenderContext;
+import guideme.scene.LytGuidebookScene;
+import guideme.scene.level.GuidebookLevelPool;
 import guideme.style.ResolvedTextStyle;
 import guideme.style.TextStyle;
 import guideme.ui.GuideUiHost;
@@ -117,17 +120,43 @@ protected float calculateEffectiveScale() {
     protected final void ensureDocumentLayout() {
         var document = getDocument();
 
-        if (document == null || !documentLayoutInvalid && getDocument().hasLayout()) {
+        if (document == null) {
             return;
         }
 
-        documentLayoutInvalid = false;
-
         var docViewport = getDocumentViewport();
-        var context = new LayoutContext(new MinecraftFontMetrics());
 
-        // Build layout if needed
-        document.updateLayout(context, docViewport.width());
+        if (documentLayoutInvalid || !document.hasLayout()) {
+            documentLayoutInvalid = false;
+
+            var context = new LayoutContext(CachingFontMetrics.minecraftFont());
+
+            // Build layout if needed
+            document.setParallelLayout(GuideMEClient.instance().isParallelLayout());
+            document.setVirtualLayout(GuideMEClient.instance().isVirtualLayout());
+            document.updateLayout(context, docViewport.width());
+            scrollbar.setContentHeight(document.getContentHeight());
+        }
+
+        // Lay out one screen ahead of the viewport, so scrolling down usually only needs to lay out a few blocks
+        if (document.hasPendingLayout()) {
+            document.layoutUntil(docViewport.bottom() + docViewport.height());
+            scrollbar.setContentHeight(document.getContentHeight());
+        }
+    }
+
+    /**
+     * Ensures that the given node of the current document has been laid out, and that there is enough content laid
+     * out below it to scroll it to the top of the viewport.
+     */
+    protected final void ensureDocumentLayout(LytNode node) {
+        var document = getDocumentWithLayout();
+        if (document == null || !document.hasPendingLayout()) {
+            return;
+        }
+
+        document.layoutThrough(node);
+        document.layoutUntil(node.getBounds().y() + 2 * getDocumentRect().height());
         scrollbar.setContentHeight(document.getContentHeight());
     }
 
@@ -631,6 +660,35 @@ private void releaseMouseCapture() {
     public void onClose() {
         super.onClose();
         releaseMouseCapture();
+        discard();
+    }
+
+    /**
+     * Called when this screen is closed for good, as opposed to being covered by a screen that returns to it later.
+     * Returns the levels of game scenes in the document to the level pool. Screens that are replaced by someone else
+     * (e.g. when disconnecting) leave their levels to the garbage collector instead.
+     */
+    protected void discard() {
+        var document = getDocument();
+        if (document != null) {
+            releaseSceneLevels(document);
+        }
+    }
+
+    /**
+     * Returns the levels used by game scenes in a document that is being discarded to the level pool. This includes
+     * scenes in out-of-tree content such as tooltips.
+     */
+    protected static void releaseSceneLevels(LytDocument document) {
+        document.visit(new LytVisitor() {
+            @Override
+            public Result beforeNode(LytNode node) {
+                if (node instanceof LytGuidebookScene lytScene && lytScene.getScene() != null) {
+                    GuidebookLevelPool.release(lytScene.getScene().getLevel());
+                }
+                return Result.CONTINUE;
+            }
+        }, true);
     }
 
     protected int getMarginBottom() {
@@ -7,8 +7,8 @@
 import guideme.document.flow.LytFlowSpan;
 import guideme.internal.GuideMEClient;
 import guideme.internal.util.Transition;
+import guideme.layout.CachingFontMetrics;
 import guideme.layout.LayoutContext;
-import guideme.layout.MinecraftFontMetrics;
 import guideme.navigation.NavigationNode;
 import guideme.navigation.NavigationTree;
 import guideme.render.SimpleRenderContext;
@@ -323,7 +323,7 @@ private void recreateRows() {
     }
 
     private void updateLayout() {
-        var context = new LayoutContext(new MinecraftFontMetrics());
+        var context = new LayoutContext(CachingFontMetrics.minecraftFont());
 
         var currentY = 0;
         for (var row : this.rows) {
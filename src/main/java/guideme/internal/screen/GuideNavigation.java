@@ -38,7 +38,7 @@ public static void navigateTo(Guide guide, PageAnchor anchor) {
         if (GuideSearchScreen.PAGE_ID.equals(anchor.pageId())) {
             var guiScreen = GuideSearchScreen.open(guide, anchor.anchor());
             guiScreen.setReturnToOnClose(screenToReturnTo);
-            Minecraft.getInstance().setScreen(guiScreen);
+            replaceScreen(currentScreen, guiScreen);
             return;
         }
 
@@ -58,7 +58,15 @@ public static void navigateTo(Guide guide, PageAnchor anchor) {
 
         GuideScreen guideScreen = GuideScreen.openNew(guide, anchor, history);
         guideScreen.setReturnToOnClose(screenToReturnTo);
-        Minecraft.getInstance().setScreen(guideScreen);
+        replaceScreen(currentScreen, guideScreen);
+    }
+
+    private static void replaceScreen(@Nullable Screen currentScreen, Screen newScreen) {
+        Minecraft.getInstance().setScreen(newScreen);
+        // History navigation creates new screens, so the replaced screen is never shown again
+        if (currentScreen instanceof DocumentScreen documentScreen) {
+            documentScreen.discard();
+        }
     }
 
     @Nullable
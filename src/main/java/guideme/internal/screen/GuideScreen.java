@@ -18,11 +18,13 @@
 import guideme.document.flow.LytFlowContent;
 import guideme.document.flow.LytFlowSpan;
 import guideme.internal.GuidebookText;
+import guideme.internal.scene.SceneRenderTargetPool;
+import guideme.layout.CachingFontMetrics;
 import guideme.layout.LayoutContext;
-import guideme.layout.MinecraftFontMetrics;
 import guideme.render.GuiAssets;
 import guideme.render.GuidePageTexture;
 import guideme.render.RenderContext;
+import guideme.scene.GuidebookLevelRenderer;
 import guideme.style.TextAlignment;
 import guideme.style.TextStyle;
 import guideme.ui.GuideUiHost;
@@ -63,6 +65,11 @@ public class GuideScreen extends DocumentScreen implements GuideUiHost {
 
     private final GuideNavBar navbar;
 
+    /**
+     * Set when the levels of the current page were returned to the level pool because the screen was discarded.
+     */
+    private boolean sceneLevelsReleased;
+
     private GuideScreen(Guide guide, PageAnchor anchor) {
         super(Component.literal("GuideME Guidebook"));
         this.guide = guide;
@@ -99,6 +106,11 @@ public static GuideScreen openNew(Guide guide, PageAnchor anchor, GuideScreenHis
     protected void init() {
         super.init();
 
+        // A discarded screen that is shown again needs fresh levels for the scenes on the page
+        if (sceneLevelsReleased) {
+            loadPage(currentPage.id());
+        }
+
         addRenderableWidget(navbar);
         toolbar.addToScreen(this::addRenderableWidget);
 
@@ -190,6 +202,9 @@ private void processPendingScrollTo() {
             return;
         }
 
+        // The target may not have been laid out yet if only the visible part of the document was
+        ensureDocumentLayout(targetAnchor.blockNode());
+
         if (targetAnchor.flowContent() instanceof LytFlowAnchor flowAnchor && flowAnchor.getLayoutY().isPresent()) {
             setDocumentScrollY(flowAnchor.getLayoutY().getAsInt());
         } else {
@@ -239,7 +254,7 @@ private void renderFooter(LytRect documentRect, RenderContext context) {
             sourceSpan.setStyle(TextStyle.builder().italic(true).build());
             paragraph.append(sourceSpan);
             paragraph.setStyle(TextStyle.builder().alignment(TextAlignment.RIGHT).build());
-            var layoutContext = new LayoutContext(new MinecraftFontMetrics());
+            var layoutContext = new LayoutContext(CachingFontMetrics.minecraftFont());
             paragraph.layout(layoutContext, documentRect.x(), documentRect.bottom(), documentRect.width());
             var buffers = context.beginBatch();
             paragraph.renderBatch(context, buffers);
@@ -339,8 +354,16 @@ private void loadPage(ResourceLocation pageId) {
             page = buildNotFoundPage(pageId);
         }
 
+        var previousPage = currentPage;
         currentPage = PageCompiler.compile(guide, guide.getExtensions(), page);
 
+        // The levels of the previous page are only returned once the new page compiled, since the previous page
+        // remains visible otherwise. If the screen was discarded in the meantime, they were already returned.
+        if (previousPage != null && !sceneLevelsReleased) {
+            releaseSceneLevels(previousPage.document());
+        }
+        sceneLevelsReleased = false;
+
         // Find and pull out the first heading
         pageTitle.clearContent();
         for (var flowContent : extractPageTitle(currentPage)) {
@@ -380,6 +403,8 @@ private ParsedGuidePage buildNotFoundPage(ResourceLocation pageId) {
     public void removed() {
         super.removed();
         GuidePageTexture.releaseUsedTextures();
+        SceneRenderTargetPool.clear();
+        GuidebookLevelRenderer.clear();
     }
 
     /**
@@ -399,7 +424,7 @@ protected LytDocument getDocument() {
     }
 
     private void updateTitleLayout(int left, int availableWidth) {
-        var context = new LayoutContext(new MinecraftFontMetrics());
+        var context = new LayoutContext(CachingFontMetrics.minecraftFont());
         // Compute the fake layout to find out how high it would be
         // Account for the navigation buttons on the right
         if (availableWidth < 0) {
@@ -434,11 +459,20 @@ public void onClose() {
         if (minecraft != null && minecraft.screen == this && this.returnToOnClose != null) {
             minecraft.setScreen(this.returnToOnClose);
             this.returnToOnClose = null;
+            discard();
             return;
         }
         super.onClose();
     }
 
+    @Override
+    protected void discard() {
+        if (!sceneLevelsReleased) {
+            super.discard();
+            sceneLevelsReleased = true;
+        }
+    }
+
     private boolean hasSpaceForSidebar() {
         return width >= super.getMaxWidth();
     }
@@ -293,6 +293,7 @@ public void onClose() {
         if (minecraft != null && minecraft.screen == this && this.returnToOnClose != null) {
             minecraft.setScreen(this.returnToOnClose);
             this.returnToOnClose = null;
+            discard();
             return;
         }
         super.onClose();
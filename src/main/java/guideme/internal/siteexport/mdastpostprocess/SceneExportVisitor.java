@@ -76,8 +76,9 @@ private void handleScene(MdAstNode node, MdxJsxElementFields elFields, String ta
             var exportNamePrefix = isBlockImage ? "blockimage" : "scene";
             var exportName = exportNamePrefix + (++index);
             if (isGameScene) {
+                // Replaces the source of prebaked scenes, which is re-exported along with the rest of the scene
                 var relativePath = exportScene(scene, exportName);
-                elFields.addAttribute("src", relativePath);
+                elFields.setAttribute("src", relativePath);
             }
             if (isBlockImage) {
                 // Export animated scenes as full scenes instead of pre-rendered images.
@@ -132,7 +133,8 @@ private void addPlaceholder(MdxJsxElementFields elFields, LytGuidebookScene scen
 
     private String exportScene(LytGuidebookScene scene, String baseName) throws IOException {
         var scenePath = exporter.getPageSpecificPathForWriting(baseName + ".scene.gz");
-        var exporter = new SceneExporter(this.exporter);
+        // Quantized positions have to be supported by the viewer of the exported site, so they are opt-in
+        var exporter = new SceneExporter(this.exporter, Boolean.getBoolean("guideme.exportQuantizedScenePositions"));
         var sceneContent = exporter.export(scene.getScene());
         scenePath = CacheBusting.writeAsset(scenePath, sceneContent);
 
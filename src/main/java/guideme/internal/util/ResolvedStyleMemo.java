@@ -0,0 +1,62 @@
+package guideme.internal.util;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import guideme.document.DefaultStyles;
+import guideme.style.ResolvedTextStyle;
+import guideme.style.Styleable;
+import guideme.style.TextStyle;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Memoizes the resolved styles of a styleable node, since layout resolves the style of every text node.
+ * <p>
+ * A memoized style is reused as long as neither the node's own style nor the resolved style of its styling parent
+ * changed. Resolved styles are interned, so the resolved style of the parent acts as its version: it is the same
+ * instance until the styles along the path to the root or the styling hierarchy itself change. A change therefore only
+ * affects the memoized styles of the subtree below it, and nodes with the same effective style share a single instance.
+ */
+public final class ResolvedStyleMemo {
+    private static final Interner<ResolvedTextStyle> INTERNER = Interners.newWeakInterner();
+
+    @Nullable
+    private Entry style;
+    @Nullable
+    private Entry hoverStyle;
+
+    /**
+     * Resolves the given style of a node against the resolved style of its styling parent, with the same semantics as
+     * {@link Styleable#resolveStyle()}.
+     */
+    public ResolvedTextStyle resolveStyle(TextStyle ownStyle, @Nullable Styleable stylingParent) {
+        var inherited = stylingParent != null ? stylingParent.resolveStyle() : DefaultStyles.BASE_STYLE;
+        var entry = style;
+        if (entry != null && entry.own == ownStyle && entry.inherited == inherited) {
+            return entry.resolved;
+        }
+
+        var resolved = INTERNER.intern(ownStyle.mergeWith(inherited));
+        style = new Entry(ownStyle, inherited, resolved);
+        return resolved;
+    }
+
+    /**
+     * Resolves the given hover style of a node, with the same semantics as
+     * {@link Styleable#resolveHoverStyle(ResolvedTextStyle)}.
+     */
+    public ResolvedTextStyle resolveHoverStyle(TextStyle ownHoverStyle, @Nullable Styleable stylingParent,
+            ResolvedTextStyle baseStyle) {
+        var inherited = stylingParent != null ? stylingParent.resolveHoverStyle(baseStyle) : baseStyle;
+        var entry = hoverStyle;
+        if (entry != null && entry.own == ownHoverStyle && entry.inherited == inherited) {
+            return entry.resolved;
+        }
+
+        var resolved = INTERNER.intern(ownHoverStyle.mergeWith(inherited));
+        hoverStyle = new Entry(ownHoverStyle, inherited, resolved);
+        return resolved;
+    }
+
+    private record Entry(TextStyle own, ResolvedTextStyle inherited, ResolvedTextStyle resolved) {
+    }
+}
@@ -0,0 +1,125 @@
+package guideme.layout;
+
+import guideme.style.ResolvedTextStyle;
+import it.unimi.dsi.fastutil.ints.Int2FloatOpenHashMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Caches the advances returned by other font metrics. Layout measures every character of a page, and looking up
+ * glyphs in Minecraft's font sets for each of them is comparatively expensive.
+ * <p>
+ * Advances are cached per font and boldness, so the decorated metrics must not depend on any other style property for
+ * them. Code points in the basic multilingual plane are stored in lazily allocated pages, all others in a map.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class CachingFontMetrics implements FontMetrics {
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_COUNT = (Character.MAX_VALUE + 1) >> PAGE_BITS;
+
+    @Nullable
+    private static CachingFontMetrics minecraftFont;
+
+    private final FontMetrics delegate;
+
+    private final Map<AdvancesKey, Advances> advances = new HashMap<>();
+
+    // Consecutive characters are usually measured in the same style, which skips the map lookup
+    @Nullable
+    private ResourceLocation lastFont;
+    private boolean lastBold;
+    @Nullable
+    private Advances lastAdvances;
+
+    public CachingFontMetrics(FontMetrics delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * The shared metrics of {@linkplain net.minecraft.client.Minecraft#font Minecraft's font}, which are invalidated
+     * when fonts are reloaded.
+     */
+    public static CachingFontMetrics minecraftFont() {
+        if (minecraftFont == null) {
+            minecraftFont = new CachingFontMetrics(new MinecraftFontMetrics());
+        }
+        return minecraftFont;
+    }
+
+    /**
+     * Discards the cached advances of {@link #minecraftFont()}, if it has been used already.
+     */
+    public static void invalidateMinecraftFont() {
+        if (minecraftFont != null) {
+            minecraftFont.invalidate();
+        }
+    }
+
+    @Override
+    public float getAdvance(int codePoint, ResolvedTextStyle style) {
+        Advances fontAdvances;
+        if (lastAdvances != null && lastFont == style.font() && lastBold == style.bold()) {
+            fontAdvances = lastAdvances;
+        } else {
+            fontAdvances = advances.computeIfAbsent(new AdvancesKey(style.font(), style.bold()),
+                    ignored -> new Advances());
+            lastFont = style.font();
+            lastBold = style.bold();
+            lastAdvances = fontAdvances;
+        }
+
+        if (codePoint >= 0 && codePoint <= Character.MAX_VALUE) {
+            var page = fontAdvances.pages[codePoint >>> PAGE_BITS];
+            if (page == null) {
+                page = new float[PAGE_SIZE];
+                Arrays.fill(page, Float.NaN);
+                fontAdvances.pages[codePoint >>> PAGE_BITS] = page;
+            }
+
+            var advance = page[codePoint & (PAGE_SIZE - 1)];
+            if (Float.isNaN(advance)) {
+                advance = delegate.getAdvance(codePoint, style);
+                page[codePoint & (PAGE_SIZE - 1)] = advance;
+            }
+            return advance;
+        }
+
+        var advance = fontAdvances.supplementary.get(codePoint);
+        if (Float.isNaN(advance)) {
+            advance = delegate.getAdvance(codePoint, style);
+            fontAdvances.supplementary.put(codePoint, advance);
+        }
+        return advance;
+    }
+
+    @Override
+    public int getLineHeight(ResolvedTextStyle style) {
+        return delegate.getLineHeight(style);
+    }
+
+    /**
+     * Discards all cached advances, i.e. after the fonts have changed.
+     */
+    public void invalidate() {
+        advances.clear();
+        lastFont = null;
+        lastAdvances = null;
+    }
+
+    private record AdvancesKey(ResourceLocation font, boolean bold) {
+    }
+
+    private static final class Advances {
+        private final float[][] pages = new float[PAGE_COUNT][];
+        private final Int2FloatOpenHashMap supplementary = new Int2FloatOpenHashMap();
+
+        Advances() {
+            supplementary.defaultReturnValue(Float.NaN);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package guideme.layout;
+
+import guideme.style.ResolvedTextStyle;
+import it.unimi.dsi.fastutil.ints.Int2FloatMap;
+import it.unimi.dsi.fastutil.ints.Int2FloatOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.util.HashMap;
+import java.util.Map;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * An immutable copy of the metrics of a known set of characters and styles, which can be used to lay out content on
+ * other threads than the one owning the font.
+ * <p>
+ * The snapshot is built from other font metrics by {@linkplain Builder#addText adding} all text that will be measured.
+ * Like {@link CachingFontMetrics}, advances are only captured per font and boldness. Measuring a character or style
+ * that was not captured throws an {@link IllegalStateException}.
+ */
+public final class FontMetricsSnapshot implements FontMetrics {
+    private final Map<AdvancesKey, Int2FloatMap> advances;
+    private final Object2IntMap<ResolvedTextStyle> lineHeights;
+
+    private FontMetricsSnapshot(Map<AdvancesKey, Int2FloatMap> advances,
+            Object2IntMap<ResolvedTextStyle> lineHeights) {
+        this.advances = advances;
+        this.lineHeights = lineHeights;
+    }
+
+    public static Builder builder(FontMetrics source) {
+        return new Builder(source);
+    }
+
+    @Override
+    public float getAdvance(int codePoint, ResolvedTextStyle style) {
+        var fontAdvances = advances.get(new AdvancesKey(style.font(), style.bold()));
+        if (fontAdvances == null || !fontAdvances.containsKey(codePoint)) {
+            throw new IllegalStateException(String.format("Advance of U+%04X in font %s is not part of the snapshot",
+                    codePoint, style.font()));
+        }
+        return fontAdvances.get(codePoint);
+    }
+
+    @Override
+    public int getLineHeight(ResolvedTextStyle style) {
+        if (!lineHeights.containsKey(style)) {
+            throw new IllegalStateException("Line height of " + style + " is not part of the snapshot");
+        }
+        return lineHeights.getInt(style);
+    }
+
+    private record AdvancesKey(ResourceLocation font, boolean bold) {
+    }
+
+    public static final class Builder {
+        private final FontMetrics source;
+        private final Map<AdvancesKey, Int2FloatMap> advances = new HashMap<>();
+        private final Object2IntMap<ResolvedTextStyle> lineHeights = new Object2IntOpenHashMap<>();
+
+        private Builder(FontMetrics source) {
+            this.source = source;
+        }
+
+        /**
+         * Captures the metrics of all characters in the given text, and of the style itself. Since white-space may be
+         * collapsed into a single space by layout, the metrics of a space are always captured as well.
+         */
+        public Builder addText(CharSequence text, ResolvedTextStyle style) {
+            if (!lineHeights.containsKey(style)) {
+                lineHeights.put(style, source.getLineHeight(style));
+            }
+
+            var fontAdvances = advances.computeIfAbsent(new AdvancesKey(style.font(), style.bold()),
+                    ignored -> new Int2FloatOpenHashMap());
+            addAdvance(fontAdvances, ' ', style);
+            for (var i = 0; i < text.length();) {
+                var codePoint = Character.codePointAt(text, i);
+                addAdvance(fontAdvances, codePoint, style);
+                i += Character.charCount(codePoint);
+            }
+            return this;
+        }
+
+        private void addAdvance(Int2FloatMap fontAdvances, int codePoint, ResolvedTextStyle style) {
+            if (!fontAdvances.containsKey(codePoint)) {
+                fontAdvances.put(codePoint, source.getAdvance(codePoint, style));
+            }
+        }
+
+        public FontMetricsSnapshot build() {
+            // Copy the maps, so the builder can not modify a snapshot that is in use
+            var advancesCopy = new HashMap<AdvancesKey, Int2FloatMap>(advances.size());
+            for (var entry : advances.entrySet()) {
+                advancesCopy.put(entry.getKey(), new Int2FloatOpenHashMap(entry.getValue()));
+            }
+            return new FontMetricsSnapshot(advancesCopy, new Object2IntOpenHashMap<>(lineHeights));
+        }
+    }
+}
@@ -1,17 +1,15 @@
 package guideme.layout;
 
-import com.google.common.collect.Streams;
 import guideme.document.LytRect;
 import guideme.style.ResolvedTextStyle;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.OptionalInt;
 
 public class LayoutContext implements FontMetrics {
     private final FontMetrics fontMetrics;
 
-    private final List<LytRect> leftFloats = new ArrayList<>();
-    private final List<LytRect> rightFloats = new ArrayList<>();
+    private final FloatList leftFloats = new FloatList(true);
+    private final FloatList rightFloats = new FloatList(false);
 
     public LayoutContext(FontMetrics fontMetrics) {
         this.fontMetrics = fontMetrics;
@@ -25,43 +23,59 @@ public void addRightFloat(LytRect bounds) {
         rightFloats.add(bounds);
     }
 
+    /**
+     * @return True if there are floats that reduce the space available to the content laid out next.
+     */
+    public boolean hasFloats() {
+        return !leftFloats.isEmpty() || !rightFloats.isEmpty();
+    }
+
     public OptionalInt getLeftFloatRightEdge() {
-        return leftFloats.stream()
-                .mapToInt(LytRect::right)
-                .max();
+        return leftFloats.isEmpty() ? OptionalInt.empty() : OptionalInt.of(leftFloats.getInnerEdge());
+    }
+
+    /**
+     * @return The right edge of the left floats, or the given default if there are none.
+     */
+    public int getLeftFloatRightEdge(int defaultEdge) {
+        return leftFloats.isEmpty() ? defaultEdge : leftFloats.getInnerEdge();
     }
 
     public OptionalInt getRightFloatLeftEdge() {
-        return rightFloats.stream()
-                .mapToInt(LytRect::x)
-                .min();
+        return rightFloats.isEmpty() ? OptionalInt.empty() : OptionalInt.of(rightFloats.getInnerEdge());
+    }
+
+    /**
+     * @return The left edge of the right floats, or the given default if there are none.
+     */
+    public int getRightFloatLeftEdge(int defaultEdge) {
+        return rightFloats.isEmpty() ? defaultEdge : rightFloats.getInnerEdge();
     }
 
     // Clears all pending floats and returns the lowest y level below the cleared floats
     public OptionalInt clearFloats(boolean left, boolean right) {
-        if (left && right) {
-            var result = Streams.concat(leftFloats.stream(), rightFloats.stream())
-                    .mapToInt(LytRect::bottom).max();
-            leftFloats.clear();
-            rightFloats.clear();
-            return result;
-        } else if (left) {
-            var result = leftFloats.stream().mapToInt(LytRect::bottom).max();
+        var clearLeft = left && !leftFloats.isEmpty();
+        var clearRight = right && !rightFloats.isEmpty();
+        if (!clearLeft && !clearRight) {
+            return OptionalInt.empty();
+        }
+
+        var result = Integer.MIN_VALUE;
+        if (clearLeft) {
+            result = leftFloats.getLowestBottom();
             leftFloats.clear();
-            return result;
-        } else if (right) {
-            var result = rightFloats.stream().mapToInt(LytRect::bottom).max();
+        }
+        if (clearRight) {
+            result = Math.max(result, rightFloats.getLowestBottom());
             rightFloats.clear();
-            return result;
-        } else {
-            return OptionalInt.empty();
         }
+        return OptionalInt.of(result);
     }
 
     // Close out all floats above the given y position
     public void clearFloatsAbove(int y) {
-        leftFloats.removeIf(f -> f.bottom() <= y);
-        rightFloats.removeIf(f -> f.bottom() <= y);
+        leftFloats.clearAbove(y);
+        rightFloats.clearAbove(y);
     }
 
     @Override
@@ -78,9 +92,95 @@ public int getLineHeight(ResolvedTextStyle style) {
      * If there's a float whose bottom edge is below the given y coordinate, return that bottom edge.
      */
     public OptionalInt getNextFloatBottomEdge(int y) {
-        return Streams.concat(leftFloats.stream(), rightFloats.stream())
-                .mapToInt(LytRect::bottom)
-                .filter(bottom -> bottom > y)
-                .min();
+        var result = Math.min(leftFloats.getNextBottomBelow(y), rightFloats.getNextBottomBelow(y));
+        return result == Integer.MAX_VALUE ? OptionalInt.empty() : OptionalInt.of(result);
+    }
+
+    /**
+     * The floats on one side of the content, ordered by their bottom edge. Floats that content has advanced past are
+     * always at the front, which makes clearing them cheap.
+     */
+    private static final class FloatList {
+        // True for left floats, whose inner edge is their right edge
+        private final boolean left;
+        private LytRect[] floats = new LytRect[4];
+        private int start;
+        private int end;
+        // The inner edge of all floats is only recomputed after they changed
+        private boolean innerEdgeValid;
+        private int innerEdge;
+
+        FloatList(boolean left) {
+            this.left = left;
+        }
+
+        boolean isEmpty() {
+            return start == end;
+        }
+
+        void add(LytRect bounds) {
+            if (start > 0) {
+                // Move the remaining floats to the front to reuse the space of cleared ones
+                System.arraycopy(floats, start, floats, 0, end - start);
+                Arrays.fill(floats, end - start, end, null);
+                end -= start;
+                start = 0;
+            }
+            if (end == floats.length) {
+                floats = Arrays.copyOf(floats, floats.length * 2);
+            }
+
+            // Floats are added roughly in the order of their bottom edge, so this rarely has to move any
+            var i = end++;
+            while (i > 0 && floats[i - 1].bottom() > bounds.bottom()) {
+                floats[i] = floats[i - 1];
+                i--;
+            }
+            floats[i] = bounds;
+            innerEdgeValid = false;
+        }
+
+        void clearAbove(int y) {
+            while (start < end && floats[start].bottom() <= y) {
+                floats[start++] = null;
+                innerEdgeValid = false;
+            }
+        }
+
+        void clear() {
+            Arrays.fill(floats, start, end, null);
+            start = 0;
+            end = 0;
+            innerEdgeValid = false;
+        }
+
+        int getLowestBottom() {
+            return floats[end - 1].bottom();
+        }
+
+        /**
+         * @return The bottom edge of the first float that ends below y, or {@link Integer#MAX_VALUE}.
+         */
+        int getNextBottomBelow(int y) {
+            for (var i = start; i < end; i++) {
+                var bottom = floats[i].bottom();
+                if (bottom > y) {
+                    return bottom;
+                }
+            }
+            return Integer.MAX_VALUE;
+        }
+
+        int getInnerEdge() {
+            if (!innerEdgeValid) {
+                var edge = left ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+                for (var i = start; i < end; i++) {
+                    edge = left ? Math.max(edge, floats[i].right()) : Math.min(edge, floats[i].x());
+                }
+                innerEdge = edge;
+                innerEdgeValid = true;
+            }
+            return innerEdge;
+        }
     }
 }
@@ -213,7 +213,7 @@ private static int size(LytRect rect, LytAxis axis) {
      * Offsets position on the given axis into the content area of the child by adding the appropriate margin, while
      * accounting for potential collapsing of the margin with the previous block element.
      */
-    private static int offsetIntoContentArea(LytAxis axis, int pos, LytBlock previousBlock, LytBlock child) {
+    public static int offsetIntoContentArea(LytAxis axis, int pos, LytBlock previousBlock, LytBlock child) {
         var previousMarginEnd = previousBlock != null ? previousBlock.getMarginEnd(axis) : 0;
         var childMarginStart = child.getMarginStart(axis);
 
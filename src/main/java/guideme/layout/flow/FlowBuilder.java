@@ -1,6 +1,7 @@
 package guideme.layout.flow;
 
 import guideme.document.LytRect;
+import guideme.document.flow.LytFlowAnchor;
 import guideme.document.flow.LytFlowContent;
 import guideme.document.flow.LytFlowSpan;
 import guideme.layout.LayoutContext;
@@ -8,9 +9,11 @@
 import guideme.style.TextAlignment;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.OptionalInt;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import net.minecraft.client.renderer.MultiBufferSource;
+import org.apache.commons.lang3.mutable.MutableInt;
 import org.jetbrains.annotations.Nullable;
 
 public class FlowBuilder {
@@ -38,6 +41,59 @@ public LytRect computeLayout(LayoutContext context, int x, int y, int availableW
         return lineBuilder.getBounds();
     }
 
+    /**
+     * Captures the lines computed by the last layout. The captured lines are no longer modified once the flow is laid
+     * out again, which allows them to be {@linkplain #restoreLayout restored} later.
+     */
+    public LayoutState saveLayout() {
+        var anchorPositions = new ArrayList<OptionalInt>();
+        for (var content : rootContent) {
+            visitInDocumentOrder(content, el -> {
+                if (el instanceof LytFlowAnchor anchor) {
+                    anchorPositions.add(anchor.getLayoutY());
+                }
+            });
+        }
+        return new LayoutState(new ArrayList<>(lines), new ArrayList<>(floats), anchorPositions);
+    }
+
+    /**
+     * Replaces the current layout with a previously captured one, which must have been captured with the same content.
+     */
+    public void restoreLayout(LayoutContext context, LayoutState state) {
+        lines.clear();
+        lines.addAll(state.lines);
+        floats.clear();
+        floats.addAll(state.floats);
+
+        var anchorIndex = new MutableInt();
+        for (var content : rootContent) {
+            visitInDocumentOrder(content, el -> {
+                if (el instanceof LytFlowAnchor anchor) {
+                    // Anchors without a position must stay empty, so that moving the layout doesn't give them one
+                    var layoutY = state.anchorPositions.get(anchorIndex.getAndIncrement());
+                    if (layoutY.isPresent()) {
+                        anchor.setLayoutY(layoutY.getAsInt());
+                    } else {
+                        anchor.clearLayoutY();
+                    }
+                }
+            });
+        }
+
+        // Blocks in the flow have been laid out again in the meantime
+        for (var line : lines) {
+            for (var el = line.firstElement(); el != null; el = el.next) {
+                if (el instanceof LineBlock lineBlock) {
+                    lineBlock.getBlock().layout(context, el.bounds.x(), el.bounds.y(), el.bounds.width());
+                }
+            }
+        }
+        for (var el : floats) {
+            el.getBlock().layout(context, el.bounds.x(), el.bounds.y(), el.bounds.width());
+        }
+    }
+
     public void renderBatch(RenderContext context, MultiBufferSource buffers, @Nullable LytFlowContent hoveredContent) {
         for (var line : lines) {
             for (var el = line.firstElement(); el != null; el = el.next) {
@@ -159,5 +215,37 @@ public void move(int deltaX, int deltaY) {
                 }
             }
         }
+
+        // Floats are not part of any line
+        for (var el : floats) {
+            el.bounds = el.bounds.move(deltaX, deltaY);
+            el.getBlock().setLayoutPos(el.getBlock().getBounds().point().add(deltaX, deltaY));
+        }
+
+        // Anchors only record their vertical position
+        if (deltaY != 0) {
+            for (var content : rootContent) {
+                visitInDocumentOrder(content, el -> {
+                    if (el instanceof LytFlowAnchor anchor && anchor.getLayoutY().isPresent()) {
+                        anchor.setLayoutY(anchor.getLayoutY().getAsInt() + deltaY);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * The lines of a layout captured by {@link #saveLayout()}.
+     */
+    public static final class LayoutState {
+        private final List<Line> lines;
+        private final List<LineBlock> floats;
+        private final List<OptionalInt> anchorPositions;
+
+        private LayoutState(List<Line> lines, List<LineBlock> floats, List<OptionalInt> anchorPositions) {
+            this.lines = lines;
+            this.floats = floats;
+            this.anchorPositions = anchorPositions;
+        }
     }
 }
@@ -11,6 +11,7 @@
 import guideme.layout.LayoutContext;
 import guideme.style.ResolvedTextStyle;
 import guideme.style.TextAlignment;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import java.text.BreakIterator;
 import java.util.List;
 import java.util.function.Consumer;
@@ -21,6 +22,9 @@
  * https://developer.mozilla.org/en-US/docs/Web/CSS/CSS_Flow_Layout/Block_and_Inline_Layout_in_Normal_Flow
  */
 class LineBuilder implements Consumer<LytFlowContent> {
+    private static final ThreadLocal<BreakIterator> LINE_BREAK_ITERATOR = ThreadLocal
+            .withInitial(BreakIterator::getLineInstance);
+
     private final LayoutContext context;
     private final List<Line> lines;
     // Contains any floating elements we construct as part of processing flow content
@@ -87,7 +91,7 @@ private void appendBreak(@Nullable LytFlowContent flowContent) {
     }
 
     private void appendInlineBlock(LytFlowInlineBlock inlineBlock) {
-        var size = inlineBlock.getPreferredSize(lineBoxWidth);
+        var size = inlineBlock.getPreferredSize(context, lineBoxWidth);
         var block = inlineBlock.getBlock();
         var marginLeft = block.getMarginLeft();
         var marginRight = block.getMarginRight();
@@ -176,16 +180,16 @@ private void appendText(String text, LytFlowContent flowContent) {
 
         char lastChar = '\0';
         var endOfOpenLine = getEndOfOpenLine();
-        if (endOfOpenLine instanceof LineTextRun textRun && !textRun.text.isEmpty()) {
-            lastChar = textRun.text.charAt(textRun.text.length() - 1);
+        if (endOfOpenLine instanceof LineTextRun textRun && !textRun.isEmpty()) {
+            lastChar = textRun.getLastChar();
         } else if (endOfOpenLine == null || endOfOpenLine.floating) {
             // Treat the first text in a line or text directly after a float as if it was after a line-break.
             lastChar = '\n';
         }
 
-        iterateRuns(text, style, lastChar, (run, width, endLine) -> {
-            if (!run.isEmpty()) {
-                var el = new LineTextRun(run.toString(), style, hoverStyle);
+        iterateRuns(text, style, lastChar, (runText, runStart, runEnd, width, endLine) -> {
+            if (runStart < runEnd) {
+                var el = new LineTextRun(runText, runStart, runEnd, style, hoverStyle);
                 el.flowContent = flowContent;
                 el.bounds = new LytRect(
                         innerX,
@@ -203,106 +207,142 @@ private void appendText(String text, LytFlowContent flowContent) {
     }
 
     private void iterateRuns(CharSequence text, ResolvedTextStyle style, char lastChar, LineConsumer consumer) {
+        var fontScale = style.fontScale();
+        var collapsedText = collapseWhitespace(text, style, Character.isWhitespace(lastChar));
+        var breakOpportunities = findBreakOpportunities(collapsedText);
+
+        // If the preceding text chunk ended on a whitespace, we can break before this text if it does not offer us any
+        // opportunity to.
+        boolean canBreakAtStart = Character.isWhitespace(lastChar);
+
         float curLineWidth = 0;
+        int lineStart = 0;
+        // The last break opportunity in the current line, and the width of the line up to it
+        int lastBreak = -1;
+        float widthAtLastBreak = 0;
+        int nextBreakOpportunity = 0;
 
-        var fontScale = style.fontScale();
-        var lineBuffer = new StringBuilder();
-
-        boolean lastCharWasWhitespace = Character.isWhitespace(lastChar);
-        boolean canBreakAtStart = lastCharWasWhitespace;
-
-        for (var i = 0; i < text.length(); i++) {
-            char ch = text.charAt(i);
-            int codePoint = ch;
-
-            // UTF-16 surrogate handling
-            if (Character.isHighSurrogate(ch) && i + 1 < text.length()) {
-                // Always consume the next char if it's a low surrogate
-                char low = text.charAt(i + 1);
-                if (Character.isLowSurrogate(low)) {
-                    i++; // Skip the low surrogate
-                    codePoint = Character.toCodePoint(ch, low);
-                }
-            }
+        for (var i = 0; i < collapsedText.length();) {
+            int codePoint = collapsedText.codePointAt(i);
+            int charCount = Character.charCount(codePoint);
 
-            // Handle explicit line breaks
+            // Line feeds are only left in the text if segment breaks are preserved
             if (codePoint == '\n') {
-                if (style.whiteSpace().isCollapseSegmentBreaks()) {
-                    codePoint = ' ';
-                } else {
-                    consumer.visitRun(lineBuffer, curLineWidth, true);
-                    lineBuffer.setLength(0);
-                    lastCharWasWhitespace = true;
-                    remainingLineWidth = getAvailableHorizontalSpace();
-                    continue;
-                }
+                consumer.visitRun(collapsedText, lineStart, i, curLineWidth, true);
+                i += charCount;
+                lineStart = i;
+                curLineWidth = 0;
+                lastBreak = -1;
+                canBreakAtStart = false;
+                remainingLineWidth = getAvailableHorizontalSpace();
+                continue;
             }
 
-            if (Character.isWhitespace(codePoint)) {
-                // Skip if the last one was a space already
-                if (lastCharWasWhitespace && style.whiteSpace().isCollapseWhitespace()) {
-                    continue; // White space collapsing
-                }
-                lastCharWasWhitespace = true;
-            } else {
-                lastCharWasWhitespace = false;
+            while (nextBreakOpportunity < breakOpportunities.length && breakOpportunities[nextBreakOpportunity] < i) {
+                nextBreakOpportunity++;
+            }
+            if (i > lineStart && nextBreakOpportunity < breakOpportunities.length
+                    && breakOpportunities[nextBreakOpportunity] == i) {
+                lastBreak = i;
+                widthAtLastBreak = curLineWidth;
             }
 
             var advance = context.getAdvance(codePoint, style) * fontScale;
             // Break line if necessary
             if (curLineWidth + advance > remainingLineWidth) {
-                int precedingBreakOpportunity;
-
-                // BreakIterator will only ever break *AFTER* whitespace, but since we ignore the last break opportunity
-                // we need to also ignore that...
-                if (lastCharWasWhitespace) {
-                    precedingBreakOpportunity = lineBuffer.length();
-                } else {
-                    // Find break opportunities and include the current character in it.
-                    var breakIterator = BreakIterator.getLineInstance();
-                    breakIterator.setText(lineBuffer.toString() + (char) codePoint);
-                    precedingBreakOpportunity = breakIterator.preceding(lineBuffer.length() + 1);
+                if (Character.isWhitespace(codePoint)) {
+                    // If a white-space character broke the line, ignore it as it
+                    // would otherwise be at the start of the next line
+                    consumer.visitRun(collapsedText, lineStart, i, curLineWidth, true);
+                    i += charCount;
+                    lineStart = i;
+                    curLineWidth = 0;
+                    lastBreak = -1;
+                    canBreakAtStart = false;
+                    remainingLineWidth = getAvailableHorizontalSpace();
+                    continue;
                 }
 
-                // If the preceding text chunk ended on a whitespace, we can break there if the
-                // current word does not offer us any opportunity to.
-                if (precedingBreakOpportunity > 0 || precedingBreakOpportunity == 0 && canBreakAtStart) {
-                    // Determine width up until the break opportunity.
-                    var widthAtBreakOpportunity = 0f;
-                    for (var j = 0; j < precedingBreakOpportunity; j++) {
-                        widthAtBreakOpportunity += context.getAdvance(lineBuffer.charAt(j), style) * fontScale;
-                    }
+                if (lastBreak == -1 && canBreakAtStart) {
+                    lastBreak = lineStart;
+                    widthAtLastBreak = 0;
+                }
 
-                    consumer.visitRun(lineBuffer.subSequence(0, precedingBreakOpportunity), widthAtBreakOpportunity,
-                            true);
-                    curLineWidth -= widthAtBreakOpportunity;
-                    lineBuffer.delete(0, precedingBreakOpportunity);
-                    if (!lineBuffer.isEmpty() && Character.isWhitespace(lineBuffer.charAt(0))) {
-                        var firstChar = lineBuffer.charAt(0);
-                        lineBuffer.deleteCharAt(0);
-                        curLineWidth -= context.getAdvance(firstChar, style) * fontScale;
+                if (lastBreak != -1) {
+                    consumer.visitRun(collapsedText, lineStart, lastBreak, widthAtLastBreak, true);
+                    curLineWidth -= widthAtLastBreak;
+                    lineStart = lastBreak;
+                    var firstCodePoint = collapsedText.codePointAt(lineStart);
+                    if (lineStart < i && Character.isWhitespace(firstCodePoint)) {
+                        curLineWidth -= context.getAdvance(firstCodePoint, style) * fontScale;
+                        lineStart += Character.charCount(firstCodePoint);
                     }
                 } else {
                     // We exceeded the line length, but did not find a break opportunity
                     // this causes a forced break mid-word
-                    consumer.visitRun(lineBuffer, curLineWidth, true);
-                    lineBuffer.setLength(0);
+                    consumer.visitRun(collapsedText, lineStart, i, curLineWidth, true);
+                    lineStart = i;
                     curLineWidth = 0;
                 }
+                lastBreak = -1;
+                canBreakAtStart = false;
                 remainingLineWidth = getAvailableHorizontalSpace();
-                // If a white-space character broke the line, ignore it as it
-                // would otherwise be at the start of the next line
-                if (lastCharWasWhitespace) {
+            }
+            curLineWidth += advance;
+            i += charCount;
+        }
+
+        if (lineStart < collapsedText.length()) {
+            consumer.visitRun(collapsedText, lineStart, collapsedText.length(), curLineWidth, false);
+        }
+    }
+
+    /**
+     * Applies the white-space collapsing of the given style. Line feeds that are not collapsed are kept in the text.
+     */
+    private static String collapseWhitespace(CharSequence text, ResolvedTextStyle style,
+            boolean lastCharWasWhitespace) {
+        var whiteSpace = style.whiteSpace();
+        var result = new StringBuilder(text.length());
+        for (var i = 0; i < text.length();) {
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+
+            if (codePoint == '\n') {
+                if (whiteSpace.isCollapseSegmentBreaks()) {
+                    codePoint = ' ';
+                } else {
+                    result.append('\n');
+                    lastCharWasWhitespace = true;
                     continue;
                 }
             }
-            curLineWidth += advance;
-            lineBuffer.appendCodePoint(codePoint);
+
+            if (Character.isWhitespace(codePoint)) {
+                // Skip if the last one was a space already
+                if (lastCharWasWhitespace && whiteSpace.isCollapseWhitespace()) {
+                    continue; // White space collapsing
+                }
+                lastCharWasWhitespace = true;
+            } else {
+                lastCharWasWhitespace = false;
+            }
+            result.appendCodePoint(codePoint);
         }
+        return result.toString();
+    }
 
-        if (!lineBuffer.isEmpty()) {
-            consumer.visitRun(lineBuffer, curLineWidth, false);
+    /**
+     * Finds all line break opportunities in the text, in ascending order.
+     */
+    private static int[] findBreakOpportunities(String text) {
+        var breakIterator = LINE_BREAK_ITERATOR.get();
+        breakIterator.setText(text);
+        var result = new IntArrayList();
+        for (var pos = breakIterator.first(); pos != BreakIterator.DONE; pos = breakIterator.next()) {
+            result.add(pos);
         }
+        return result.toIntArray();
     }
 
     private void endLine() {
@@ -367,12 +407,12 @@ private int getAvailableHorizontalSpace() {
 
     // Absolute X coord of the beginning of the text area of the current line box
     private int getInnerLeftEdge() {
-        return context.getLeftFloatRightEdge().orElse(lineBoxX);
+        return context.getLeftFloatRightEdge(lineBoxX);
     }
 
     // Absolute X coord of the end of the text area of the current line box
     private int getInnerRightEdge() {
-        return context.getRightFloatLeftEdge().orElse(this.lineBoxX + lineBoxWidth);
+        return context.getRightFloatLeftEdge(this.lineBoxX + lineBoxWidth);
     }
 
     private void appendToOpenLine(LineElement el) {
@@ -400,6 +440,11 @@ public LytRect getBounds() {
 
     @FunctionalInterface
     interface LineConsumer {
-        void visitRun(CharSequence run, float width, boolean end);
+        /**
+         * @param text  The text the run is a range of.
+         * @param start Start of the run (inclusive).
+         * @param end   End of the run (exclusive).
+         */
+        void visitRun(String text, int start, int end, float width, boolean endLine);
     }
 }
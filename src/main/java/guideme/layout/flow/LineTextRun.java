@@ -2,28 +2,79 @@
 
 import guideme.render.RenderContext;
 import guideme.style.ResolvedTextStyle;
+import java.nio.CharBuffer;
 import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.locale.Language;
+import net.minecraft.network.chat.FormattedText;
+import net.minecraft.util.FormattedCharSequence;
+import org.jetbrains.annotations.Nullable;
 
 public class LineTextRun extends LineElement {
-    final String text;
+    /**
+     * The run is a range of this text, which is shared by all runs laid out from the same flow content.
+     */
+    private final String source;
+    private final int start;
+    private final int end;
     final ResolvedTextStyle style;
     final ResolvedTextStyle hoverStyle;
 
+    // Formatted once when first rendered, so that rendering doesn't have to allocate every frame
+    @Nullable
+    private FormattedCharSequence formattedText;
+    @Nullable
+    private FormattedCharSequence formattedHoverText;
+
     public LineTextRun(String text, ResolvedTextStyle style, ResolvedTextStyle hoverStyle) {
-        this.text = text;
+        this(text, 0, text.length(), style, hoverStyle);
+    }
+
+    public LineTextRun(String source, int start, int end, ResolvedTextStyle style, ResolvedTextStyle hoverStyle) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
         this.style = style;
         this.hoverStyle = hoverStyle;
     }
 
+    /**
+     * @return A view of the text of this run.
+     */
+    public CharSequence getText() {
+        return CharBuffer.wrap(source, start, end);
+    }
+
+    boolean isEmpty() {
+        return start == end;
+    }
+
+    char getLastChar() {
+        return source.charAt(end - 1);
+    }
+
     @Override
     public void renderBatch(RenderContext context, MultiBufferSource buffers) {
-        var style = containsMouse ? this.hoverStyle : this.style;
+        if (containsMouse) {
+            if (formattedHoverText == null) {
+                formattedHoverText = format(hoverStyle);
+            }
+            context.renderTextInBatch(formattedHoverText, hoverStyle, (float) bounds.x(), (float) bounds.y(),
+                    buffers);
+        } else {
+            if (formattedText == null) {
+                formattedText = format(style);
+            }
+            context.renderTextInBatch(formattedText, style, (float) bounds.x(), (float) bounds.y(), buffers);
+        }
+    }
 
-        context.renderTextInBatch(text, style, (float) bounds.x(), (float) bounds.y(), buffers);
+    private FormattedCharSequence format(ResolvedTextStyle style) {
+        var text = FormattedText.of(source.substring(start, end), style.toMinecraftStyle());
+        return Language.getInstance().getVisualOrder(text);
     }
 
     @Override
     public String toString() {
-        return "TextRun[" + text + "]";
+        return "TextRun[" + getText() + "]";
     }
 }
@@ -7,6 +7,7 @@
 import guideme.color.MutableColor;
 import guideme.document.LytRect;
 import guideme.internal.util.FluidBlitter;
+import guideme.layout.CachingFontMetrics;
 import guideme.layout.MinecraftFontMetrics;
 import guideme.style.ResolvedTextStyle;
 import net.minecraft.client.Minecraft;
@@ -19,12 +20,11 @@
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.Style;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.FormattedCharSequence;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.material.Fluid;
 import net.minecraft.world.phys.Vec2;
 import net.neoforged.neoforge.fluids.FluidStack;
-import org.joml.Matrix4f;
-import org.joml.Vector3f;
 
 public interface RenderContext {
 
@@ -125,14 +125,22 @@ default Font font() {
     }
 
     default float getAdvance(int codePoint, ResolvedTextStyle style) {
-        return font().getFontSet(style.font()).getGlyphInfo(codePoint, false)
+        var font = font();
+        if (font == Minecraft.getInstance().font) {
+            return CachingFontMetrics.minecraftFont().getAdvance(codePoint, style);
+        }
+        return font.getFontSet(style.font()).getGlyphInfo(codePoint, false)
                 .getAdvance(style.bold());
     }
 
     default float getWidth(String text, ResolvedTextStyle style) {
-        return (float) text.codePoints()
-                .mapToDouble(cp -> getAdvance(cp, style))
-                .sum();
+        float width = 0;
+        for (int i = 0; i < text.length();) {
+            var codePoint = text.codePointAt(i);
+            width += getAdvance(codePoint, style);
+            i += Character.charCount(codePoint);
+        }
+        return width;
     }
 
     default void renderTextCenteredIn(String text, ResolvedTextStyle style, LytRect rect) {
@@ -162,26 +170,33 @@ default void renderText(String text, ResolvedTextStyle style, float x, float y)
     }
 
     default void renderTextInBatch(String text, ResolvedTextStyle style, float x, float y, MultiBufferSource buffers) {
-        var effectiveStyle = Style.EMPTY
-                .withBold(style.bold())
-                .withItalic(style.italic())
-                .withUnderlined(style.underlined())
-                .withStrikethrough(style.strikethrough())
-                .withFont(style.font());
-
-        var matrix = poseStack().last().pose();
-        if (style.fontScale() != 1) {
-            matrix = new Matrix4f(matrix);
-
-            matrix.scale(style.fontScale(), style.fontScale(), 1);
-            matrix.translate(new Vector3f(x / style.fontScale(), y / style.fontScale(), 0));
+        var formattedText = Component.literal(text).withStyle(style.toMinecraftStyle()).getVisualOrderText();
+        renderTextInBatch(formattedText, style, x, y, buffers);
+    }
+
+    /**
+     * Renders text that has already been formatted with {@link ResolvedTextStyle#toMinecraftStyle()}. Color, font
+     * scale and drop shadow are taken from the given style.
+     */
+    default void renderTextInBatch(FormattedCharSequence text, ResolvedTextStyle style, float x, float y,
+            MultiBufferSource buffers) {
+        var poseStack = poseStack();
+        var scaled = style.fontScale() != 1;
+        if (scaled) {
+            poseStack.pushPose();
+            poseStack.translate(x, y, 0);
+            poseStack.scale(style.fontScale(), style.fontScale(), 1);
             x = 0;
             y = 0;
         }
 
-        font().drawInBatch(Component.literal(text).withStyle(effectiveStyle), x, y, resolveColor(style.color()),
+        font().drawInBatch(text, x, y, resolveColor(style.color()),
                 style.dropShadow(),
-                matrix, buffers, Font.DisplayMode.NORMAL, 0, LightTexture.FULL_BRIGHT);
+                poseStack.last().pose(), buffers, Font.DisplayMode.NORMAL, 0, LightTexture.FULL_BRIGHT);
+
+        if (scaled) {
+            poseStack.popPose();
+        }
     }
 
     default void fillRect(int x, int y, int width, int height, ColorValue color) {
@@ -6,7 +6,7 @@
 import guideme.document.block.LytBlockContainer;
 import guideme.libs.mdast.mdx.model.MdxJsxElementFields;
 import guideme.libs.mdast.model.MdAstNode;
-import guideme.scene.level.GuidebookLevel;
+import guideme.scene.level.GuidebookLevelPool;
 import java.util.Set;
 import net.minecraft.core.BlockPos;
 
@@ -38,7 +38,7 @@ protected void compile(PageCompiler compiler, LytBlockContainer parent, MdxJsxEl
         var state = pair.getRight().defaultBlockState();
         state = MdxAttrs.applyBlockStateProperties(compiler, parent, el, state);
 
-        var level = new GuidebookLevel();
+        var level = GuidebookLevelPool.acquire();
         var cameraSettings = new CameraSettings();
         cameraSettings.setZoom(scale);
         cameraSettings.setPerspectivePreset(perspective);
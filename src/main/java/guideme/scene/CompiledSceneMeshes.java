@@ -0,0 +1,332 @@
+package guideme.scene;
+
+import com.mojang.blaze3d.buffers.BufferType;
+import com.mojang.blaze3d.buffers.BufferUsage;
+import com.mojang.blaze3d.buffers.GpuBuffer;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.ByteBufferBuilder;
+import com.mojang.blaze3d.vertex.MeshData;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import guideme.scene.level.GuidebookLevel;
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.SequencedMap;
+import java.util.Set;
+import java.util.function.Consumer;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.block.model.BlockModelPart;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.block.RenderShape;
+import net.minecraft.world.level.levelgen.SingleThreadedRandomSource;
+import net.minecraft.world.level.material.FluidState;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Block geometry of a {@link GuidebookLevel} that has been tessellated once and uploaded into GPU buffers, one per
+ * render type, similar to how vanilla compiles chunk sections. Only geometry that doesn't need sorting is compiled.
+ * Translucent blocks, block entities and entities are still rendered dynamically.
+ * <p/>
+ * Tessellation ({@link #build}) can run on any thread, while {@link #upload} has to run on the render thread.
+ */
+class CompiledSceneMeshes implements AutoCloseable {
+    /**
+     * All quad directions including unculled quads.
+     */
+    private static final Direction[] DIRECTIONS = { Direction.DOWN, Direction.UP, Direction.NORTH, Direction.SOUTH,
+            Direction.WEST, Direction.EAST, null };
+
+    private final GuidebookLevel level;
+    private final int revision;
+    private final List<CompiledLayer> layers;
+    private final Set<FluidState> fluids;
+    private final boolean animated;
+    private long lastUsed;
+
+    private CompiledSceneMeshes(GuidebookLevel level, int revision, List<CompiledLayer> layers,
+            Set<FluidState> fluids, boolean animated) {
+        this.level = level;
+        this.revision = revision;
+        this.layers = layers;
+        this.fluids = fluids;
+        this.animated = animated;
+    }
+
+    /**
+     * Tessellates the level using the given block renderer, which is expected to render into the provided buffer
+     * source. The level must not be modified while this runs.
+     */
+    static BuiltMeshes build(GuidebookLevel level, Consumer<MultiBufferSource.BufferSource> blockRenderer) {
+        var revision = level.getRevision();
+        var bufferSource = new CapturingBufferSource();
+        try {
+            blockRenderer.accept(bufferSource);
+            for (var layer : RenderType.chunkBufferLayers()) {
+                bufferSource.endBatch(layer);
+            }
+            bufferSource.endBatch();
+        } catch (RuntimeException e) {
+            bufferSource.close();
+            throw e;
+        }
+
+        var fluids = new HashSet<FluidState>();
+        var animated = false;
+        var blockRenderDispatcher = Minecraft.getInstance().getBlockRenderer();
+        var randomSource = new SingleThreadedRandomSource(0L);
+        var modelParts = new ArrayList<BlockModelPart>();
+        var it = level.getFilledBlocks().iterator();
+        while (it.hasNext()) {
+            var pos = it.next();
+            var blockState = level.getBlockState(pos);
+            var fluidState = blockState.getFluidState();
+            if (!fluidState.isEmpty()) {
+                fluids.add(fluidState);
+            }
+
+            if (!animated && blockState.getRenderShape() != RenderShape.INVISIBLE) {
+                modelParts.clear();
+                randomSource.setSeed(blockState.getSeed(pos));
+                blockRenderDispatcher.getBlockModel(blockState).collectParts(level, pos, blockState, randomSource,
+                        modelParts);
+                animated = hasAnimatedSprites(modelParts);
+            }
+            animated |= blockState.hasBlockEntity();
+        }
+        // Fluid textures are always animated
+        animated |= !fluids.isEmpty();
+
+        return new BuiltMeshes(revision, bufferSource, Collections.unmodifiableSet(fluids), animated);
+    }
+
+    private static boolean hasAnimatedSprites(List<BlockModelPart> modelParts) {
+        for (var part : modelParts) {
+            for (var direction : DIRECTIONS) {
+                for (var quad : part.getQuads(direction)) {
+                    if (quad.sprite().contents().animatedTexture != null) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Uploads tessellated meshes into GPU buffers and releases the CPU-side buffers.
+     */
+    static CompiledSceneMeshes upload(GuidebookLevel level, BuiltMeshes builtMeshes) {
+        RenderSystem.assertOnRenderThread();
+
+        var layers = new ArrayList<CompiledLayer>();
+        try (builtMeshes) {
+            for (var mesh : builtMeshes.bufferSource.meshes) {
+                layers.add(upload(mesh.renderType(), mesh.meshData()));
+            }
+        }
+
+        return new CompiledSceneMeshes(level, builtMeshes.revision, layers, builtMeshes.fluids,
+                builtMeshes.animated);
+    }
+
+    private static CompiledLayer upload(RenderType renderType, MeshData meshData) {
+        var device = RenderSystem.getDevice();
+        var drawState = meshData.drawState();
+        var vertexBuffer = device.createBuffer(() -> "GuideME scene vertices " + renderType, BufferType.VERTICES,
+                BufferUsage.STATIC_WRITE, meshData.vertexBuffer());
+        GpuBuffer indexBuffer = null;
+        if (meshData.indexBuffer() != null) {
+            indexBuffer = device.createBuffer(() -> "GuideME scene indices " + renderType, BufferType.INDICES,
+                    BufferUsage.STATIC_WRITE, meshData.indexBuffer());
+        }
+        return new CompiledLayer(renderType, drawState.mode(), vertexBuffer, indexBuffer, drawState.indexType(),
+                drawState.indexCount());
+    }
+
+    /**
+     * @return True if the level changed since these meshes were compiled.
+     */
+    boolean isOutdated() {
+        return level.getRevision() != revision;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Fluids contained in the compiled meshes, whose sprites need to be kept animating.
+     */
+    Set<FluidState> getFluids() {
+        return fluids;
+    }
+
+    /**
+     * @return True if the level contains anything that changes its appearance over time without the level changing,
+     *         such as animated textures, fluids or block entities.
+     */
+    boolean isAnimated() {
+        return animated;
+    }
+
+    /**
+     * Draws all compiled layers using the current model-view and projection matrices.
+     */
+    void draw(long now) {
+        lastUsed = now;
+
+        for (var layer : layers) {
+            GpuBuffer indexBuffer;
+            VertexFormat.IndexType indexType;
+            if (layer.indexBuffer() != null) {
+                indexBuffer = layer.indexBuffer();
+                indexType = layer.indexType();
+            } else {
+                var sequentialBuffer = RenderSystem.getSequentialBuffer(layer.mode());
+                indexBuffer = sequentialBuffer.getBuffer(layer.indexCount());
+                indexType = sequentialBuffer.type();
+            }
+            drawIndexed(layer.renderType(), layer.vertexBuffer(), indexBuffer, indexType, layer.indexCount());
+        }
+    }
+
+    /**
+     * Draws geometry from GPU buffers into the main render target using the pipeline and render state of the given
+     * render type.
+     */
+    static void drawIndexed(RenderType renderType, GpuBuffer vertexBuffer, GpuBuffer indexBuffer,
+            VertexFormat.IndexType indexType, int indexCount) {
+        var renderTarget = Minecraft.getInstance().getMainRenderTarget();
+        renderType.setupRenderState();
+        try (var renderPass = RenderSystem.getDevice().createCommandEncoder().createRenderPass(
+                renderTarget.getColorTexture(),
+                OptionalInt.empty(),
+                renderTarget.useDepth ? renderTarget.getDepthTexture() : null,
+                OptionalDouble.empty())) {
+            renderPass.setPipeline(renderType.getRenderPipeline());
+            renderPass.setVertexBuffer(0, vertexBuffer);
+            // Same as RenderType#draw, otherwise scenes would draw outside of scissor rectangles
+            if (RenderSystem.SCISSOR_STATE.isEnabled()) {
+                renderPass.enableScissor(RenderSystem.SCISSOR_STATE);
+            }
+            for (int i = 0; i < 12; i++) {
+                var texture = RenderSystem.getShaderTexture(i);
+                if (texture != null) {
+                    renderPass.bindSampler("Sampler" + i, texture);
+                }
+            }
+            renderPass.setIndexBuffer(indexBuffer, indexType);
+            renderPass.drawIndexed(0, indexCount);
+        } finally {
+            renderType.clearRenderState();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (var layer : layers) {
+            layer.vertexBuffer().close();
+            if (layer.indexBuffer() != null) {
+                layer.indexBuffer().close();
+            }
+        }
+        layers.clear();
+    }
+
+    private record CompiledLayer(RenderType renderType,
+            VertexFormat.Mode mode,
+            GpuBuffer vertexBuffer,
+            @Nullable GpuBuffer indexBuffer,
+            VertexFormat.IndexType indexType,
+            int indexCount) {
+    }
+
+    /**
+     * Tessellated meshes that have not been uploaded yet. Must be closed if they are discarded without uploading.
+     */
+    static final class BuiltMeshes implements AutoCloseable {
+        private final int revision;
+        private final CapturingBufferSource bufferSource;
+        private final Set<FluidState> fluids;
+        private final boolean animated;
+
+        private BuiltMeshes(int revision, CapturingBufferSource bufferSource, Set<FluidState> fluids,
+                boolean animated) {
+            this.revision = revision;
+            this.bufferSource = bufferSource;
+            this.fluids = fluids;
+            this.animated = animated;
+        }
+
+        int getRevision() {
+            return revision;
+        }
+
+        @Override
+        public void close() {
+            bufferSource.close();
+        }
+    }
+
+    private record CapturedMesh(RenderType renderType, MeshData meshData) {
+    }
+
+    /**
+     * Captures the tessellated geometry per render type. The captured mesh data stays valid until this buffer source
+     * is closed.
+     */
+    private static class CapturingBufferSource extends MultiBufferSource.BufferSource implements AutoCloseable {
+        private final List<CapturedMesh> meshes = new ArrayList<>();
+
+        public CapturingBufferSource() {
+            super(new ByteBufferBuilder(786432), createLayerBuffers());
+        }
+
+        /**
+         * Use a separate buffer per block render layer, otherwise alternating between layers would split the geometry
+         * into many small meshes, and meshes would overwrite each other in the shared buffer.
+         */
+        private static SequencedMap<RenderType, ByteBufferBuilder> createLayerBuffers() {
+            var result = new Object2ObjectLinkedOpenHashMap<RenderType, ByteBufferBuilder>();
+            for (var layer : RenderType.chunkBufferLayers()) {
+                result.put(layer, new ByteBufferBuilder(layer.bufferSize()));
+            }
+            return result;
+        }
+
+        @Override
+        public void endBatch(RenderType renderType) {
+            var bufferBuilder = startedBuilders.remove(renderType);
+            if (bufferBuilder == null) {
+                return;
+            }
+
+            var meshData = bufferBuilder.build();
+            if (meshData != null) {
+                if (fixedBuffers.containsKey(renderType)) {
+                    meshes.add(new CapturedMesh(renderType, meshData));
+                } else {
+                    // Geometry in the shared buffer would be overwritten by the next batch, and compiled meshes
+                    // only cover the block render layers anyway.
+                    meshData.close();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            for (var mesh : meshes) {
+                mesh.meshData().close();
+            }
+            meshes.clear();
+            fixedBuffers.values().forEach(ByteBufferBuilder::close);
+            sharedBuffer.close();
+        }
+    }
+}
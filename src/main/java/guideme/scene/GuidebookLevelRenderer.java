@@ -1,5 +1,6 @@
 package guideme.scene;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mojang.blaze3d.ProjectionType;
 import com.mojang.blaze3d.platform.Lighting;
 import com.mojang.blaze3d.systems.RenderSystem;
@@ -11,6 +12,15 @@
 import guideme.scene.level.GuidebookLevel;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.FogParameters;
 import net.minecraft.client.renderer.ItemBlockRenderTypes;
@@ -32,15 +42,42 @@
 import net.minecraft.world.level.material.FluidState;
 import net.minecraft.world.phys.Vec3;
 import net.neoforged.neoforge.client.extensions.common.IClientFluidTypeExtensions;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
 import org.joml.Vector4f;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class GuidebookLevelRenderer {
+    private static final Logger LOG = LoggerFactory.getLogger(GuidebookLevelRenderer.class);
 
     private static GuidebookLevelRenderer instance;
 
+    /**
+     * Compiled meshes are freed if their level hasn't been rendered for this long.
+     */
+    private static final long COMPILED_MESH_RETENTION_MS = 5000;
+
     private final GuidebookLightmap lightmap = new GuidebookLightmap();
 
+    /**
+     * Tessellates scene meshes in the background, so that opening a page with large scenes doesn't stall the frame.
+     */
+    private static final ExecutorService meshBuildExecutor = Executors.newFixedThreadPool(2, new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("GuideMESceneMeshBuilder%d")
+            .build());
+
+    private final Map<GuidebookLevel, CompiledSceneMeshes> compiledMeshes = new IdentityHashMap<>();
+
+    private final Map<GuidebookLevel, PendingBuild> pendingBuilds = new IdentityHashMap<>();
+
+    /**
+     * Prebaked scene meshes that currently hold GPU buffers, which are freed the same way as compiled meshes.
+     */
+    private final Set<PrebakedSceneMeshes> uploadedPrebakedMeshes = Collections.newSetFromMap(
+            new IdentityHashMap<>());
+
     public static GuidebookLevelRenderer getInstance() {
         RenderSystem.assertOnRenderThread();
         if (instance == null) {
@@ -49,10 +86,38 @@ public static GuidebookLevelRenderer getInstance() {
         return instance;
     }
 
+    /**
+     * Frees the GPU buffers of all compiled and prebaked meshes, and drops all references to levels. Meshes are
+     * otherwise only freed while scenes are being drawn, so this should be called once no scenes are shown anymore.
+     */
+    public static void clear() {
+        RenderSystem.assertOnRenderThread();
+        if (instance != null) {
+            instance.freeMeshes();
+        }
+    }
+
     public void render(GuidebookLevel level,
             CameraSettings cameraSettings,
             Collection<InWorldAnnotation> annotations,
             LightDarkMode lightDarkMode) {
+        render(level, null, cameraSettings, annotations, lightDarkMode);
+    }
+
+    /**
+     * Renders the level of a scene along with any prebaked geometry of the scene.
+     */
+    public void render(GuidebookScene scene,
+            Collection<InWorldAnnotation> annotations,
+            LightDarkMode lightDarkMode) {
+        render(scene.getLevel(), scene.getPrebakedMeshes(), scene.getCameraSettings(), annotations, lightDarkMode);
+    }
+
+    private void render(GuidebookLevel level,
+            @Nullable PrebakedSceneMeshes prebakedMeshes,
+            CameraSettings cameraSettings,
+            Collection<InWorldAnnotation> annotations,
+            LightDarkMode lightDarkMode) {
         lightmap.update(level);
 
         level.onRenderFrame();
@@ -60,7 +125,7 @@ public void render(GuidebookLevel level,
         RenderSystem.setShaderGameTime(level.getGameTime(), level.getPartialTick());
 
         var buffers = Minecraft.getInstance().renderBuffers().bufferSource();
-        render(level, cameraSettings, buffers, annotations, lightDarkMode);
+        render(level, prebakedMeshes, cameraSettings, buffers, annotations, lightDarkMode);
         buffers.endBatch();
 
     }
@@ -70,12 +135,16 @@ public void render(GuidebookLevel level,
             MultiBufferSource.BufferSource buffers,
             Collection<InWorldAnnotation> annotations,
             LightDarkMode lightDarkMode) {
-        lightmap.update(level);
+        render(level, null, cameraSettings, buffers, annotations, lightDarkMode);
+    }
 
-        var lightEngine = level.getLightEngine();
-        while (lightEngine.hasLightWork()) {
-            lightEngine.runLightUpdates();
-        }
+    private void render(GuidebookLevel level,
+            @Nullable PrebakedSceneMeshes prebakedMeshes,
+            CameraSettings cameraSettings,
+            MultiBufferSource.BufferSource buffers,
+            Collection<InWorldAnnotation> annotations,
+            LightDarkMode lightDarkMode) {
+        lightmap.update(level);
 
         var projectionMatrix = cameraSettings.getProjectionMatrix();
         var viewMatrix = cameraSettings.getViewMatrix();
@@ -97,7 +166,7 @@ public void render(GuidebookLevel level,
 
         Lighting.setupLevel();
 
-        renderContent(level, buffers);
+        renderContent(level, prebakedMeshes, buffers, true);
 
         InWorldAnnotationRenderer.render(buffers, annotations, lightDarkMode);
 
@@ -108,11 +177,43 @@ public void render(GuidebookLevel level,
     }
 
     /**
-     * Render without any setup.
+     * Render without any setup. All geometry is rendered into the given buffers.
      */
     public void renderContent(GuidebookLevel level, MultiBufferSource.BufferSource buffers) {
+        renderContent(level, null, buffers, false);
+    }
+
+    /**
+     * Render the content of a scene, including its prebaked geometry, without any setup. All geometry is rendered
+     * into the given buffers.
+     */
+    public void renderContent(GuidebookScene scene, MultiBufferSource.BufferSource buffers) {
+        renderContent(scene.getLevel(), scene.getPrebakedMeshes(), buffers, false);
+    }
+
+    /**
+     * @param useCompiledMeshes If true, opaque and cutout block geometry is drawn from meshes that are compiled once
+     *                          per level revision, rather than being tessellated into the given buffers. Prebaked
+     *                          meshes are drawn straight from GPU buffers in that case.
+     */
+    private void renderContent(GuidebookLevel level, @Nullable PrebakedSceneMeshes prebakedMeshes,
+            MultiBufferSource.BufferSource buffers, boolean useCompiledMeshes) {
+        // Only does work if blocks changed since the lighting was last baked
+        level.bakeLighting();
+        level.updateExteriorVisibility();
+
         try (var fake = FakeRenderEnvironment.create(level)) {
-            renderBlocks(level, buffers, false);
+            if (useCompiledMeshes) {
+                drawCompiledBlocks(level);
+                if (prebakedMeshes != null) {
+                    drawPrebakedMeshes(prebakedMeshes, false);
+                }
+            } else {
+                renderBlocks(level, buffers, false);
+                if (prebakedMeshes != null) {
+                    prebakedMeshes.emit(buffers);
+                }
+            }
             renderBlockEntities(level, buffers, level.getPartialTick());
             renderEntities(level, buffers, level.getPartialTick());
 
@@ -143,9 +244,184 @@ public void renderContent(GuidebookLevel level, MultiBufferSource.BufferSource b
 
             renderBlocks(level, buffers, true);
             buffers.endBatch(RenderType.translucent());
+
+            if (useCompiledMeshes && prebakedMeshes != null) {
+                drawPrebakedMeshes(prebakedMeshes, true);
+            }
         }
     }
 
+    private void drawPrebakedMeshes(PrebakedSceneMeshes prebakedMeshes, boolean translucent) {
+        uploadedPrebakedMeshes.add(prebakedMeshes);
+        prebakedMeshes.draw(translucent, Util.getMillis());
+    }
+
+    /**
+     * Starts compiling the meshes of the given level in the background if they are missing or outdated.
+     *
+     * @return True if the level can be rendered without waiting for a mesh build to finish. Outdated meshes are
+     *         considered good enough while their replacement is being built.
+     */
+    public boolean prepareMeshes(GuidebookLevel level) {
+        var meshes = compiledMeshes.get(level);
+        if (meshes != null && !meshes.isOutdated()) {
+            return true;
+        }
+
+        var pendingBuild = getOrStartBuild(level);
+        return meshes != null || pendingBuild.future().isDone();
+    }
+
+    /**
+     * @return True if rendering the level again would produce a different image even if neither the level nor the
+     *         camera changed. This is the case for animated content and while the meshes of the level are still being
+     *         built.
+     */
+    public boolean isAnimated(GuidebookScene scene) {
+        var prebakedMeshes = scene.getPrebakedMeshes();
+        return isAnimated(scene.getLevel()) || prebakedMeshes != null && prebakedMeshes.isAnimated();
+    }
+
+    /**
+     * @see #isAnimated(GuidebookScene)
+     */
+    public boolean isAnimated(GuidebookLevel level) {
+        var meshes = compiledMeshes.get(level);
+        if (meshes == null || meshes.isOutdated()) {
+            return true;
+        }
+
+        return meshes.isAnimated() || level.getEntitiesForRendering().iterator().hasNext();
+    }
+
+    private void drawCompiledBlocks(GuidebookLevel level) {
+        var now = Util.getMillis();
+        evictUnusedMeshes(now);
+
+        var meshes = getCompiledMeshes(level);
+
+        for (var fluidState : meshes.getFluids()) {
+            markFluidSpritesActive(fluidState);
+        }
+        meshes.draw(now);
+    }
+
+    /**
+     * Returns the most recent compiled meshes for the level. If a background build has finished, its result replaces
+     * the current meshes. Outdated meshes are returned while a newer build is still running, and only if there are no
+     * meshes at all, this waits for the build to finish.
+     */
+    private CompiledSceneMeshes getCompiledMeshes(GuidebookLevel level) {
+        var meshes = compiledMeshes.get(level);
+        if (meshes != null && !meshes.isOutdated()) {
+            return meshes;
+        }
+
+        var pendingBuild = getOrStartBuild(level);
+        if (meshes != null && !pendingBuild.future().isDone()) {
+            return meshes;
+        }
+
+        pendingBuilds.remove(level);
+        CompiledSceneMeshes.BuiltMeshes builtMeshes;
+        try {
+            builtMeshes = pendingBuild.future().join();
+        } catch (CompletionException e) {
+            // Most likely the level was modified while it was being tessellated, retry on the render thread
+            LOG.debug("Failed to build scene meshes in the background, building them synchronously", e);
+            builtMeshes = CompiledSceneMeshes.build(level, buffers -> renderBlocks(level, buffers, false));
+        }
+
+        if (meshes != null) {
+            meshes.close();
+        }
+        meshes = CompiledSceneMeshes.upload(level, builtMeshes);
+        compiledMeshes.put(level, meshes);
+        return meshes;
+    }
+
+    private PendingBuild getOrStartBuild(GuidebookLevel level) {
+        var pendingBuild = pendingBuilds.get(level);
+        if (pendingBuild != null && pendingBuild.revision() == level.getRevision()) {
+            return pendingBuild;
+        }
+        if (pendingBuild != null) {
+            discard(pendingBuild);
+        }
+
+        // Everything the worker needs from the level that isn't plain block state has to be captured here
+        level.bakeLighting();
+        level.updateExteriorVisibility();
+        level.snapshotModelData();
+        level.beginBackgroundRead();
+
+        var future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return CompiledSceneMeshes.build(level, buffers -> renderBlocks(level, buffers, false));
+            } finally {
+                level.endBackgroundRead();
+            }
+        }, meshBuildExecutor);
+        pendingBuild = new PendingBuild(level.getRevision(), Util.getMillis(), future);
+        pendingBuilds.put(level, pendingBuild);
+        return pendingBuild;
+    }
+
+    private static void discard(PendingBuild pendingBuild) {
+        pendingBuild.future().thenAccept(CompiledSceneMeshes.BuiltMeshes::close);
+    }
+
+    private void evictUnusedMeshes(long now) {
+        var it = compiledMeshes.values().iterator();
+        while (it.hasNext()) {
+            var meshes = it.next();
+            if (now - meshes.getLastUsed() > COMPILED_MESH_RETENTION_MS) {
+                meshes.close();
+                it.remove();
+            }
+        }
+
+        var prebakedIt = uploadedPrebakedMeshes.iterator();
+        while (prebakedIt.hasNext()) {
+            var prebakedMeshes = prebakedIt.next();
+            if (now - prebakedMeshes.getLastUsed() > COMPILED_MESH_RETENTION_MS) {
+                prebakedMeshes.releaseGpuBuffers();
+                prebakedIt.remove();
+            }
+        }
+
+        var pendingIt = pendingBuilds.values().iterator();
+        while (pendingIt.hasNext()) {
+            var pendingBuild = pendingIt.next();
+            // Builds that are still running are kept, otherwise large scenes might never finish building
+            if (pendingBuild.future().isDone() && now - pendingBuild.requested() > COMPILED_MESH_RETENTION_MS) {
+                discard(pendingBuild);
+                pendingIt.remove();
+            }
+        }
+    }
+
+    private void freeMeshes() {
+        for (var meshes : compiledMeshes.values()) {
+            meshes.close();
+        }
+        compiledMeshes.clear();
+
+        for (var prebakedMeshes : uploadedPrebakedMeshes) {
+            prebakedMeshes.releaseGpuBuffers();
+        }
+        uploadedPrebakedMeshes.clear();
+
+        // Builds that are still running close their result once they finish
+        for (var pendingBuild : pendingBuilds.values()) {
+            discard(pendingBuild);
+        }
+        pendingBuilds.clear();
+    }
+
+    /**
+     * @param translucent If true, only geometry with blending is rendered, otherwise only geometry without.
+     */
     private void renderBlocks(GuidebookLevel level, MultiBufferSource buffers, boolean translucent) {
         var blockRenderDispatcher = Minecraft.getInstance().getBlockRenderer();
         var poseStack = new PoseStack();
@@ -156,18 +432,25 @@ private void renderBlocks(GuidebookLevel level, MultiBufferSource buffers, boole
         var it = level.getFilledBlocks().iterator();
         while (it.hasNext()) {
             var pos = it.next();
+            // Faces between two solid blocks are culled by renderBatched, but enclosed blocks can be skipped entirely
+            if (!level.isVisibleFromOutside(pos)) {
+                continue;
+            }
+
             var blockState = level.getBlockState(pos);
             var fluidState = blockState.getFluidState();
             if (!fluidState.isEmpty()) {
                 var renderType = ItemBlockRenderTypes.getRenderLayer(fluidState);
-                if (renderType != RenderType.translucent() || translucent) {
+                if ((renderType == RenderType.translucent()) == translucent) {
                     var bufferBuilder = buffers.getBuffer(renderType);
 
                     var sectionPos = SectionPos.of(pos);
                     var liquidVertexConsumer = new LiquidVertexConsumer(bufferBuilder, sectionPos);
                     blockRenderDispatcher.renderLiquid(pos, level, liquidVertexConsumer, blockState, fluidState);
 
-                    markFluidSpritesActive(fluidState);
+                    if (RenderSystem.isOnRenderThread()) {
+                        markFluidSpritesActive(fluidState);
+                    }
                 }
             }
 
@@ -180,10 +463,11 @@ private void renderBlocks(GuidebookLevel level, MultiBufferSource buffers, boole
             modelParts.clear();
             randomSource.setSeed(blockState.getSeed(pos));
             model.collectParts(level, pos, blockState, randomSource, modelParts);
-            if (!translucent) {
-                modelParts.removeIf(part -> {
-                    return part.getRenderType(blockState).getRenderPipeline().getBlendFunction().isPresent();
-                });
+            modelParts.removeIf(part -> {
+                return part.getRenderType(blockState).getRenderPipeline().getBlendFunction().isPresent() != translucent;
+            });
+            if (modelParts.isEmpty()) {
+                continue;
             }
 
             poseStack.pushPose();
@@ -200,6 +484,10 @@ private void renderBlockEntities(GuidebookLevel level, MultiBufferSource buffers
         var it = level.getFilledBlocks().iterator();
         while (it.hasNext()) {
             var pos = it.next();
+            if (!level.isVisibleFromOutside(pos)) {
+                continue;
+            }
+
             var blockState = level.getBlockState(pos);
             if (blockState.hasBlockEntity()) {
                 var blockEntity = level.getBlockEntity(pos);
@@ -279,4 +567,8 @@ private static <E extends Entity, S extends EntityRenderState> void renderEntity
         renderer.render(state, poseStack, buffers, packedLight);
         poseStack.popPose();
     }
+
+    private record PendingBuild(int revision, long requested,
+            CompletableFuture<CompiledSceneMeshes.BuiltMeshes> future) {
+    }
 }
@@ -6,6 +6,7 @@
 import guideme.scene.annotation.OverlayAnnotation;
 import guideme.scene.annotation.SceneAnnotation;
 import guideme.scene.level.GuidebookLevel;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -39,6 +40,18 @@ public class GuidebookScene {
     private final List<InWorldAnnotation> inWorldAnnotations = new ArrayList<>();
     private final List<OverlayAnnotation> overlayAnnotations = new ArrayList<>();
 
+    // Incremented whenever annotations are added or removed
+    private int annotationsVersion;
+
+    // Indices to speed up picking, rebuilt lazily after annotations change
+    @Nullable
+    private InWorldAnnotationIndex inWorldAnnotationIndex;
+    @Nullable
+    private OverlayAnnotationIndex overlayAnnotationIndex;
+
+    @Nullable
+    private PrebakedSceneMeshes prebakedMeshes;
+
     private int width;
     private int height;
 
@@ -126,6 +139,24 @@ private Bounds getBounds(Matrix4f viewMatrix) {
             }
         }
 
+        if (prebakedMeshes != null) {
+            var prebakedMin = prebakedMeshes.getMin();
+            var prebakedMax = prebakedMeshes.getMax();
+            for (var xCorner = 0; xCorner <= 1; xCorner++) {
+                for (var yCorner = 0; yCorner <= 1; yCorner++) {
+                    for (var zCorner = 0; zCorner <= 1; zCorner++) {
+                        viewMatrix.transformPosition(
+                                xCorner == 0 ? prebakedMin.x : prebakedMax.x,
+                                yCorner == 0 ? prebakedMin.y : prebakedMax.y,
+                                zCorner == 0 ? prebakedMin.z : prebakedMax.z,
+                                tmpPos);
+                        min.min(tmpPos);
+                        max.max(tmpPos);
+                    }
+                }
+            }
+        }
+
         if (!min.isFinite() || !max.isFinite()) {
             return new Bounds(new Vector3f(), new Vector3f());
         }
@@ -198,8 +229,16 @@ public SceneAnnotation pickAnnotation(LytPoint point, LytRect viewport,
     public OverlayAnnotation pickOverlayAnnotation(LytPoint point,
             LytRect viewport,
             Predicate<? super OverlayAnnotation> predicate) {
-        for (int i = overlayAnnotations.size() - 1; i >= 0; i--) {
-            var annotation = overlayAnnotations.get(i);
+        var key = new OverlayAnnotationIndex.Key(viewport, cameraSettings.getViewMatrix(),
+                cameraSettings.getProjectionMatrix());
+        if (overlayAnnotationIndex == null || !overlayAnnotationIndex.isValidFor(key, annotationsVersion)) {
+            overlayAnnotationIndex = new OverlayAnnotationIndex(key, annotationsVersion, this, overlayAnnotations);
+        }
+
+        var candidates = new IntArrayList();
+        overlayAnnotationIndex.findCandidates(point, candidates);
+        for (int i = 0; i < candidates.size(); i++) {
+            var annotation = overlayAnnotations.get(candidates.getInt(i));
             if (!predicate.test(annotation)) {
                 continue;
             }
@@ -216,29 +255,39 @@ public OverlayAnnotation pickOverlayAnnotation(LytPoint point,
     public InWorldAnnotation pickInWorldAnnotation(float screenX,
             float screenY,
             Predicate<? super InWorldAnnotation> predicate) {
-        // Check overlay annotations first
-
         var rayOrigin = new Vector3f();
         var rayDir = new Vector3f();
         buildPickRay(screenX, screenY, rayOrigin, rayDir);
 
+        if (inWorldAnnotationIndex == null || inWorldAnnotationIndex.getAnnotationsVersion() != annotationsVersion) {
+            inWorldAnnotationIndex = new InWorldAnnotationIndex(annotationsVersion, inWorldAnnotations);
+        }
+
+        // Only annotations whose bounds are hit by the ray have to be tested
+        var candidates = new IntArrayList();
+        inWorldAnnotationIndex.findCandidates(rayOrigin, rayDir, candidates);
+
         float pickDistance = Float.POSITIVE_INFINITY;
-        InWorldAnnotation pickedBox = null;
-        for (var highlight : inWorldAnnotations) {
+        int pickedIndex = -1;
+        for (int i = 0; i < candidates.size(); i++) {
+            var index = candidates.getInt(i);
+            var highlight = inWorldAnnotations.get(index);
             if (!predicate.test(highlight)) {
                 continue;
             }
 
             var intersectionDist = highlight.intersect(rayOrigin, rayDir);
             if (intersectionDist.isPresent()) {
-                if (intersectionDist.getAsDouble() < pickDistance) {
-                    pickDistance = (float) intersectionDist.getAsDouble();
-                    pickedBox = highlight;
+                var distance = (float) intersectionDist.getAsDouble();
+                // Candidates are not ordered, prefer the annotation added first if the distance is the same
+                if (distance < pickDistance || distance == pickDistance && index < pickedIndex) {
+                    pickDistance = distance;
+                    pickedIndex = index;
                 }
             }
         }
 
-        return pickedBox;
+        return pickedIndex != -1 ? inWorldAnnotations.get(pickedIndex) : null;
     }
 
     public BlockHitResult pickBlock(LytPoint point, LytRect viewport) {
@@ -268,6 +317,11 @@ public BlockHitResult pickBlock(LytPoint point, LytRect viewport) {
         var blockClipContext = ClipContext.Block.OUTLINE;
         var fluidClipContext = ClipContext.Fluid.ANY;
         return BlockGetter.traverseBlocks(fromVec3, toVec3, null, (ignored, blockPos) -> {
+            // Skip through empty space without computing any shapes
+            if (!level.isFilledBlock(blockPos)) {
+                return null;
+            }
+
             BlockState blockState = level.getBlockState(blockPos);
             FluidState fluidState = level.getFluidState(blockPos);
 
@@ -293,37 +347,34 @@ public Stream<BlockPos> getFilledBlocks() {
     }
 
     public Vector3fc getWorldCenter() {
-        // This is doing more work than needed since touching blocks create unneeded corners
-        var min = new Vector3f(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
-        var max = new Vector3f(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
-        level.getFilledBlocks().forEach(pos -> {
-            var tmp = new Vector3f();
-            for (var xCorner = 0; xCorner <= 1; xCorner++) {
-                for (var yCorner = 0; yCorner <= 1; yCorner++) {
-                    for (var zCorner = 0; zCorner <= 1; zCorner++) {
-                        tmp.set(pos.getX(), pos.getY(), pos.getZ());
-                        min.min(tmp);
-                        max.max(tmp);
+        if (prebakedMeshes == null) {
+            return level.getCenter();
+        }
 
-                        tmp.add(1, 1, 1);
-                        min.min(tmp);
-                        max.max(tmp);
-                    }
-                }
-            }
-        });
-        var tmp = new Vector3f();
-        for (var entity : level.getEntitiesForRendering()) {
-            var bounds = entity.getBoundingBox();
-            tmp.set(bounds.minX, bounds.minY, bounds.minZ);
-            min.min(tmp);
-            tmp.set(bounds.maxX, bounds.maxY, bounds.maxZ);
-            max.max(tmp);
+        var min = prebakedMeshes.getMin();
+        var max = prebakedMeshes.getMax();
+        var levelBounds = level.getBounds();
+        if (!levelBounds.min().equals(levelBounds.max())) {
+            min.set(Math.min(min.x, levelBounds.min().getX()),
+                    Math.min(min.y, levelBounds.min().getY()),
+                    Math.min(min.z, levelBounds.min().getZ()));
+            max.set(Math.max(max.x, levelBounds.max().getX()),
+                    Math.max(max.y, levelBounds.max().getY()),
+                    Math.max(max.z, levelBounds.max().getZ()));
         }
-        var avg = new Vector3f(min);
-        avg.add(max);
-        avg.div(2);
-        return avg;
+        return min.add(max).div(2);
+    }
+
+    /**
+     * Prebaked geometry that is shown in addition to the content of the level.
+     */
+    @Nullable
+    PrebakedSceneMeshes getPrebakedMeshes() {
+        return prebakedMeshes;
+    }
+
+    void setPrebakedMeshes(@Nullable PrebakedSceneMeshes prebakedMeshes) {
+        this.prebakedMeshes = prebakedMeshes;
     }
 
     public GuidebookLevel getLevel() {
@@ -341,6 +392,7 @@ public CameraSettings getCameraSettings() {
     public void clearAnnotations() {
         inWorldAnnotations.clear();
         overlayAnnotations.clear();
+        annotationsChanged();
     }
 
     public void addAnnotation(SceneAnnotation annotation) {
@@ -350,6 +402,7 @@ public void addAnnotation(SceneAnnotation annotation) {
         if (annotation instanceof OverlayAnnotation overlayAnnotation) {
             overlayAnnotations.add(overlayAnnotation);
         }
+        annotationsChanged();
     }
 
     public void removeAnnotation(SceneAnnotation annotation) {
@@ -359,8 +412,26 @@ public void removeAnnotation(SceneAnnotation annotation) {
         if (annotation instanceof OverlayAnnotation) {
             overlayAnnotations.remove(annotation);
         }
+        annotationsChanged();
+    }
+
+    private void annotationsChanged() {
+        annotationsVersion++;
+        inWorldAnnotationIndex = null;
+        overlayAnnotationIndex = null;
     }
 
+    /**
+     * @return A number that changes whenever annotations are added to or removed from this scene.
+     */
+    public int getAnnotationsVersion() {
+        return annotationsVersion;
+    }
+
+    /**
+     * Use {@link #addAnnotation} and {@link #removeAnnotation} to change annotations, since the picking indices are
+     * only rebuilt when the {@linkplain #getAnnotationsVersion() annotations version} changes.
+     */
     public Collection<InWorldAnnotation> getInWorldAnnotations() {
         return inWorldAnnotations;
     }
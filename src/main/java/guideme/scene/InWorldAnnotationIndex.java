@@ -0,0 +1,172 @@
+package guideme.scene;
+
+import guideme.scene.annotation.InWorldAnnotation;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import java.util.List;
+import org.joml.Intersectionf;
+import org.joml.Vector3f;
+
+/**
+ * A bounding volume hierarchy over the {@linkplain InWorldAnnotation#getWorldBounds() world bounds} of in-world
+ * annotations. Picking only has to test the annotations whose bounds are hit by the pick ray.
+ */
+final class InWorldAnnotationIndex {
+    private static final int MAX_LEAF_SIZE = 4;
+
+    private final int annotationsVersion;
+    /**
+     * Annotation indices, ordered such that each leaf references a contiguous range.
+     */
+    private final int[] items;
+    /**
+     * Annotations without world bounds, which are always candidates.
+     */
+    private final int[] unbounded;
+
+    // Per annotation bounds, indexed by annotation index
+    private final float[] itemBounds;
+
+    // Nodes in depth-first order. Inner nodes have their first child at index + 1.
+    private final float[] nodeBounds;
+    private final int[] nodeSecondChild;
+    private final int[] nodeStart;
+    private final int[] nodeCount;
+    private int nodeCountUsed;
+
+    InWorldAnnotationIndex(int annotationsVersion, List<InWorldAnnotation> annotations) {
+        this.annotationsVersion = annotationsVersion;
+        var annotationCount = annotations.size();
+        itemBounds = new float[annotationCount * 6];
+
+        var bounded = new IntArrayList(annotationCount);
+        var unboundedList = new IntArrayList();
+        for (int i = 0; i < annotationCount; i++) {
+            var bounds = annotations.get(i).getWorldBounds();
+            if (bounds == null) {
+                unboundedList.add(i);
+                continue;
+            }
+            itemBounds[i * 6] = (float) bounds.minX;
+            itemBounds[i * 6 + 1] = (float) bounds.minY;
+            itemBounds[i * 6 + 2] = (float) bounds.minZ;
+            itemBounds[i * 6 + 3] = (float) bounds.maxX;
+            itemBounds[i * 6 + 4] = (float) bounds.maxY;
+            itemBounds[i * 6 + 5] = (float) bounds.maxZ;
+            bounded.add(i);
+        }
+        items = bounded.toIntArray();
+        unbounded = unboundedList.toIntArray();
+
+        // A binary tree with leaves of at least one item has less than 2n nodes
+        var maxNodes = Math.max(1, 2 * items.length);
+        nodeBounds = new float[maxNodes * 6];
+        nodeSecondChild = new int[maxNodes];
+        nodeStart = new int[maxNodes];
+        nodeCount = new int[maxNodes];
+        if (items.length > 0) {
+            build(0, items.length);
+        }
+    }
+
+    /**
+     * @return The {@linkplain GuidebookScene#getAnnotationsVersion() annotations version} this index was built for.
+     */
+    int getAnnotationsVersion() {
+        return annotationsVersion;
+    }
+
+    /**
+     * Collects the indices of all annotations whose bounds are hit by the given ray, or which have no bounds.
+     */
+    void findCandidates(Vector3f rayOrigin, Vector3f rayDir, IntArrayList result) {
+        result.clear();
+        result.addElements(0, unbounded);
+        if (nodeCountUsed == 0) {
+            return;
+        }
+
+        var stack = new IntArrayList();
+        stack.add(0);
+        while (!stack.isEmpty()) {
+            var node = stack.popInt();
+            if (!intersects(nodeBounds, node, rayOrigin, rayDir)) {
+                continue;
+            }
+
+            if (nodeCount[node] > 0) {
+                for (int i = nodeStart[node]; i < nodeStart[node] + nodeCount[node]; i++) {
+                    var item = items[i];
+                    if (intersects(itemBounds, item, rayOrigin, rayDir)) {
+                        result.add(item);
+                    }
+                }
+            } else {
+                stack.add(nodeSecondChild[node]);
+                stack.add(node + 1);
+            }
+        }
+    }
+
+    private int build(int start, int end) {
+        var node = nodeCountUsed++;
+
+        // Compute the bounds of the node and of the item centers
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        float cMinX = Float.POSITIVE_INFINITY, cMinY = Float.POSITIVE_INFINITY, cMinZ = Float.POSITIVE_INFINITY;
+        float cMaxX = Float.NEGATIVE_INFINITY, cMaxY = Float.NEGATIVE_INFINITY, cMaxZ = Float.NEGATIVE_INFINITY;
+        for (int i = start; i < end; i++) {
+            var offset = items[i] * 6;
+            minX = Math.min(minX, itemBounds[offset]);
+            minY = Math.min(minY, itemBounds[offset + 1]);
+            minZ = Math.min(minZ, itemBounds[offset + 2]);
+            maxX = Math.max(maxX, itemBounds[offset + 3]);
+            maxY = Math.max(maxY, itemBounds[offset + 4]);
+            maxZ = Math.max(maxZ, itemBounds[offset + 5]);
+            cMinX = Math.min(cMinX, center(items[i], 0));
+            cMinY = Math.min(cMinY, center(items[i], 1));
+            cMinZ = Math.min(cMinZ, center(items[i], 2));
+            cMaxX = Math.max(cMaxX, center(items[i], 0));
+            cMaxY = Math.max(cMaxY, center(items[i], 1));
+            cMaxZ = Math.max(cMaxZ, center(items[i], 2));
+        }
+        nodeBounds[node * 6] = minX;
+        nodeBounds[node * 6 + 1] = minY;
+        nodeBounds[node * 6 + 2] = minZ;
+        nodeBounds[node * 6 + 3] = maxX;
+        nodeBounds[node * 6 + 4] = maxY;
+        nodeBounds[node * 6 + 5] = maxZ;
+
+        if (end - start <= MAX_LEAF_SIZE) {
+            nodeStart[node] = start;
+            nodeCount[node] = end - start;
+            return node;
+        }
+
+        // Split at the median along the axis in which the item centers are spread the most
+        var extentX = cMaxX - cMinX;
+        var extentY = cMaxY - cMinY;
+        var extentZ = cMaxZ - cMinZ;
+        int axis = extentX >= extentY && extentX >= extentZ ? 0 : (extentY >= extentZ ? 1 : 2);
+        IntArrays.quickSort(items, start, end, (a, b) -> Float.compare(center(a, axis), center(b, axis)));
+
+        var mid = (start + end) >>> 1;
+        build(start, mid);
+        nodeSecondChild[node] = build(mid, end);
+        return node;
+    }
+
+    private float center(int item, int axis) {
+        return (itemBounds[item * 6 + axis] + itemBounds[item * 6 + 3 + axis]) * 0.5f;
+    }
+
+    private static boolean intersects(float[] bounds, int index, Vector3f rayOrigin, Vector3f rayDir) {
+        var offset = index * 6;
+        return Intersectionf.testRayAab(
+                rayOrigin.x, rayOrigin.y, rayOrigin.z,
+                rayDir.x, rayDir.y, rayDir.z,
+                bounds[offset], bounds[offset + 1], bounds[offset + 2],
+                bounds[offset + 3], bounds[offset + 4], bounds[offset + 5]);
+    }
+}
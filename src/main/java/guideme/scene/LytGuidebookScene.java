@@ -1,13 +1,12 @@
 package guideme.scene;
 
 import com.mojang.blaze3d.ProjectionType;
-import com.mojang.blaze3d.pipeline.TextureTarget;
 import com.mojang.blaze3d.systems.RenderSystem;
-import com.mojang.blaze3d.textures.GpuTexture;
 import guideme.color.ColorValue;
 import guideme.color.ConstantColor;
 import guideme.color.LightDarkMode;
 import guideme.color.SymbolicColor;
+import guideme.document.DefaultStyles;
 import guideme.document.LytPoint;
 import guideme.document.LytRect;
 import guideme.document.LytSize;
@@ -15,14 +14,16 @@
 import guideme.document.block.LytBox;
 import guideme.document.block.LytVBox;
 import guideme.document.block.LytVisitor;
+import guideme.document.flow.LytFlowContent;
 import guideme.document.interaction.ContentTooltip;
 import guideme.document.interaction.GuideTooltip;
 import guideme.document.interaction.InteractiveElement;
 import guideme.document.interaction.LytWidget;
 import guideme.extensions.ExtensionCollection;
 import guideme.hooks.RenderToTextureHooks;
-import guideme.internal.GuideME;
 import guideme.internal.GuideMEClient;
+import guideme.internal.scene.SceneRenderScheduler;
+import guideme.internal.scene.SceneRenderTargetPool;
 import guideme.internal.screen.GuideIconButton;
 import guideme.internal.siteexport.OffScreenRenderer;
 import guideme.layout.LayoutContext;
@@ -30,24 +31,36 @@
 import guideme.scene.annotation.InWorldAnnotation;
 import guideme.scene.annotation.InWorldBoxAnnotation;
 import guideme.scene.annotation.SceneAnnotation;
+import guideme.style.ResolvedTextStyle;
+import guideme.style.TextStyle;
 import guideme.ui.GuideUiHost;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
+import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.MultiBufferSource;
-import net.minecraft.client.renderer.texture.AbstractTexture;
-import net.minecraft.client.renderer.texture.TextureManager;
 import net.minecraft.network.chat.Component;
 import net.minecraft.util.Mth;
 import net.minecraft.world.phys.HitResult;
 import org.jetbrains.annotations.Nullable;
+import org.joml.Matrix4f;
 import org.joml.Vector2i;
 
 /**
  * Shows a pseudo-in-world scene within the guidebook.
  */
 public class LytGuidebookScene extends LytBox {
+    /**
+     * Resolution of scenes relative to their physical screen size while they're moving.
+     */
+    private static final float MOTION_RESOLUTION_SCALE = 0.5f;
+
+    /**
+     * Scenes are rendered at full resolution again once they haven't moved for this long.
+     */
+    private static final long MOTION_SETTLE_MS = 150;
+
     @Nullable
     private GuidebookScene scene;
     private boolean interactive;
@@ -114,6 +127,7 @@ public GuidebookScene getScene() {
     public void setScene(@Nullable GuidebookScene scene) {
         this.scene = scene;
         viewport.setHoveredAnnotation(null);
+        viewport.releaseRetainedImage();
         if (scene != null) {
             initialCameraSettings = scene.getCameraSettings().save();
         } else {
@@ -121,6 +135,7 @@ public void setScene(@Nullable GuidebookScene scene) {
         }
 
         updateToolbar();
+        invalidateLayout();
     }
 
     private void updateToolbar() {
@@ -193,6 +208,7 @@ public boolean isFullWidth() {
 
     public void setFullWidth(boolean fullWidth) {
         this.fullWidth = fullWidth;
+        invalidateLayout();
     }
 
     public LytSize getPreferredSize() {
@@ -219,7 +235,7 @@ public byte[] exportAsPng(float scale, boolean hideAnnotations) {
                 scene.getCameraSettings().setViewportSize(prefSize);
                 var annotations = hideAnnotations ? Collections.<InWorldAnnotation>emptyList()
                         : scene.getInWorldAnnotations();
-                renderer.render(scene.getLevel(), scene.getCameraSettings(), annotations, LightDarkMode.LIGHT_MODE);
+                renderer.render(scene, annotations, LightDarkMode.LIGHT_MODE);
             });
         }
     }
@@ -276,6 +292,27 @@ class Viewport extends LytBlock implements InteractiveElement {
         private float initialTransX;
         private float initialTransY;
 
+        // The last rendered image of the scene, which is reused until the render state changes
+        @Nullable
+        private SceneRenderTargetPool.PooledRenderTarget retainedTarget;
+        @Nullable
+        private RenderState renderedState;
+        private int renderedWidth;
+        private int renderedHeight;
+        private boolean renderedAtReducedResolution;
+        // State of the previous frame, used to detect scrolling and camera movement
+        @Nullable
+        private RenderState previousFrameState;
+        private int previousScreenX;
+        private int previousScreenY;
+        private long lastMotion;
+        // Animated scenes are rendered every frame, even if the render state didn't change
+        private boolean animated;
+        private final SceneRenderCounter renderCounter = new SceneRenderCounter();
+        private final SceneRenderScheduler.Ticket renderTicket = new SceneRenderScheduler.Ticket();
+        // Hovered scenes are always re-rendered when needed, regardless of the render budget
+        private boolean mouseOver;
+
         @Override
         protected LytRect computeLayout(LayoutContext context, int x, int y, int availableWidth) {
             return bounds;
@@ -305,17 +342,103 @@ public void render(RenderContext context) {
             var viewport = bounds.transform(context.poseStack().last().pose());
             var textureWidth = (int) (viewport.width() * window.getGuiScale());
             var textureHeight = (int) (viewport.height() * window.getGuiScale());
+
+            var renderer = GuidebookLevelRenderer.getInstance();
+            var renderState = new RenderState(
+                    scene.getCameraSettings().getViewMatrix(),
+                    scene.getCameraSettings().getProjectionMatrix(),
+                    textureWidth,
+                    textureHeight,
+                    scene.getLevel().getRevision(),
+                    scene.getAnnotationsVersion(),
+                    hoveredAnnotation,
+                    hideAnnotations,
+                    context.lightDarkMode(),
+                    GuideMEClient.instance().isShowDebugGuiOverlays());
+
+            if (retainedTarget != null && retainedTarget.isDestroyed()) {
+                releaseRetainedImage();
+            }
+
+            // Scenes are rendered at a reduced resolution while they're scrolled or rotated
+            var now = Util.getMillis();
+            if (previousFrameState != null && (viewport.x() != previousScreenX || viewport.y() != previousScreenY
+                    || !renderState.viewMatrix().equals(previousFrameState.viewMatrix()))) {
+                lastMotion = now;
+            }
+            previousFrameState = renderState;
+            previousScreenX = viewport.x();
+            previousScreenY = viewport.y();
+            var inMotion = now - lastMotion < MOTION_SETTLE_MS;
+
+            if (retainedTarget == null || animated || !renderState.equals(renderedState)
+                    || renderedAtReducedResolution && !inMotion) {
+                // Keep showing the previous image (or only the background) until the scene meshes have been built,
+                // or until it's this scene's turn to render again
+                var priority = mouseOver || pointDown != null;
+                if (renderer.prepareMeshes(scene.getLevel())
+                        && SceneRenderScheduler.tryBeginRender(renderTicket, priority)) {
+                    var renderStart = System.nanoTime();
+
+                    var renderWidth = textureWidth;
+                    var renderHeight = textureHeight;
+                    if (inMotion) {
+                        renderWidth = Math.max(1, (int) (textureWidth * MOTION_RESOLUTION_SCALE));
+                        renderHeight = Math.max(1, (int) (textureHeight * MOTION_RESOLUTION_SCALE));
+                    }
+
+                    // Let the pool pick a matching target if the size changed
+                    if (retainedTarget != null
+                            && (renderedWidth != renderWidth || renderedHeight != renderHeight)) {
+                        releaseRetainedImage();
+                    }
+                    if (retainedTarget == null) {
+                        retainedTarget = SceneRenderTargetPool.acquire(renderWidth, renderHeight, inMotion);
+                    }
+                    renderScene(context, retainedTarget);
+                    renderedState = renderState;
+                    renderedWidth = renderWidth;
+                    renderedHeight = renderHeight;
+                    renderedAtReducedResolution = inMotion;
+                    animated = renderer.isAnimated(scene);
+                    renderCounter.countRender();
+                    SceneRenderScheduler.endRender(System.nanoTime() - renderStart);
+                } else if (retainedTarget == null) {
+                    return;
+                }
+            }
+            retainedTarget.touch();
+
+            // We need to flip Y, and only the rendered part of the pooled target must be drawn
+            context.fillTexturedRect(bounds, retainedTarget.getTextureId(), ConstantColor.WHITE,
+                    ConstantColor.WHITE, ConstantColor.WHITE, ConstantColor.WHITE,
+                    0, retainedTarget.getMaxV(), retainedTarget.getMaxU(), 0);
+
+            // Overlay annotations are cheap to draw and follow the hovered state, so they're not retained
+            if (!hideAnnotations) {
+                context.pushScissor(bounds);
+                renderOverlayAnnotations(scene, context);
+                context.popScissor();
+            }
+
+            if (GuideMEClient.instance().isShowDebugGuiOverlays()) {
+                renderCounter.render(context, bounds);
+            }
+        }
+
+        private void renderScene(RenderContext context, SceneRenderTargetPool.PooledRenderTarget pooledTarget) {
             context.pushScissor(bounds); // We'll actually sacrifice this
             RenderSystem.disableScissor();
 
-            boolean withStencil = Minecraft.getInstance().getMainRenderTarget().useStencil;
-            var renderTarget = new TextureTarget("GuideScene RTT", textureWidth, textureHeight, true, withStencil);
+            var renderTarget = pooledTarget.getRenderTarget();
             try {
                 RenderSystem.getDevice().createCommandEncoder().clearColorAndDepthTextures(
                         renderTarget.getColorTexture(), 0,
                         renderTarget.getDepthTexture(), 1.0);
 
                 RenderToTextureHooks.targetOverride = renderTarget;
+                RenderToTextureHooks.viewportWidth = pooledTarget.getWidth();
+                RenderToTextureHooks.viewportHeight = pooledTarget.getHeight();
 
                 var renderer = GuidebookLevelRenderer.getInstance();
 
@@ -331,36 +454,28 @@ public void render(RenderContext context) {
                 } else {
                     inWorldAnnotations = scene.getInWorldAnnotations();
                 }
-                renderer.render(scene.getLevel(), scene.getCameraSettings(), inWorldAnnotations,
-                        context.lightDarkMode());
+                renderer.render(scene, inWorldAnnotations, context.lightDarkMode());
 
                 renderDebugCrosshairs();
-
-                if (!hideAnnotations) {
-                    renderOverlayAnnotations(scene, context);
-                }
-
+            } finally {
                 RenderToTextureHooks.targetOverride = null;
+                RenderToTextureHooks.viewportWidth = 0;
+                RenderToTextureHooks.viewportHeight = 0;
                 context.popScissor(); // Our manually reset scissor will now be dropped back to the last valid one
+            }
+        }
 
-                // We need to wrap the texture to be able to use it via a resource location
-                var t = new ExternalTexture(renderTarget.getColorTexture());
-                var offScreenId = GuideME.makeId("scene_off_screen_surface");
-                TextureManager textureManager = Minecraft.getInstance().getTextureManager();
-                textureManager.register(offScreenId, t);
-                try {
-                    // We need to flip Y
-                    context.fillTexturedRect(bounds, offScreenId, ConstantColor.WHITE, ConstantColor.WHITE,
-                            ConstantColor.WHITE, ConstantColor.WHITE, 0, 1, 1, 0);
-                } finally {
-                    textureManager.release(offScreenId);
+        /**
+         * Drops the retained image of the scene, which causes it to be rendered again on the next frame.
+         */
+        private void releaseRetainedImage() {
+            if (retainedTarget != null) {
+                if (!retainedTarget.isDestroyed()) {
+                    SceneRenderTargetPool.release(retainedTarget);
                 }
-
-            } finally {
-                RenderToTextureHooks.targetOverride = null;
-                renderTarget.destroyBuffers();
+                retainedTarget = null;
             }
-
+            renderedState = null;
         }
 
         /**
@@ -393,16 +508,12 @@ public Optional<GuideTooltip> getTooltip(float x, float y) {
 
             var docPoint = new LytPoint(x, y);
 
-            // This is tricky since a transient annotation should *NOT* be considered for hit-testing
+            // A transient annotation should *NOT* be considered for hit-testing
             SceneAnnotation annotation = null;
             if (!hideAnnotations) {
-                if (hoveredAnnotation != null && transientHoveredAnnotation) {
-                    scene.removeAnnotation(hoveredAnnotation);
-                    annotation = scene.pickAnnotation(docPoint, bounds, SceneAnnotation::hasTooltip);
-                    scene.addAnnotation(hoveredAnnotation);
-                } else {
-                    annotation = scene.pickAnnotation(docPoint, bounds, SceneAnnotation::hasTooltip);
-                }
+                var transientAnnotation = transientHoveredAnnotation ? hoveredAnnotation : null;
+                annotation = scene.pickAnnotation(docPoint, bounds,
+                        a -> a != transientAnnotation && a.hasTooltip());
 
                 // Prioritize picking annotation boxes over blocks
                 if (annotation != null && annotation.getTooltip() != null) {
@@ -487,8 +598,14 @@ public boolean mouseMoved(GuideUiHost screen, int x, int y) {
             }
         }
 
+        @Override
+        public void onMouseEnter(@Nullable LytFlowContent hoveredContent) {
+            mouseOver = true;
+        }
+
         @Override
         public void onMouseLeave() {
+            mouseOver = false;
             setHoveredAnnotation(null);
         }
 
@@ -560,10 +677,53 @@ private void renderOverlayAnnotations(GuidebookScene scene, RenderContext contex
         }
     }
 
-    static class ExternalTexture extends AbstractTexture {
-        public ExternalTexture(GpuTexture texture) {
-            this.texture = texture;
-            this.setFilter(false, false);
+    /**
+     * Everything that affects the rendered image of a scene, aside from animated content.
+     */
+    private record RenderState(Matrix4f viewMatrix,
+            Matrix4f projectionMatrix,
+            int textureWidth,
+            int textureHeight,
+            int levelRevision,
+            int annotationsVersion,
+            @Nullable SceneAnnotation hoveredAnnotation,
+            boolean hideAnnotations,
+            LightDarkMode lightDarkMode,
+            boolean debugOverlays) {
+    }
+
+    /**
+     * Counts how often a scene is actually rendered per second, to verify that static scenes are not re-rendered.
+     */
+    private static class SceneRenderCounter {
+        private static final ResolvedTextStyle STYLE = TextStyle.builder()
+                .color(ConstantColor.WHITE)
+                .build().mergeWith(DefaultStyles.BASE_STYLE);
+
+        private long secondStart;
+        private int rendersThisSecond;
+        private int rendersLastSecond;
+
+        void countRender() {
+            update();
+            rendersThisSecond++;
+        }
+
+        void render(RenderContext context, LytRect bounds) {
+            update();
+            var text = rendersLastSecond + " renders/s";
+            context.fillRect(bounds.x(), bounds.y(), (int) context.getWidth(text, STYLE), 10, ConstantColor.BLACK);
+            context.renderText(text, STYLE, bounds.x(), bounds.y());
+        }
+
+        private void update() {
+            var now = Util.getMillis();
+            if (now - secondStart >= 1000) {
+                // Don't report stale counts if the scene was not visible for a while
+                rendersLastSecond = now - secondStart < 2000 ? rendersThisSecond : 0;
+                rendersThisSecond = 0;
+                secondStart = now;
+            }
         }
     }
 }
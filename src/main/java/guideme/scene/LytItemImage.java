@@ -29,6 +29,7 @@ public float getScale() {
 
     public void setScale(float scale) {
         this.scale = scale;
+        invalidateLayout();
     }
 
     @Override
@@ -0,0 +1,81 @@
+package guideme.scene;
+
+import guideme.document.LytPoint;
+import guideme.document.LytRect;
+import guideme.scene.annotation.OverlayAnnotation;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.util.List;
+import org.joml.Matrix4f;
+
+/**
+ * A uniform grid over the document-space bounding rectangles of overlay annotations. Since the rectangles depend on
+ * the camera and the viewport, the grid is only valid for the {@link Key} it was built for.
+ */
+final class OverlayAnnotationIndex {
+    private static final int CELL_SIZE = 16;
+
+    /**
+     * Rectangles covering more cells than this are not entered into the grid, but always tested instead.
+     */
+    private static final int MAX_CELLS_PER_RECT = 64;
+
+    private final Key key;
+    private final int annotationsVersion;
+    private final Long2ObjectMap<IntArrayList> cells = new Long2ObjectOpenHashMap<>();
+    private final IntArrayList largeRects = new IntArrayList();
+
+    OverlayAnnotationIndex(Key key, int annotationsVersion, GuidebookScene scene, List<OverlayAnnotation> annotations) {
+        this.key = key;
+        this.annotationsVersion = annotationsVersion;
+
+        for (int i = 0; i < annotations.size(); i++) {
+            var rect = annotations.get(i).getBoundingRect(scene, key.viewport());
+            var minCellX = Math.floorDiv(rect.x(), CELL_SIZE);
+            var minCellY = Math.floorDiv(rect.y(), CELL_SIZE);
+            var maxCellX = Math.floorDiv(rect.right(), CELL_SIZE);
+            var maxCellY = Math.floorDiv(rect.bottom(), CELL_SIZE);
+            if ((long) (maxCellX - minCellX + 1) * (maxCellY - minCellY + 1) > MAX_CELLS_PER_RECT) {
+                largeRects.add(i);
+                continue;
+            }
+
+            for (var cellY = minCellY; cellY <= maxCellY; cellY++) {
+                for (var cellX = minCellX; cellX <= maxCellX; cellX++) {
+                    cells.computeIfAbsent(packCell(cellX, cellY), k -> new IntArrayList()).add(i);
+                }
+            }
+        }
+    }
+
+    boolean isValidFor(Key key, int annotationsVersion) {
+        return this.key.equals(key) && this.annotationsVersion == annotationsVersion;
+    }
+
+    /**
+     * Collects the indices of all annotations that might contain the given point, in descending order.
+     */
+    void findCandidates(LytPoint point, IntArrayList result) {
+        result.clear();
+        var cellX = Math.floorDiv((int) Math.floor(point.x()), CELL_SIZE);
+        var cellY = Math.floorDiv((int) Math.floor(point.y()), CELL_SIZE);
+        var cell = cells.get(packCell(cellX, cellY));
+        if (cell != null) {
+            result.addAll(cell);
+        }
+        result.addAll(largeRects);
+        // Annotations added last are on top and have to be picked first
+        result.unstableSort((a, b) -> Integer.compare(b, a));
+    }
+
+    private static long packCell(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The state that the bounding rectangles of overlay annotations depend on.
+     */
+    record Key(LytRect viewport, Matrix4f viewMatrix, Matrix4f projectionMatrix) {
+    }
+}
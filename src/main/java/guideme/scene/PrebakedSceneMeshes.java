@@ -0,0 +1,508 @@
+package guideme.scene;
+
+import com.mojang.blaze3d.buffers.BufferType;
+import com.mojang.blaze3d.buffers.BufferUsage;
+import com.mojang.blaze3d.buffers.GpuBuffer;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import com.mojang.blaze3d.vertex.VertexFormatElement;
+import guideme.flatbuffers.scene.ExpIndexElementType;
+import guideme.flatbuffers.scene.ExpMesh;
+import guideme.flatbuffers.scene.ExpPrimitiveType;
+import guideme.flatbuffers.scene.ExpScene;
+import guideme.flatbuffers.scene.ExpVec3;
+import guideme.flatbuffers.scene.ExpVertexElementType;
+import guideme.flatbuffers.scene.ExpVertexFormat;
+import guideme.flatbuffers.scene.ExpVertexFormatElement;
+import guideme.internal.scene.ExportedVertexFormats;
+import guideme.scene.export.SceneExporter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import net.minecraft.ResourceLocationException;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Vector3f;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scene geometry loaded from a file written by {@link guideme.scene.export.SceneExporter}. The meshes in the file are
+ * converted back into the vertex format of the render type they were captured from, uploaded to the GPU and drawn
+ * with that render type, so showing such a scene doesn't need any blocks in the level, nor lighting or tessellation.
+ * <p/>
+ * The texture coordinates in the file refer to the texture atlases as they were when the scene was exported. Scenes
+ * should be baked with the same mods and resource packs they are shown with.
+ */
+final class PrebakedSceneMeshes {
+    private static final Logger LOG = LoggerFactory.getLogger(PrebakedSceneMeshes.class);
+
+    /**
+     * Render types that take their texture as a parameter, by name.
+     */
+    private static final Map<String, Function<ResourceLocation, RenderType>> TEXTURED_RENDER_TYPES = Map.of(
+            "entity_solid", RenderType::entitySolid,
+            "entity_cutout", RenderType::entityCutout,
+            "entity_cutout_no_cull", RenderType::entityCutoutNoCull,
+            "entity_cutout_no_cull_z_offset", RenderType::entityCutoutNoCullZOffset,
+            "entity_smooth_cutout", RenderType::entitySmoothCutout,
+            "entity_translucent", RenderType::entityTranslucent,
+            "entity_no_outline", RenderType::entityNoOutline,
+            "item_entity_translucent_cull", RenderType::itemEntityTranslucentCull);
+
+    private final List<Part> parts;
+    private final Vector3f min;
+    private final Vector3f max;
+    private final float yaw;
+    private final float pitch;
+    private final float roll;
+    private final boolean animated;
+
+    @Nullable
+    private List<UploadedPart> uploadedParts;
+    private long lastUsed;
+
+    private PrebakedSceneMeshes(List<Part> parts, Vector3f min, Vector3f max, float yaw, float pitch, float roll,
+            boolean animated) {
+        this.parts = parts;
+        this.min = min;
+        this.max = max;
+        this.yaw = yaw;
+        this.pitch = pitch;
+        this.roll = roll;
+        this.animated = animated;
+    }
+
+    /**
+     * Reads an exported scene, which may optionally be GZIP compressed. Meshes whose render type is unknown in-game
+     * are skipped with a warning.
+     */
+    static PrebakedSceneMeshes read(byte[] data) throws IOException {
+        if (data.length >= 2 && (data[0] & 0xFF) == 0x1F && (data[1] & 0xFF) == 0x8B) {
+            try (var in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+                data = in.readAllBytes();
+            }
+        }
+
+        ExpScene scene;
+        try {
+            scene = ExpScene.getRootAsExpScene(ByteBuffer.wrap(data));
+        } catch (RuntimeException e) {
+            throw new IOException("Not a valid scene file", e);
+        }
+
+        if (scene.formatVersion() > SceneExporter.QUANTIZED_POSITIONS_FORMAT_VERSION) {
+            throw new IOException("Unsupported scene format version " + scene.formatVersion());
+        }
+
+        var parts = new ArrayList<Part>(scene.meshesLength());
+        var min = new Vector3f(Float.POSITIVE_INFINITY);
+        var max = new Vector3f(Float.NEGATIVE_INFINITY);
+        var mesh = new ExpMesh();
+        for (int i = 0; i < scene.meshesLength(); i++) {
+            scene.meshes(mesh, i);
+            var part = readPart(mesh);
+            if (part != null) {
+                parts.add(part);
+                part.includeInBounds(min, max);
+            }
+        }
+
+        if (!min.isFinite() || !max.isFinite()) {
+            min.zero();
+            max.zero();
+        }
+
+        var camera = scene.camera();
+        var yaw = camera != null ? camera.yaw() : 0;
+        var pitch = camera != null ? camera.pitch() : 0;
+        var roll = camera != null ? camera.roll() : 0;
+
+        // Animated sprites are animated in-place in their atlas, which changes the appearance of the scene
+        var animated = scene.animatedTexturesLength() > 0;
+
+        return new PrebakedSceneMeshes(List.copyOf(parts), min, max, yaw, pitch, roll, animated);
+    }
+
+    @Nullable
+    private static Part readPart(ExpMesh mesh) throws IOException {
+        var material = mesh.material();
+        if (material == null || material.name() == null) {
+            throw new IOException("Mesh without material");
+        }
+
+        var renderType = resolveRenderType(material.name(),
+                material.samplersLength() > 0 ? material.samplers(0).textureId() : null);
+        if (renderType == null) {
+            LOG.warn("Skipping prebaked mesh with unknown material {}", material.name());
+            return null;
+        }
+
+        // The exporter converts quads into pairs of triangles
+        var mode = renderType.mode();
+        if (mesh.primitiveType() != ExpPrimitiveType.TRIANGLES
+                || mode != VertexFormat.Mode.QUADS && mode != VertexFormat.Mode.TRIANGLES) {
+            LOG.warn("Skipping prebaked mesh with unsupported primitive type for material {}", material.name());
+            return null;
+        }
+
+        var format = renderType.format();
+        var vertexFormat = mesh.vertexFormat();
+        if (vertexFormat == null || vertexFormat.vertexSize() == 0) {
+            throw new IOException("Mesh without vertex format for material " + material.name());
+        }
+
+        var fileVertices = toArray(mesh.vertexBufferAsByteBuffer());
+        if (fileVertices.length % vertexFormat.vertexSize() != 0) {
+            throw new IOException("Inconsistent mesh data for material " + material.name());
+        }
+        var vertexCount = fileVertices.length / vertexFormat.vertexSize();
+        var vertices = convertVertices(fileVertices, vertexCount, vertexFormat, mesh.positionOffset(),
+                mesh.positionScale(), format);
+
+        var indices = toArray(mesh.indexBufferAsByteBuffer());
+        var indexType = mesh.indexType() == ExpIndexElementType.USHORT
+                ? VertexFormat.IndexType.SHORT
+                : VertexFormat.IndexType.INT;
+        var indexCount = mesh.indexCount();
+        if (indexCount * indexType.bytes > indices.length
+                || indexCount % (mode == VertexFormat.Mode.QUADS ? 6 : 3) != 0) {
+            throw new IOException("Inconsistent mesh data for material " + material.name());
+        }
+
+        var part = new Part(renderType, vertices, vertexCount, indices, indexType, (int) indexCount);
+        for (int i = 0; i < indexCount; i++) {
+            if (Integer.compareUnsigned(part.getIndex(i), vertexCount) >= 0) {
+                throw new IOException("Index out of range for material " + material.name());
+            }
+        }
+        return part;
+    }
+
+    /**
+     * Converts vertices from the layout they were written with into the vertex format of the render type. The
+     * exporter may have quantized or reordered elements, and doesn't write padding.
+     */
+    private static byte[] convertVertices(byte[] data,
+            int vertexCount,
+            ExpVertexFormat fileFormat,
+            @Nullable ExpVec3 positionOffset,
+            @Nullable ExpVec3 positionScale,
+            VertexFormat format) {
+        var quantizedPositions = positionOffset != null && positionScale != null;
+
+        // Find the file element for each element of the vertex format, and check if the data can be used as-is
+        var elements = format.getElements();
+        var sourceElements = new ExpVertexFormatElement[elements.size()];
+        var identical = !quantizedPositions && fileFormat.vertexSize() == format.getVertexSize();
+        var offset = 0;
+        for (int i = 0; i < elements.size(); i++) {
+            var element = elements.get(i);
+            if (element.usage() != VertexFormatElement.Usage.GENERIC) {
+                for (int j = 0; j < fileFormat.elementsLength(); j++) {
+                    var candidate = fileFormat.elements(j);
+                    if (candidate.usage() == ExportedVertexFormats.mapUsage(element.usage())
+                            && candidate.index() == element.index()) {
+                        sourceElements[i] = candidate;
+                        break;
+                    }
+                }
+                var source = sourceElements[i];
+                identical &= source != null
+                        && source.offset() == offset
+                        && source.type() == ExportedVertexFormats.mapType(element.type())
+                        && source.count() == element.count();
+            }
+            offset += element.byteSize();
+        }
+        if (identical) {
+            return data;
+        }
+
+        var src = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        var dst = ByteBuffer.allocate(vertexCount * format.getVertexSize()).order(ByteOrder.LITTLE_ENDIAN);
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            var srcStart = vertex * fileFormat.vertexSize();
+            var dstOffset = vertex * format.getVertexSize();
+            for (int i = 0; i < elements.size(); i++) {
+                var element = elements.get(i);
+                var source = sourceElements[i];
+                if (source != null) {
+                    for (int c = 0; c < Math.min(element.count(), source.count()); c++) {
+                        var value = readComponent(src, srcStart + source.offset(), source.type(), c,
+                                source.normalized());
+                        if (quantizedPositions && element.usage() == VertexFormatElement.Usage.POSITION) {
+                            value = switch (c) {
+                                case 0 -> positionOffset.x() + positionScale.x() * value;
+                                case 1 -> positionOffset.y() + positionScale.y() * value;
+                                default -> positionOffset.z() + positionScale.z() * value;
+                            };
+                        }
+                        writeComponent(dst, dstOffset, element, c, value);
+                    }
+                }
+                dstOffset += element.byteSize();
+            }
+        }
+        return dst.array();
+    }
+
+    private static float readComponent(ByteBuffer buffer, int offset, int type, int component, boolean normalized) {
+        return switch (type) {
+            case ExpVertexElementType.FLOAT -> buffer.getFloat(offset + component * 4);
+            case ExpVertexElementType.UBYTE -> {
+                var value = buffer.get(offset + component) & 0xFF;
+                yield normalized ? value / 255f : value;
+            }
+            case ExpVertexElementType.BYTE -> {
+                var value = buffer.get(offset + component);
+                yield normalized ? Math.max(-1f, value / 127f) : value;
+            }
+            case ExpVertexElementType.USHORT -> {
+                var value = buffer.getShort(offset + component * 2) & 0xFFFF;
+                yield normalized ? value / 65535f : value;
+            }
+            case ExpVertexElementType.SHORT -> {
+                var value = buffer.getShort(offset + component * 2);
+                yield normalized ? Math.max(-1f, value / 32767f) : value;
+            }
+            default -> buffer.getInt(offset + component * 4);
+        };
+    }
+
+    /**
+     * Writes a component in the representation Minecraft uses, where colors and normals are normalized.
+     */
+    private static void writeComponent(ByteBuffer buffer, int offset, VertexFormatElement element, int component,
+            float value) {
+        var normalized = element.usage() == VertexFormatElement.Usage.NORMAL
+                || element.usage() == VertexFormatElement.Usage.COLOR;
+        switch (element.type()) {
+            case FLOAT -> buffer.putFloat(offset + component * 4, value);
+            case UBYTE -> buffer.put(offset + component, (byte) Math.round(normalized ? value * 255 : value));
+            case BYTE -> buffer.put(offset + component, (byte) Math.round(normalized ? value * 127 : value));
+            case USHORT -> buffer.putShort(offset + component * 2,
+                    (short) Math.round(normalized ? value * 65535 : value));
+            case SHORT -> buffer.putShort(offset + component * 2,
+                    (short) Math.round(normalized ? value * 32767 : value));
+            case UINT, INT -> buffer.putInt(offset + component * 4, Math.round(value));
+        }
+    }
+
+    @Nullable
+    private static RenderType resolveRenderType(String name, @Nullable String textureId) {
+        for (var layer : RenderType.chunkBufferLayers()) {
+            if (layer.name.equals(name)) {
+                return layer;
+            }
+        }
+
+        var factory = TEXTURED_RENDER_TYPES.get(name);
+        if (factory == null || textureId == null) {
+            return null;
+        }
+        try {
+            return factory.apply(ResourceLocation.parse(textureId));
+        } catch (ResourceLocationException e) {
+            return null;
+        }
+    }
+
+    private static byte[] toArray(@Nullable ByteBuffer buffer) {
+        if (buffer == null) {
+            return new byte[0];
+        }
+        var result = new byte[buffer.remaining()];
+        buffer.get(result);
+        return result;
+    }
+
+    /**
+     * The bounds of all vertex positions.
+     */
+    Vector3f getMin() {
+        return new Vector3f(min);
+    }
+
+    Vector3f getMax() {
+        return new Vector3f(max);
+    }
+
+    /**
+     * Applies the camera rotation the scene was exported with.
+     */
+    void applyCameraRotation(CameraSettings cameraSettings) {
+        cameraSettings.setRotationY(yaw);
+        cameraSettings.setRotationX(pitch);
+        cameraSettings.setRotationZ(roll);
+    }
+
+    boolean isAnimated() {
+        return animated;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    boolean isUploaded() {
+        return uploadedParts != null;
+    }
+
+    /**
+     * Draws the meshes using the current model-view and projection matrices, uploading them first if needed.
+     *
+     * @param translucent If true, only meshes with blending are drawn, otherwise only meshes without.
+     */
+    void draw(boolean translucent, long now) {
+        RenderSystem.assertOnRenderThread();
+        lastUsed = now;
+
+        if (uploadedParts == null) {
+            uploadedParts = new ArrayList<>(parts.size());
+            for (var part : parts) {
+                uploadedParts.add(part.upload());
+            }
+        }
+
+        for (var part : uploadedParts) {
+            if (part.renderType().getRenderPipeline().getBlendFunction().isPresent() == translucent) {
+                CompiledSceneMeshes.drawIndexed(part.renderType(), part.vertexBuffer(), part.indexBuffer(),
+                        part.indexType(), part.indexCount());
+            }
+        }
+    }
+
+    /**
+     * Frees the GPU buffers. They are uploaded again when the scene is drawn the next time.
+     */
+    void releaseGpuBuffers() {
+        if (uploadedParts != null) {
+            for (var part : uploadedParts) {
+                part.vertexBuffer().close();
+                part.indexBuffer().close();
+            }
+            uploadedParts = null;
+        }
+    }
+
+    /**
+     * Emits all meshes into the given buffers, i.e. to re-export them along with other scene content.
+     */
+    void emit(MultiBufferSource buffers) {
+        for (var part : parts) {
+            part.emit(buffers.getBuffer(part.renderType()));
+        }
+    }
+
+    private record Part(RenderType renderType,
+            byte[] vertices,
+            int vertexCount,
+            byte[] indices,
+            VertexFormat.IndexType indexType,
+            int indexCount) {
+        int getIndex(int i) {
+            if (indexType == VertexFormat.IndexType.SHORT) {
+                return indices[i * 2] & 0xFF | (indices[i * 2 + 1] & 0xFF) << 8;
+            } else {
+                return indices[i * 4] & 0xFF
+                        | (indices[i * 4 + 1] & 0xFF) << 8
+                        | (indices[i * 4 + 2] & 0xFF) << 16
+                        | (indices[i * 4 + 3] & 0xFF) << 24;
+            }
+        }
+
+        void includeInBounds(Vector3f min, Vector3f max) {
+            var buffer = ByteBuffer.wrap(vertices).order(ByteOrder.LITTLE_ENDIAN);
+            var offset = getElementOffset(VertexFormatElement.POSITION);
+            var stride = renderType.format().getVertexSize();
+            for (int i = 0; i < vertexCount; i++) {
+                var x = buffer.getFloat(i * stride + offset);
+                var y = buffer.getFloat(i * stride + offset + 4);
+                var z = buffer.getFloat(i * stride + offset + 8);
+                min.set(Math.min(min.x, x), Math.min(min.y, y), Math.min(min.z, z));
+                max.set(Math.max(max.x, x), Math.max(max.y, y), Math.max(max.z, z));
+            }
+        }
+
+        private int getElementOffset(VertexFormatElement element) {
+            var offset = 0;
+            for (var formatElement : renderType.format().getElements()) {
+                if (formatElement == element) {
+                    return offset;
+                }
+                offset += formatElement.byteSize();
+            }
+            throw new IllegalStateException("Vertex format of " + renderType + " has no " + element);
+        }
+
+        UploadedPart upload() {
+            var device = RenderSystem.getDevice();
+            var vertexBuffer = device.createBuffer(() -> "GuideME prebaked scene vertices " + renderType,
+                    BufferType.VERTICES, BufferUsage.STATIC_WRITE, toDirectBuffer(vertices));
+            var indexBuffer = device.createBuffer(() -> "GuideME prebaked scene indices " + renderType,
+                    BufferType.INDICES, BufferUsage.STATIC_WRITE, toDirectBuffer(indices));
+            return new UploadedPart(renderType, vertexBuffer, indexBuffer, indexType, indexCount);
+        }
+
+        private static ByteBuffer toDirectBuffer(byte[] data) {
+            return ByteBuffer.allocateDirect(data.length).order(ByteOrder.nativeOrder()).put(data).flip();
+        }
+
+        void emit(VertexConsumer consumer) {
+            var buffer = ByteBuffer.wrap(vertices).order(ByteOrder.LITTLE_ENDIAN);
+            if (renderType.mode() == VertexFormat.Mode.QUADS) {
+                // The exporter splits quads (a, b, c, d) into triangles (a, b, c) and (c, d, a)
+                for (int i = 0; i < indexCount; i += 6) {
+                    emitVertex(consumer, buffer, getIndex(i));
+                    emitVertex(consumer, buffer, getIndex(i + 1));
+                    emitVertex(consumer, buffer, getIndex(i + 2));
+                    emitVertex(consumer, buffer, getIndex(i + 4));
+                }
+            } else {
+                for (int i = 0; i < indexCount; i++) {
+                    emitVertex(consumer, buffer, getIndex(i));
+                }
+            }
+        }
+
+        private void emitVertex(VertexConsumer consumer, ByteBuffer buffer, int index) {
+            var offset = index * renderType.format().getVertexSize();
+            for (var element : renderType.format().getElements()) {
+                if (element == VertexFormatElement.POSITION) {
+                    consumer.addVertex(buffer.getFloat(offset), buffer.getFloat(offset + 4),
+                            buffer.getFloat(offset + 8));
+                } else if (element == VertexFormatElement.COLOR) {
+                    consumer.setColor(buffer.get(offset) & 0xFF, buffer.get(offset + 1) & 0xFF,
+                            buffer.get(offset + 2) & 0xFF, buffer.get(offset + 3) & 0xFF);
+                } else if (element == VertexFormatElement.UV0) {
+                    consumer.setUv(buffer.getFloat(offset), buffer.getFloat(offset + 4));
+                } else if (element == VertexFormatElement.UV1) {
+                    consumer.setUv1(buffer.getShort(offset), buffer.getShort(offset + 2));
+                } else if (element == VertexFormatElement.UV2) {
+                    consumer.setUv2(buffer.getShort(offset), buffer.getShort(offset + 2));
+                } else if (element == VertexFormatElement.NORMAL) {
+                    consumer.setNormal(buffer.get(offset) / 127f, buffer.get(offset + 1) / 127f,
+                            buffer.get(offset + 2) / 127f);
+                }
+                offset += element.byteSize();
+            }
+        }
+    }
+
+    private record UploadedPart(RenderType renderType,
+            GpuBuffer vertexBuffer,
+            GpuBuffer indexBuffer,
+            VertexFormat.IndexType indexType,
+            int indexCount) {
+    }
+}
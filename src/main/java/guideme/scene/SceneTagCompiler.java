@@ -2,6 +2,7 @@
 package guideme.scene;
 
 import guideme.color.SymbolicColor;
+import guideme.compiler.IdUtils;
 import guideme.compiler.IndexingContext;
 import guideme.compiler.IndexingSink;
 import guideme.compiler.PageCompiler;
@@ -13,12 +14,19 @@
 import guideme.libs.mdast.mdx.model.MdxJsxElementFields;
 import guideme.libs.mdast.model.MdAstNode;
 import guideme.scene.element.SceneElementTagCompiler;
-import guideme.scene.level.GuidebookLevel;
+import guideme.scene.level.GuidebookLevelPool;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import net.minecraft.ResourceLocationException;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class SceneTagCompiler extends BlockTagCompiler implements Extension {
+    private static final Logger LOG = LoggerFactory.getLogger(SceneTagCompiler.class);
+
     public static final String TAG_NAME = "GameScene";
 
     private final Map<String, SceneElementTagCompiler> elementTagCompilers = new HashMap<>();
@@ -34,12 +42,28 @@ protected void compile(PageCompiler compiler, LytBlockContainer parent, MdxJsxEl
         var zoom = MdxAttrs.getFloat(compiler, parent, el, "zoom", 1.0f);
         var background = MdxAttrs.getColor(compiler, parent, el, "background", SymbolicColor.SCENE_BACKGROUND);
 
-        var level = new GuidebookLevel();
+        var start = System.nanoTime();
+        var level = GuidebookLevelPool.acquire();
         var cameraSettings = new CameraSettings();
         cameraSettings.setZoom(zoom);
 
         var scene = new GuidebookScene(level, cameraSettings);
 
+        // Enclosed blocks are only visible in scenes the camera can clip into
+        if (MdxAttrs.getBoolean(compiler, parent, el, "cutaway", false)) {
+            level.setCullEnclosedBlocks(false);
+        }
+
+        // Scenes exported ahead of time replace structure placement, lighting and tessellation
+        var src = el.getAttributeString("src", null);
+        if (src != null) {
+            var prebakedMeshes = loadPrebakedMeshes(compiler, parent, el, src);
+            if (prebakedMeshes != null) {
+                prebakedMeshes.applyCameraRotation(cameraSettings);
+                scene.setPrebakedMeshes(prebakedMeshes);
+            }
+        }
+
         for (var child : el.children()) {
             if (child instanceof MdxJsxElementFields childEl) {
                 var childTagName = childEl.name();
@@ -52,6 +76,10 @@ protected void compile(PageCompiler compiler, LytBlockContainer parent, MdxJsxEl
             }
         }
 
+        // Compute lighting and visibility once now, instead of on the first frame the scene is rendered
+        level.bakeLighting();
+        level.updateExteriorVisibility();
+
         scene.getCameraSettings().setRotationCenter(scene.getWorldCenter());
         scene.centerScene();
 
@@ -68,6 +96,35 @@ protected void compile(PageCompiler compiler, LytBlockContainer parent, MdxJsxEl
         lytScene.setSourceNode((MdAstNode) el);
 
         parent.append(lytScene);
+
+        LOG.debug("Compiled scene in {} on {} in {}ms", compiler.getPageId(), el.name(),
+                (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    @Nullable
+    private static PrebakedSceneMeshes loadPrebakedMeshes(PageCompiler compiler, LytBlockContainer parent,
+            MdxJsxElementFields el, String src) {
+        ResourceLocation absSrc;
+        try {
+            absSrc = IdUtils.resolveLink(src, compiler.getPageId());
+        } catch (ResourceLocationException e) {
+            parent.appendError(compiler, "Invalid scene path: " + src, el);
+            return null;
+        }
+
+        var data = compiler.loadAsset(absSrc);
+        if (data == null) {
+            parent.appendError(compiler, "Missing scene file", el);
+            return null;
+        }
+
+        try {
+            return PrebakedSceneMeshes.read(data);
+        } catch (Exception e) {
+            LOG.error("Failed to read prebaked scene {}", absSrc, e);
+            parent.appendError(compiler, "Couldn't read scene: " + e.getMessage(), el);
+            return null;
+        }
     }
 
     @Override
@@ -1,7 +1,9 @@
 package guideme.scene.annotation;
 
 import java.util.OptionalDouble;
+import net.minecraft.world.phys.AABB;
 import org.apache.commons.lang3.tuple.Pair;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
@@ -16,6 +18,12 @@ public abstract class InWorldAnnotation extends SceneAnnotation {
      */
     private boolean alwaysOnTop;
 
+    /**
+     * Geometry cached by {@link InWorldAnnotationRenderer}.
+     */
+    @Nullable
+    InWorldAnnotationMesh renderMesh;
+
     /**
      * Test intersection between a 3D ray and this in-world annotations shape.
      *
@@ -26,6 +34,17 @@ public abstract class InWorldAnnotation extends SceneAnnotation {
 
     public abstract Pair<Vector2f, Vector2f> getScreenBounds(Matrix4f viewMatrix);
 
+    /**
+     * Returns a world-space box that encloses everything {@link #intersect} could hit. It is used to skip annotations
+     * during picking and must not change while the annotation is part of a scene.
+     *
+     * @return Null if the bounds are unknown, in which case the annotation is always tested.
+     */
+    @Nullable
+    public AABB getWorldBounds() {
+        return null;
+    }
+
     public boolean isAlwaysOnTop() {
         return alwaysOnTop;
     }
@@ -0,0 +1,125 @@
+package guideme.scene.annotation;
+
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import guideme.color.MutableColor;
+import net.minecraft.client.renderer.LightTexture;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.util.ARGB;
+import org.joml.Vector3f;
+
+/**
+ * The tessellated geometry of an in-world annotation, cached on the annotation so that it doesn't have to be rebuilt
+ * every frame. The geometry is stored without color. Instead, the per-face shading is multiplied with the pass color
+ * when the vertices are emitted, so that a change in hover state only has to recompute the pass colors.
+ */
+final class InWorldAnnotationMesh {
+    // Position, normal and UV per vertex
+    private static final int VERTEX_STRIDE = 8;
+
+    // The inputs the geometry was built from
+    private final float fromX, fromY, fromZ;
+    private final float toX, toY, toZ;
+    private final float thickness;
+    private final TextureAtlasSprite sprite;
+
+    private final float[] vertices;
+    private final int[] quadShades;
+    private int quadCount;
+    private int pendingVertices;
+
+    // The inputs the pass colors were computed from
+    private boolean colorsValid;
+    private int resolvedColor;
+    private boolean hovered;
+    private int color;
+    private int occludedColor;
+
+    InWorldAnnotationMesh(Vector3f from, Vector3f to, float thickness, TextureAtlasSprite sprite, int maxQuads) {
+        this.fromX = from.x;
+        this.fromY = from.y;
+        this.fromZ = from.z;
+        this.toX = to.x;
+        this.toY = to.y;
+        this.toZ = to.z;
+        this.thickness = thickness;
+        this.sprite = sprite;
+        this.vertices = new float[maxQuads * 4 * VERTEX_STRIDE];
+        this.quadShades = new int[maxQuads];
+    }
+
+    boolean hasGeometry(Vector3f from, Vector3f to, float thickness, TextureAtlasSprite sprite) {
+        return fromX == from.x && fromY == from.y && fromZ == from.z
+                && toX == to.x && toY == to.y && toZ == to.z
+                && this.thickness == thickness
+                && this.sprite == sprite;
+    }
+
+    /**
+     * Recomputes the colors used for the normal and occluded pass if the annotation color or hover state changed.
+     */
+    void updateColors(int resolvedColor, boolean hovered) {
+        if (colorsValid && this.resolvedColor == resolvedColor && this.hovered == hovered) {
+            return;
+        }
+
+        var color = MutableColor.ofArgb32(resolvedColor);
+        var occludedColor = MutableColor.ofArgb32(resolvedColor);
+        occludedColor.darker(50).setAlpha(occludedColor.alpha() * 0.5f);
+        if (hovered) {
+            color.lighter(50);
+            occludedColor.lighter(50);
+        }
+        this.color = color.toArgb32();
+        this.occludedColor = occludedColor.toArgb32();
+
+        this.resolvedColor = resolvedColor;
+        this.hovered = hovered;
+        this.colorsValid = true;
+    }
+
+    int getColor() {
+        return color;
+    }
+
+    int getOccludedColor() {
+        return occludedColor;
+    }
+
+    /**
+     * Appends a vertex of the current quad. Vertices must be added in groups of four, followed by {@link #endQuad}.
+     */
+    void addVertex(Vector3f pos, Vector3f normal, float u, float v) {
+        var offset = (quadCount * 4 + pendingVertices) * VERTEX_STRIDE;
+        vertices[offset] = pos.x;
+        vertices[offset + 1] = pos.y;
+        vertices[offset + 2] = pos.z;
+        vertices[offset + 3] = normal.x;
+        vertices[offset + 4] = normal.y;
+        vertices[offset + 5] = normal.z;
+        vertices[offset + 6] = u;
+        vertices[offset + 7] = v;
+        pendingVertices++;
+    }
+
+    void endQuad(int shade) {
+        if (pendingVertices != 4) {
+            throw new IllegalStateException("Quad has " + pendingVertices + " vertices");
+        }
+        quadShades[quadCount++] = shade;
+        pendingVertices = 0;
+    }
+
+    void emit(VertexConsumer consumer, int color) {
+        for (var quad = 0; quad < quadCount; quad++) {
+            var quadColor = ARGB.multiply(quadShades[quad], color);
+            for (var i = 0; i < 4; i++) {
+                var offset = (quad * 4 + i) * VERTEX_STRIDE;
+                consumer.addVertex(vertices[offset], vertices[offset + 1], vertices[offset + 2])
+                        .setColor(quadColor)
+                        .setUv(vertices[offset + 6], vertices[offset + 7])
+                        .setLight(LightTexture.FULL_BRIGHT)
+                        .setNormal(vertices[offset + 3], vertices[offset + 4], vertices[offset + 5]);
+            }
+        }
+    }
+}
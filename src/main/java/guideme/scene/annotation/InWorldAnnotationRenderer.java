@@ -8,10 +8,10 @@
 import com.mojang.blaze3d.vertex.VertexConsumer;
 import com.mojang.blaze3d.vertex.VertexFormat;
 import guideme.color.LightDarkMode;
-import guideme.color.MutableColor;
 import guideme.internal.GuideME;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import net.minecraft.client.Minecraft;
-import net.minecraft.client.renderer.LightTexture;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderPipelines;
 import net.minecraft.client.renderer.RenderStateShard;
@@ -20,6 +20,7 @@
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 import net.minecraft.core.Direction;
 import net.minecraft.util.ARGB;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Vector3f;
 
 public final class InWorldAnnotationRenderer {
@@ -40,13 +41,35 @@ public final class InWorldAnnotationRenderer {
                     .setTextureState(RenderStateShard.BLOCK_SHEET_MIPPED)
                     .createCompositeState(false));
 
+    /**
+     * Quads emitted for a box: four struts with caps, and eight without.
+     */
+    private static final int BOX_QUADS = 4 * 6 + 8 * 4;
+
+    /**
+     * Quads emitted for a single strut with both caps.
+     */
+    private static final int STRUT_QUADS = 6;
+
+    private static final int MAX_CACHED_BOX_MESHES = 64;
+
+    /**
+     * Meshes of boxes rendered without an annotation to cache them on, by their geometry. Only used on the render
+     * thread.
+     */
+    private static final Map<BoxGeometry, InWorldAnnotationMesh> BOX_MESHES = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BoxGeometry, InWorldAnnotationMesh> eldest) {
+            return size() > MAX_CACHED_BOX_MESHES;
+        }
+    };
+
     private InWorldAnnotationRenderer() {
     }
 
     public static void render(MultiBufferSource.BufferSource buffers, Iterable<InWorldAnnotation> annotations,
             LightDarkMode lightDarkMode) {
-        var sprite = Minecraft.getInstance().getTextureAtlas(TextureAtlas.LOCATION_BLOCKS)
-                .apply(GuideME.makeId("block/noise"));
+        var sprite = getSprite();
 
         var occludedConsumer = buffers.getBuffer(OCCLUDED);
         for (var annotation : annotations) {
@@ -54,32 +77,9 @@ public static void render(MultiBufferSource.BufferSource buffers, Iterable<InWor
                 continue; // Don't render occlusion for always-on-top annotations
             }
 
-            if (annotation instanceof InWorldBoxAnnotation boxAnnotation) {
-                var color = MutableColor.of(boxAnnotation.color(), lightDarkMode);
-                color.darker(50).setAlpha(color.alpha() * 0.5f);
-                if (boxAnnotation.isHovered()) {
-                    color.lighter(50);
-                }
-                render(occludedConsumer,
-                        boxAnnotation.min(),
-                        boxAnnotation.max(),
-                        color.toArgb32(),
-                        boxAnnotation.thickness(),
-                        sprite);
-            } else if (annotation instanceof InWorldLineAnnotation lineAnnotation) {
-                var color = MutableColor.of(lineAnnotation.color(), lightDarkMode);
-                color.darker(50).setAlpha(color.alpha() * 0.5f);
-                if (lineAnnotation.isHovered()) {
-                    color.lighter(50);
-                }
-                strut(occludedConsumer,
-                        lineAnnotation.min(),
-                        lineAnnotation.max(),
-                        color.toArgb32(),
-                        lineAnnotation.thickness(),
-                        true,
-                        true,
-                        sprite);
+            var mesh = getMesh(annotation, lightDarkMode, sprite);
+            if (mesh != null) {
+                mesh.emit(occludedConsumer, mesh.getOccludedColor());
             }
         }
         buffers.endBatch(OCCLUDED);
@@ -97,30 +97,9 @@ public static void render(MultiBufferSource.BufferSource buffers, Iterable<InWor
                     continue;
                 }
 
-                if (annotation instanceof InWorldBoxAnnotation boxAnnotation) {
-                    var color = MutableColor.of(boxAnnotation.color(), lightDarkMode);
-                    if (boxAnnotation.isHovered()) {
-                        color.lighter(50);
-                    }
-                    render(consumer,
-                            boxAnnotation.min(),
-                            boxAnnotation.max(),
-                            color.toArgb32(),
-                            boxAnnotation.thickness(),
-                            sprite);
-                } else if (annotation instanceof InWorldLineAnnotation lineAnnotation) {
-                    var color = MutableColor.of(lineAnnotation.color(), lightDarkMode);
-                    if (lineAnnotation.isHovered()) {
-                        color.lighter(50);
-                    }
-                    strut(consumer,
-                            lineAnnotation.min(),
-                            lineAnnotation.max(),
-                            color.toArgb32(),
-                            lineAnnotation.thickness(),
-                            true,
-                            true,
-                            sprite);
+                var mesh = getMesh(annotation, lightDarkMode, sprite);
+                if (mesh != null) {
+                    mesh.emit(consumer, mesh.getColor());
                 }
             }
 
@@ -129,12 +108,80 @@ public static void render(MultiBufferSource.BufferSource buffers, Iterable<InWor
         buffers.endBatch();
     }
 
+    /**
+     * Gets the cached mesh of an annotation, and rebuilds it if the geometry of the annotation changed.
+     */
+    @Nullable
+    private static InWorldAnnotationMesh getMesh(InWorldAnnotation annotation, LightDarkMode lightDarkMode,
+            TextureAtlasSprite sprite) {
+        var mesh = annotation.renderMesh;
+        if (annotation instanceof InWorldBoxAnnotation boxAnnotation) {
+            if (mesh == null || !mesh.hasGeometry(boxAnnotation.min(), boxAnnotation.max(),
+                    boxAnnotation.thickness(), sprite)) {
+                mesh = new InWorldAnnotationMesh(boxAnnotation.min(), boxAnnotation.max(),
+                        boxAnnotation.thickness(), sprite, BOX_QUADS);
+                box(mesh, boxAnnotation.min(), boxAnnotation.max(), boxAnnotation.thickness(), sprite);
+            }
+            mesh.updateColors(boxAnnotation.color().resolve(lightDarkMode), boxAnnotation.isHovered());
+        } else if (annotation instanceof InWorldLineAnnotation lineAnnotation) {
+            if (mesh == null || !mesh.hasGeometry(lineAnnotation.min(), lineAnnotation.max(),
+                    lineAnnotation.thickness(), sprite)) {
+                mesh = new InWorldAnnotationMesh(lineAnnotation.min(), lineAnnotation.max(),
+                        lineAnnotation.thickness(), sprite, STRUT_QUADS);
+                strut(mesh, lineAnnotation.min(), lineAnnotation.max(), lineAnnotation.thickness(), true, true,
+                        sprite);
+            }
+            mesh.updateColors(lineAnnotation.color().resolve(lightDarkMode), lineAnnotation.isHovered());
+        } else {
+            return null;
+        }
+
+        annotation.renderMesh = mesh;
+        return mesh;
+    }
+
+    private static TextureAtlasSprite getSprite() {
+        return Minecraft.getInstance().getTextureAtlas(TextureAtlas.LOCATION_BLOCKS)
+                .apply(GuideME.makeId("block/noise"));
+    }
+
+    /**
+     * Renders a single annotation into the given consumer, using the geometry cached on the annotation.
+     */
+    public static void render(VertexConsumer consumer, InWorldAnnotation annotation, LightDarkMode lightDarkMode) {
+        var mesh = getMesh(annotation, lightDarkMode, getSprite());
+        if (mesh != null) {
+            mesh.emit(consumer, mesh.getColor());
+        }
+    }
+
+    /**
+     * Renders a box that is not backed by an annotation. The geometry of recently rendered boxes is cached.
+     */
     public static void render(VertexConsumer consumer,
             Vector3f min,
             Vector3f max,
             int color,
             float thickness,
             TextureAtlasSprite sprite) {
+        var key = new BoxGeometry(new Vector3f(min), new Vector3f(max), thickness, sprite);
+        var mesh = BOX_MESHES.get(key);
+        if (mesh == null) {
+            mesh = new InWorldAnnotationMesh(min, max, thickness, sprite, BOX_QUADS);
+            box(mesh, min, max, thickness, sprite);
+            BOX_MESHES.put(key, mesh);
+        }
+        mesh.emit(consumer, color);
+    }
+
+    private record BoxGeometry(Vector3f min, Vector3f max, float thickness, TextureAtlasSprite sprite) {
+    }
+
+    private static void box(InWorldAnnotationMesh mesh,
+            Vector3f min,
+            Vector3f max,
+            float thickness,
+            TextureAtlasSprite sprite) {
         var thickHalf = thickness * 0.5f;
 
         var u = new Vector3f(max.x - min.x, 0, 0);
@@ -156,37 +203,37 @@ public static void render(VertexConsumer consumer,
 
         // Along X-Axis
         // Extend these out to cover past the corner (half the extrude thickness)
-        strut(consumer, new Vector3f(uNorm).mulAdd(-thickHalf, corners[0]),
-                new Vector3f(uNorm).mulAdd(thickHalf, corners[1]), color, thickness, true, true, sprite);
-        strut(consumer, new Vector3f(uNorm).mulAdd(-thickHalf, corners[2]),
-                new Vector3f(uNorm).mulAdd(thickHalf, corners[7]), color, thickness, true, true, sprite);
-        strut(consumer, new Vector3f(uNorm).mulAdd(-thickHalf, corners[3]),
-                new Vector3f(uNorm).mulAdd(thickHalf, corners[6]), color, thickness, true, true, sprite);
-        strut(consumer, new Vector3f(uNorm).mulAdd(-thickHalf, corners[5]),
-                new Vector3f(uNorm).mulAdd(thickHalf, corners[4]), color, thickness, true, true, sprite);
+        strut(mesh, new Vector3f(uNorm).mulAdd(-thickHalf, corners[0]),
+                new Vector3f(uNorm).mulAdd(thickHalf, corners[1]), thickness, true, true, sprite);
+        strut(mesh, new Vector3f(uNorm).mulAdd(-thickHalf, corners[2]),
+                new Vector3f(uNorm).mulAdd(thickHalf, corners[7]), thickness, true, true, sprite);
+        strut(mesh, new Vector3f(uNorm).mulAdd(-thickHalf, corners[3]),
+                new Vector3f(uNorm).mulAdd(thickHalf, corners[6]), thickness, true, true, sprite);
+        strut(mesh, new Vector3f(uNorm).mulAdd(-thickHalf, corners[5]),
+                new Vector3f(uNorm).mulAdd(thickHalf, corners[4]), thickness, true, true, sprite);
 
         // Along Y-Axis
-        strut(consumer, new Vector3f(vNorm).mulAdd(thickHalf, corners[0]),
-                new Vector3f(vNorm).mulAdd(-thickHalf, corners[2]), color, thickness, false, false, sprite);
-        strut(consumer, new Vector3f(vNorm).mulAdd(thickHalf, corners[1]),
-                new Vector3f(vNorm).mulAdd(-thickHalf, corners[7]), color, thickness, false, false, sprite);
-        strut(consumer, new Vector3f(vNorm).mulAdd(thickHalf, corners[3]),
-                new Vector3f(vNorm).mulAdd(-thickHalf, corners[5]), color, thickness, false, false, sprite);
-        strut(consumer, new Vector3f(vNorm).mulAdd(thickHalf, corners[6]),
-                new Vector3f(vNorm).mulAdd(-thickHalf, corners[4]), color, thickness, false, false, sprite);
+        strut(mesh, new Vector3f(vNorm).mulAdd(thickHalf, corners[0]),
+                new Vector3f(vNorm).mulAdd(-thickHalf, corners[2]), thickness, false, false, sprite);
+        strut(mesh, new Vector3f(vNorm).mulAdd(thickHalf, corners[1]),
+                new Vector3f(vNorm).mulAdd(-thickHalf, corners[7]), thickness, false, false, sprite);
+        strut(mesh, new Vector3f(vNorm).mulAdd(thickHalf, corners[3]),
+                new Vector3f(vNorm).mulAdd(-thickHalf, corners[5]), thickness, false, false, sprite);
+        strut(mesh, new Vector3f(vNorm).mulAdd(thickHalf, corners[6]),
+                new Vector3f(vNorm).mulAdd(-thickHalf, corners[4]), thickness, false, false, sprite);
 
         // Along Z-Axis
-        strut(consumer, new Vector3f(tNorm).mulAdd(thickHalf, corners[0]),
-                new Vector3f(tNorm).mulAdd(-thickHalf, corners[3]), color, thickness, false, false, sprite);
-        strut(consumer, new Vector3f(tNorm).mulAdd(thickHalf, corners[1]),
-                new Vector3f(tNorm).mulAdd(-thickHalf, corners[6]), color, thickness, false, false, sprite);
-        strut(consumer, new Vector3f(tNorm).mulAdd(thickHalf, corners[2]),
-                new Vector3f(tNorm).mulAdd(-thickHalf, corners[5]), color, thickness, false, false, sprite);
-        strut(consumer, new Vector3f(tNorm).mulAdd(thickHalf, corners[7]),
-                new Vector3f(tNorm).mulAdd(-thickHalf, corners[4]), color, thickness, false, false, sprite);
+        strut(mesh, new Vector3f(tNorm).mulAdd(thickHalf, corners[0]),
+                new Vector3f(tNorm).mulAdd(-thickHalf, corners[3]), thickness, false, false, sprite);
+        strut(mesh, new Vector3f(tNorm).mulAdd(thickHalf, corners[1]),
+                new Vector3f(tNorm).mulAdd(-thickHalf, corners[6]), thickness, false, false, sprite);
+        strut(mesh, new Vector3f(tNorm).mulAdd(thickHalf, corners[2]),
+                new Vector3f(tNorm).mulAdd(-thickHalf, corners[5]), thickness, false, false, sprite);
+        strut(mesh, new Vector3f(tNorm).mulAdd(thickHalf, corners[7]),
+                new Vector3f(tNorm).mulAdd(-thickHalf, corners[4]), thickness, false, false, sprite);
     }
 
-    private static void strut(VertexConsumer consumer, Vector3f from, Vector3f to, int color, float thickness,
+    private static void strut(InWorldAnnotationMesh mesh, Vector3f from, Vector3f to, float thickness,
             boolean startCap, boolean endCap, TextureAtlasSprite sprite) {
         var norm = new Vector3f(to).sub(from).normalize();
         Vector3f prefUp;
@@ -206,7 +253,7 @@ private static void strut(VertexConsumer consumer, Vector3f from, Vector3f to, i
 
         if (startCap) {
             quad(
-                    consumer, downNorm, color,
+                    mesh, downNorm,
                     new Vector3f(from).add(up).sub(right),
                     new Vector3f(from).sub(up).sub(right),
                     new Vector3f(from).sub(up).add(right),
@@ -216,7 +263,7 @@ private static void strut(VertexConsumer consumer, Vector3f from, Vector3f to, i
 
         if (endCap) {
             quad(
-                    consumer, norm, color,
+                    mesh, norm,
                     new Vector3f(to).add(up).add(right),
                     new Vector3f(to).sub(up).add(right),
                     new Vector3f(to).sub(up).sub(right),
@@ -225,28 +272,28 @@ private static void strut(VertexConsumer consumer, Vector3f from, Vector3f to, i
         }
 
         quad(
-                consumer, leftNorm, color,
+                mesh, leftNorm,
                 new Vector3f(from).sub(right).add(up),
                 new Vector3f(to).sub(right).add(up),
                 new Vector3f(to).sub(right).sub(up),
                 new Vector3f(from).sub(right).sub(up),
                 sprite);
         quad(
-                consumer, rightNorm, color,
+                mesh, rightNorm,
                 new Vector3f(to).add(right).sub(up),
                 new Vector3f(to).add(right).add(up),
                 new Vector3f(from).add(right).add(up),
                 new Vector3f(from).add(right).sub(up),
                 sprite);
         quad(
-                consumer, upNorm, color,
+                mesh, upNorm,
                 new Vector3f(from).add(up).sub(right),
                 new Vector3f(from).add(up).add(right),
                 new Vector3f(to).add(up).add(right),
                 new Vector3f(to).add(up).sub(right),
                 sprite);
         quad(
-                consumer, downNorm, color,
+                mesh, downNorm,
                 new Vector3f(to).sub(up).sub(right),
                 new Vector3f(to).sub(up).add(right),
                 new Vector3f(from).sub(up).add(right),
@@ -254,7 +301,7 @@ private static void strut(VertexConsumer consumer, Vector3f from, Vector3f to, i
                 sprite);
     }
 
-    private static void quad(VertexConsumer consumer, Vector3f faceNormal, int color,
+    private static void quad(InWorldAnnotationMesh mesh, Vector3f faceNormal,
             Vector3f v1, Vector3f v2, Vector3f v3, Vector3f v4,
             TextureAtlasSprite sprite) {
         var d = Direction.getApproximateNearest(faceNormal.x, faceNormal.y, faceNormal.z);
@@ -264,25 +311,11 @@ private static void quad(VertexConsumer consumer, Vector3f faceNormal, int color
             case WEST, EAST -> 0.6F;
             default -> 1.0F;
         };
-        color = ARGB.multiply(
-                ARGB.color(255, (int) (shade * 255), (int) (shade * 255), (int) (shade * 255)),
-                color);
-
-        vertex(consumer, faceNormal, color, v1, sprite.getU0(), sprite.getV1());
-        vertex(consumer, faceNormal, color, v2, sprite.getU0(), sprite.getV0());
-        vertex(consumer, faceNormal, color, v3, sprite.getU1(), sprite.getV0());
-        vertex(consumer, faceNormal, color, v4, sprite.getU1(), sprite.getV1());
-    }
 
-    private static void vertex(VertexConsumer consumer,
-            Vector3f faceNormal,
-            int color,
-            Vector3f bottomLeft,
-            float u, float v) {
-        consumer.addVertex(bottomLeft.x, bottomLeft.y, bottomLeft.z)
-                .setColor(color)
-                .setUv(u, v)
-                .setLight(LightTexture.FULL_BRIGHT)
-                .setNormal(faceNormal.x(), faceNormal.y(), faceNormal.z());
+        mesh.addVertex(v1, faceNormal, sprite.getU0(), sprite.getV1());
+        mesh.addVertex(v2, faceNormal, sprite.getU0(), sprite.getV0());
+        mesh.addVertex(v3, faceNormal, sprite.getU1(), sprite.getV0());
+        mesh.addVertex(v4, faceNormal, sprite.getU1(), sprite.getV1());
+        mesh.endQuad(ARGB.color(255, (int) (shade * 255), (int) (shade * 255), (int) (shade * 255)));
     }
 }
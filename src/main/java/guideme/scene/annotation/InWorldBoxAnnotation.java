@@ -3,6 +3,7 @@
 import guideme.color.ColorValue;
 import java.util.OptionalDouble;
 import net.minecraft.core.BlockPos;
+import net.minecraft.world.phys.AABB;
 import org.apache.commons.lang3.tuple.Pair;
 import org.joml.Intersectionf;
 import org.joml.Matrix4f;
@@ -53,6 +54,13 @@ public OptionalDouble intersect(Vector3f rayOrigin, Vector3f rayDir) {
         return OptionalDouble.empty();
     }
 
+    @Override
+    public AABB getWorldBounds() {
+        return new AABB(
+                minCorner.x - thickness, minCorner.y - thickness, minCorner.z - thickness,
+                maxCorner.x + thickness, maxCorner.y + thickness, maxCorner.z + thickness);
+    }
+
     /**
      * Computes the screen bounding box for this highlighted box, given a view matrix to transform the corners of this
      * box in to screen space.
@@ -2,6 +2,7 @@
 
 import guideme.color.ColorValue;
 import java.util.OptionalDouble;
+import net.minecraft.world.phys.AABB;
 import org.apache.commons.lang3.tuple.Pair;
 import org.joml.Intersectionf;
 import org.joml.Matrix4f;
@@ -51,6 +52,18 @@ public OptionalDouble intersect(Vector3f rayOrigin, Vector3f rayDir) {
         return OptionalDouble.of(distanceFromOrigin);
     }
 
+    @Override
+    public AABB getWorldBounds() {
+        var halfThickness = thickness / 2;
+        return new AABB(
+                Math.min(from.x, to.x) - halfThickness,
+                Math.min(from.y, to.y) - halfThickness,
+                Math.min(from.z, to.z) - halfThickness,
+                Math.max(from.x, to.x) + halfThickness,
+                Math.max(from.y, to.y) + halfThickness,
+                Math.max(from.z, to.z) + halfThickness);
+    }
+
     /**
      * Computes the screen bounding box for this line, given a view matrix to transform the start and end of the line
      * into screen space. Since lines are extruded, we compute the bounds around the 8 corners around both end-points.
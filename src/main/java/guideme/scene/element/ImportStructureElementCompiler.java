@@ -3,6 +3,7 @@
 import guideme.compiler.IdUtils;
 import guideme.compiler.PageCompiler;
 import guideme.document.LytErrorSink;
+import guideme.internal.scene.CompactStructure;
 import guideme.libs.mdast.mdx.model.MdxJsxElementFields;
 import guideme.scene.GuidebookScene;
 import java.io.ByteArrayInputStream;
@@ -55,6 +56,17 @@ public void compile(GuidebookScene scene,
             return;
         }
 
+        // Compact structures are placed straight into the level without a structure template
+        if (CompactStructure.isCompactStructure(absStructureSrc.getPath())) {
+            try {
+                var blocks = scene.getLevel().registryAccess().lookupOrThrow(Registries.BLOCK);
+                CompactStructure.read(structureNbtData, blocks).placeInWorld(scene.getLevel(), BlockPos.ZERO, 0);
+            } catch (Exception e) {
+                errorSink.appendError(compiler, "Couldn't read structure: " + e.getMessage(), el);
+            }
+            return;
+        }
+
         CompoundTag compoundTag;
         try {
             if (absStructureSrc.getPath().toLowerCase(Locale.ROOT).endsWith(".snbt")) {
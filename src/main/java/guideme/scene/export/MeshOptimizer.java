@@ -0,0 +1,349 @@
+package guideme.scene.export;
+
+import com.mojang.blaze3d.vertex.VertexFormat;
+import com.mojang.blaze3d.vertex.VertexFormatElement;
+import guideme.flatbuffers.scene.ExpVertexElementType;
+import guideme.internal.scene.ExportedVertexFormats;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import net.minecraft.client.renderer.RenderType;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Vector3f;
+
+/**
+ * Shrinks the captured meshes before they are written to the scene file:
+ * <ul>
+ * <li>Meshes using the same render type are merged, so that each material is ideally drawn with a single call.</li>
+ * <li>Texture coordinates in [0,1] are quantized to 16-bit. If requested, positions are quantized to 16-bit relative
+ * to the bounds of the mesh as well, which readers have to support explicitly. Normals and colors already use 8-bit
+ * components and are kept.</li>
+ * <li>Identical vertices are welded, which mostly affects vertices shared by adjacent faces of the same texture.</li>
+ * <li>The result is split into meshes of at most {@link #MAX_VERTICES} vertices, so that 16-bit indices always
+ * suffice.</li>
+ * </ul>
+ * Only meshes made of independent triangles or quads with sequential vertices can be optimized. All other meshes are
+ * written as-is.
+ */
+final class MeshOptimizer {
+    /**
+     * WebGL 2 always treats the largest 16-bit index as a primitive restart, so it may not be used for a vertex.
+     */
+    static final int MAX_VERTICES = 0xFFFF;
+
+    private static final int QUANTIZED_MAX = 0xFFFF;
+
+    private MeshOptimizer() {
+    }
+
+    static boolean canOptimize(Mesh mesh) {
+        var mode = mesh.drawState().mode();
+        return mesh.indexBuffer() == null
+                && (mode == VertexFormat.Mode.QUADS || mode == VertexFormat.Mode.TRIANGLES);
+    }
+
+    /**
+     * Groups meshes with the same render type. Since the draw order of blended meshes matters, those are only merged
+     * with the immediately preceding mesh. Meshes that can't be optimized are always kept in a group of their own.
+     */
+    static List<List<Mesh>> groupByMaterial(List<Mesh> meshes) {
+        var groups = new ArrayList<List<Mesh>>();
+        var opaqueGroups = new IdentityHashMap<RenderType, List<Mesh>>();
+        List<Mesh> previousGroup = null;
+
+        for (var mesh : meshes) {
+            var renderType = mesh.renderType();
+            List<Mesh> group = null;
+            if (canOptimize(mesh)) {
+                if (renderType.getRenderPipeline().getBlendFunction().isPresent()) {
+                    if (previousGroup != null && previousGroup.getFirst().renderType() == renderType
+                            && canOptimize(previousGroup.getFirst())) {
+                        group = previousGroup;
+                    }
+                } else {
+                    group = opaqueGroups.get(renderType);
+                }
+            }
+
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.add(group);
+                if (canOptimize(mesh) && renderType.getRenderPipeline().getBlendFunction().isEmpty()) {
+                    opaqueGroups.put(renderType, group);
+                }
+            }
+            group.add(mesh);
+            previousGroup = group;
+        }
+
+        return groups;
+    }
+
+    /**
+     * Optimizes a group of meshes returned by {@link #groupByMaterial}, which must all be
+     * {@linkplain #canOptimize optimizable}.
+     *
+     * @param quantizePositions Whether positions may be quantized. Otherwise, they are written as floats.
+     */
+    static List<OptimizedMesh> optimize(List<Mesh> group, boolean quantizePositions) {
+        var renderType = group.getFirst().renderType();
+        var format = group.getFirst().drawState().format();
+        var mode = group.getFirst().drawState().mode();
+
+        // Gather the value ranges that decide how the vertices are quantized
+        var posMin = new Vector3f(Float.POSITIVE_INFINITY);
+        var posMax = new Vector3f(Float.NEGATIVE_INFINITY);
+        var uvInUnitRange = true;
+        var positionOffset = getElementOffset(format, VertexFormatElement.POSITION);
+        var uvOffset = getElementOffset(format, VertexFormatElement.UV0);
+        for (var mesh : group) {
+            var vb = mesh.vertexBuffer().duplicate().order(ByteOrder.nativeOrder());
+            for (int i = 0; i < mesh.drawState().vertexCount(); i++) {
+                var vertexStart = i * format.getVertexSize();
+                if (positionOffset != -1) {
+                    var x = vb.getFloat(vertexStart + positionOffset);
+                    var y = vb.getFloat(vertexStart + positionOffset + 4);
+                    var z = vb.getFloat(vertexStart + positionOffset + 8);
+                    posMin.set(Math.min(posMin.x, x), Math.min(posMin.y, y), Math.min(posMin.z, z));
+                    posMax.set(Math.max(posMax.x, x), Math.max(posMax.y, y), Math.max(posMax.z, z));
+                }
+                if (uvOffset != -1) {
+                    var u = vb.getFloat(vertexStart + uvOffset);
+                    var v = vb.getFloat(vertexStart + uvOffset + 4);
+                    uvInUnitRange &= u >= 0 && u <= 1 && v >= 0 && v <= 1;
+                }
+            }
+        }
+
+        quantizePositions &= positionOffset != -1 && posMin.isFinite() && posMax.isFinite();
+        var layout = VertexLayout.quantized(format, quantizePositions, uvInUnitRange);
+        var posScale = new Vector3f(posMax).sub(posMin);
+
+        var result = new ArrayList<OptimizedMesh>();
+        var chunk = new Chunk(layout);
+        var primitiveVertices = mode == VertexFormat.Mode.QUADS ? 4 : 3;
+        var primitive = new byte[primitiveVertices][];
+        for (var mesh : group) {
+            var vb = mesh.vertexBuffer().duplicate().order(ByteOrder.nativeOrder());
+            var vertexCount = mesh.drawState().vertexCount();
+            for (int first = 0; first + primitiveVertices <= vertexCount; first += primitiveVertices) {
+                for (int i = 0; i < primitiveVertices; i++) {
+                    primitive[i] = encodeVertex(format, layout, vb, first + i, quantizePositions ? posMin : null,
+                            posScale);
+                }
+
+                // Primitives are never split across meshes, so that quads can still be recovered from the triangles
+                if (!chunk.canAdd(primitive)) {
+                    result.add(chunk.build(renderType, quantizePositions, posMin, posScale));
+                    chunk = new Chunk(layout);
+                }
+
+                if (mode == VertexFormat.Mode.QUADS) {
+                    // Split quad (a, b, c, d) into (a, b, c) and (c, d, a)
+                    var a = chunk.addVertex(primitive[0]);
+                    var b = chunk.addVertex(primitive[1]);
+                    var c = chunk.addVertex(primitive[2]);
+                    var d = chunk.addVertex(primitive[3]);
+                    chunk.addIndices(a, b, c);
+                    chunk.addIndices(c, d, a);
+                } else {
+                    chunk.addIndices(chunk.addVertex(primitive[0]), chunk.addVertex(primitive[1]),
+                            chunk.addVertex(primitive[2]));
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            result.add(chunk.build(renderType, quantizePositions, posMin, posScale));
+        }
+        return result;
+    }
+
+    private static int getElementOffset(VertexFormat format, VertexFormatElement element) {
+        var offset = 0;
+        for (var formatElement : format.getElements()) {
+            if (formatElement == element) {
+                return offset;
+            }
+            offset += formatElement.byteSize();
+        }
+        return -1;
+    }
+
+    private static byte[] encodeVertex(VertexFormat format, VertexLayout layout, ByteBuffer vb, int vertex,
+            @Nullable Vector3f posMin, Vector3f posScale) {
+        var result = ByteBuffer.allocate(layout.vertexSize()).order(ByteOrder.LITTLE_ENDIAN);
+        var vertexStart = vertex * format.getVertexSize();
+        for (var element : layout.elements()) {
+            var src = vertexStart + element.sourceOffset();
+            var dst = element.offset();
+            if (element.source() == VertexFormatElement.POSITION && posMin != null) {
+                result.putShort(dst, quantize(vb.getFloat(src), posMin.x, posScale.x));
+                result.putShort(dst + 2, quantize(vb.getFloat(src + 4), posMin.y, posScale.y));
+                result.putShort(dst + 4, quantize(vb.getFloat(src + 8), posMin.z, posScale.z));
+            } else if (element.source() == VertexFormatElement.UV0 && element.type() == ExpVertexElementType.USHORT) {
+                result.putShort(dst, quantize(vb.getFloat(src), 0, 1));
+                result.putShort(dst + 2, quantize(vb.getFloat(src + 4), 0, 1));
+            } else {
+                for (int i = 0; i < element.byteSize(); i++) {
+                    result.put(dst + i, vb.get(src + i));
+                }
+            }
+        }
+        return result.array();
+    }
+
+    private static short quantize(float value, float min, float extent) {
+        if (extent <= 0) {
+            return 0;
+        }
+        var normalized = Math.clamp((value - min) / extent, 0f, 1f);
+        return (short) Math.round(normalized * QUANTIZED_MAX);
+    }
+
+    /**
+     * A mesh under construction, which welds identical vertices.
+     */
+    private static final class Chunk {
+        private final VertexLayout layout;
+        private final Object2IntOpenHashMap<ByteBuffer> vertexIndices = new Object2IntOpenHashMap<>();
+        private final ByteArrayOutputStream vertices = new ByteArrayOutputStream();
+        private final IntArrayList indices = new IntArrayList();
+
+        Chunk(VertexLayout layout) {
+            this.layout = layout;
+            vertexIndices.defaultReturnValue(-1);
+        }
+
+        boolean isEmpty() {
+            return indices.isEmpty();
+        }
+
+        boolean canAdd(byte[][] primitive) {
+            var newVertices = 0;
+            for (var vertex : primitive) {
+                if (!vertexIndices.containsKey(ByteBuffer.wrap(vertex))) {
+                    newVertices++;
+                }
+            }
+            return vertexIndices.size() + newVertices <= MAX_VERTICES;
+        }
+
+        int addVertex(byte[] vertex) {
+            var key = ByteBuffer.wrap(vertex);
+            var index = vertexIndices.getInt(key);
+            if (index == -1) {
+                index = vertexIndices.size();
+                vertexIndices.put(key, index);
+                vertices.writeBytes(vertex);
+            }
+            return index;
+        }
+
+        void addIndices(int a, int b, int c) {
+            indices.add(a);
+            indices.add(b);
+            indices.add(c);
+        }
+
+        OptimizedMesh build(RenderType renderType, boolean quantizedPositions, Vector3f posMin, Vector3f posScale) {
+            var indexBuffer = ByteBuffer.allocate(indices.size() * 2).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < indices.size(); i++) {
+                indexBuffer.putShort((short) indices.getInt(i));
+            }
+            indexBuffer.flip();
+
+            return new OptimizedMesh(
+                    renderType,
+                    layout,
+                    ByteBuffer.wrap(vertices.toByteArray()),
+                    indexBuffer,
+                    indices.size(),
+                    quantizedPositions ? new Vector3f(posMin) : null,
+                    quantizedPositions ? new Vector3f(posScale) : null);
+        }
+    }
+
+    /**
+     * An optimized mesh, made of triangles with 16-bit indices.
+     *
+     * @param positionOffset If positions are quantized, decoded positions are {@code offset + scale * position}.
+     */
+    record OptimizedMesh(RenderType renderType,
+            VertexLayout layout,
+            ByteBuffer vertexBuffer,
+            ByteBuffer indexBuffer,
+            int indexCount,
+            @Nullable Vector3f positionOffset,
+            @Nullable Vector3f positionScale) {
+    }
+
+    /**
+     * An element of the vertex layout written to the scene file.
+     *
+     * @param source       The element of the captured vertex format it was derived from.
+     * @param sourceOffset The offset of the source element within the captured vertices.
+     * @param type         One of {@link ExpVertexElementType}.
+     */
+    record LayoutElement(VertexFormatElement source,
+            int sourceOffset,
+            int type,
+            int offset,
+            int byteSize,
+            boolean normalized) {
+    }
+
+    /**
+     * The vertex layout written to the scene file. Elements are 4-byte aligned, as WebGL requires.
+     */
+    record VertexLayout(List<LayoutElement> elements, int vertexSize) {
+        /**
+         * The layout of vertices written as they were captured.
+         */
+        static VertexLayout of(VertexFormat format) {
+            var elements = new ArrayList<LayoutElement>();
+            var offset = 0;
+            for (var element : format.getElements()) {
+                if (element.usage() != VertexFormatElement.Usage.GENERIC) {
+                    elements.add(new LayoutElement(element, offset, ExportedVertexFormats.mapType(element.type()),
+                            offset, element.byteSize(), isNormalized(element)));
+                }
+                offset += element.byteSize();
+            }
+            return new VertexLayout(List.copyOf(elements), format.getVertexSize());
+        }
+
+        static VertexLayout quantized(VertexFormat format, boolean quantizePositions, boolean quantizeUv) {
+            var elements = new ArrayList<LayoutElement>();
+            var sourceOffset = 0;
+            var offset = 0;
+            for (var element : format.getElements()) {
+                if (element.usage() != VertexFormatElement.Usage.GENERIC) {
+                    LayoutElement layoutElement;
+                    if (element == VertexFormatElement.POSITION && quantizePositions
+                            || element == VertexFormatElement.UV0 && quantizeUv) {
+                        layoutElement = new LayoutElement(element, sourceOffset, ExpVertexElementType.USHORT, offset,
+                                element.count() * 2, true);
+                    } else {
+                        layoutElement = new LayoutElement(element, sourceOffset,
+                                ExportedVertexFormats.mapType(element.type()), offset, element.byteSize(),
+                                isNormalized(element));
+                    }
+                    elements.add(layoutElement);
+                    offset += (layoutElement.byteSize() + 3) & ~3;
+                }
+                sourceOffset += element.byteSize();
+            }
+            return new VertexLayout(List.copyOf(elements), offset);
+        }
+
+        private static boolean isNormalized(VertexFormatElement element) {
+            return element.usage() == VertexFormatElement.Usage.NORMAL
+                    || element.usage() == VertexFormatElement.Usage.COLOR;
+        }
+    }
+}
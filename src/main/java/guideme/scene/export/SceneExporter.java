@@ -19,10 +19,10 @@
 import guideme.flatbuffers.scene.ExpSampler;
 import guideme.flatbuffers.scene.ExpScene;
 import guideme.flatbuffers.scene.ExpTransparency;
-import guideme.flatbuffers.scene.ExpVertexElementType;
-import guideme.flatbuffers.scene.ExpVertexElementUsage;
+import guideme.flatbuffers.scene.ExpVec3;
 import guideme.flatbuffers.scene.ExpVertexFormat;
 import guideme.flatbuffers.scene.ExpVertexFormatElement;
+import guideme.internal.scene.ExportedVertexFormats;
 import guideme.internal.siteexport.CacheBusting;
 import guideme.internal.util.Platform;
 import guideme.scene.CameraSettings;
@@ -36,6 +36,7 @@
 import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
@@ -58,10 +59,32 @@
 public class SceneExporter {
     private static final Logger LOG = LoggerFactory.getLogger(SceneExporter.class);
 
+    /**
+     * The format version of scenes with float positions only.
+     */
+    public static final int FORMAT_VERSION = 0;
+
+    /**
+     * The format version of scenes that may contain meshes with quantized positions.
+     */
+    public static final int QUANTIZED_POSITIONS_FORMAT_VERSION = 1;
+
     private final ResourceExporter resourceExporter;
 
+    private final boolean quantizePositions;
+
     public SceneExporter(ResourceExporter resourceExporter) {
+        this(resourceExporter, false);
+    }
+
+    /**
+     * @param quantizePositions Write positions as 16-bit values relative to the bounds of each mesh. Only enable this
+     *                          if the reader of the exported scenes supports
+     *                          {@link #QUANTIZED_POSITIONS_FORMAT_VERSION}.
+     */
+    public SceneExporter(ResourceExporter resourceExporter, boolean quantizePositions) {
         this.resourceExporter = resourceExporter;
+        this.quantizePositions = quantizePositions;
     }
 
     public static boolean isAnimated(GuidebookScene scene) {
@@ -71,9 +94,8 @@ public static boolean isAnimated(GuidebookScene scene) {
     }
 
     private static Set<TextureAtlasSprite> getSprites(GuidebookScene scene) {
-        var level = scene.getLevel();
         var bufferSource = new MeshBuildingBufferSource();
-        GuidebookLevelRenderer.getInstance().renderContent(level, bufferSource);
+        GuidebookLevelRenderer.getInstance().renderContent(scene, bufferSource);
 
         return bufferSource.getMeshes().stream()
                 .flatMap(Mesh::getSprites)
@@ -81,8 +103,6 @@ private static Set<TextureAtlasSprite> getSprites(GuidebookScene scene) {
     }
 
     public byte[] export(GuidebookScene scene) {
-        var level = scene.getLevel();
-
         List<Mesh> meshes;
         try (var bufferSource = new MeshBuildingBufferSource()) {
 
@@ -93,7 +113,7 @@ public byte[] export(GuidebookScene scene) {
             RenderSystem.backupProjectionMatrix();
             RenderSystem.setProjectionMatrix(new Matrix4f(), ProjectionType.ORTHOGRAPHIC);
 
-            GuidebookLevelRenderer.getInstance().renderContent(level, bufferSource);
+            GuidebookLevelRenderer.getInstance().renderContent(scene, bufferSource);
 
             modelViewStack.popMatrix();
             RenderSystem.restoreProjectionMatrix();
@@ -105,15 +125,15 @@ public byte[] export(GuidebookScene scene) {
 
         int animatedTexturesOffset = writeAnimations(builder, meshes);
 
-        var vertexFormats = writeVertexFormats(meshes, builder);
         var materials = writeMaterials(meshes, builder);
-        var meshesOffset = writeMeshes(meshes, builder, vertexFormats, materials);
+        var meshesOffset = writeMeshes(meshes, builder, materials);
 
         ExpScene.startExpScene(builder);
         ExpScene.addMeshes(builder, meshesOffset);
         var cameraOffset = createCameraModel(scene.getCameraSettings(), builder);
         ExpScene.addCamera(builder, cameraOffset);
         ExpScene.addAnimatedTextures(builder, animatedTexturesOffset);
+        ExpScene.addFormatVersion(builder, quantizePositions ? QUANTIZED_POSITIONS_FORMAT_VERSION : FORMAT_VERSION);
 
         builder.finish(ExpScene.endExpScene(builder));
 
@@ -222,63 +242,33 @@ private int writeAnimatedTextureSprite(FlatBufferBuilder builder, TextureAtlasSp
                 framesOffset);
     }
 
-    private Map<VertexFormat, Integer> writeVertexFormats(List<Mesh> meshes, FlatBufferBuilder builder) {
-        var result = new IdentityHashMap<VertexFormat, Integer>();
-
-        for (var mesh : meshes) {
-            result.computeIfAbsent(mesh.drawState().format(), format -> writeVertexFormat(format, builder));
-        }
-
-        return result;
-    }
-
-    private int writeVertexFormat(VertexFormat format, FlatBufferBuilder builder) {
-
-        // Count relevant vertex formats
-        var count = (int) format.getElements().stream()
-                .filter(SceneExporter::isRelevant)
-                .count();
-
-        ExpVertexFormat.startElementsVector(builder, count);
+    private int writeVertexFormat(MeshOptimizer.VertexLayout layout, FlatBufferBuilder builder) {
+        var elements = layout.elements();
+        ExpVertexFormat.startElementsVector(builder, elements.size());
 
         // Vectors are written in reverse-order
-        var elements = format.getElements();
         for (int i = elements.size() - 1; i >= 0; i--) {
-            var offset = 0;
-            for (int j = 0; j < i; j++) {
-                offset += elements.get(j).byteSize();
-            }
-
             var element = elements.get(i);
-            if (isRelevant(element)) {
-                var normalized = element.usage() == VertexFormatElement.Usage.NORMAL
-                        || element.usage() == VertexFormatElement.Usage.COLOR;
-
-                ExpVertexFormatElement.createExpVertexFormatElement(
-                        builder,
-                        element.index(),
-                        mapType(element.type()),
-                        mapUsage(element.usage()),
-                        element.count(),
-                        offset,
-                        element.byteSize(),
-                        normalized);
-            }
+            ExpVertexFormatElement.createExpVertexFormatElement(
+                    builder,
+                    element.source().index(),
+                    element.type(),
+                    ExportedVertexFormats.mapUsage(element.source().usage()),
+                    element.source().count(),
+                    element.offset(),
+                    element.byteSize(),
+                    element.normalized());
         }
         var elementsOffset = builder.endVector();
 
         ExpVertexFormat.startExpVertexFormat(builder);
         ExpVertexFormat.addElements(builder, elementsOffset);
-        ExpVertexFormat.addVertexSize(builder, format.getVertexSize());
+        ExpVertexFormat.addVertexSize(builder, layout.vertexSize());
 
         return ExpVertexFormat.endExpVertexFormat(builder);
 
     }
 
-    private static boolean isRelevant(VertexFormatElement element) {
-        return element.usage() != VertexFormatElement.Usage.GENERIC;
-    }
-
     private Map<RenderType, Integer> writeMaterials(List<Mesh> meshes, FlatBufferBuilder builder) {
         var result = new IdentityHashMap<RenderType, Integer>();
 
@@ -373,51 +363,71 @@ private static int mapMode(VertexFormat.Mode mode) {
         };
     }
 
-    private static int mapUsage(VertexFormatElement.Usage usage) {
-        return switch (usage) {
-            case POSITION -> ExpVertexElementUsage.POSITION;
-            case NORMAL -> ExpVertexElementUsage.NORMAL;
-            case COLOR -> ExpVertexElementUsage.COLOR;
-            case UV -> ExpVertexElementUsage.UV;
-            case GENERIC -> throw new IllegalStateException("Should have been skipped");
-        };
-    }
-
-    private static int mapType(VertexFormatElement.Type type) {
-        return switch (type) {
-            case FLOAT -> ExpVertexElementType.FLOAT;
-            case UBYTE -> ExpVertexElementType.UBYTE;
-            case BYTE -> ExpVertexElementType.BYTE;
-            case USHORT -> ExpVertexElementType.USHORT;
-            case SHORT -> ExpVertexElementType.SHORT;
-            case UINT -> ExpVertexElementType.UINT;
-            case INT -> ExpVertexElementType.INT;
-        };
-    }
-
     private int writeMeshes(List<Mesh> meshes,
             FlatBufferBuilder builder,
-            Map<VertexFormat, Integer> vertexFormats,
             Map<RenderType, Integer> materials) {
         var writtenMeshes = new IntArrayList(meshes.size());
+        var vertexFormats = new HashMap<MeshOptimizer.VertexLayout, Integer>();
+        long capturedBytes = 0;
+        long writtenBytes = 0;
+
+        for (var group : MeshOptimizer.groupByMaterial(meshes)) {
+            for (var mesh : group) {
+                var drawState = mesh.drawState();
+                capturedBytes += mesh.vertexBuffer().remaining()
+                        + (long) drawState.indexCount() * VertexFormat.IndexType.least(drawState.vertexCount()).bytes;
+            }
 
-        for (var mesh : meshes) {
-            int vb = ExpMesh.createVertexBufferVector(builder, mesh.vertexBuffer());
-            var ibData = createIndexBuffer(mesh.drawState(), mesh.indexBuffer());
-            int ib = ExpMesh.createIndexBufferVector(builder, ibData.data);
-
-            ExpMesh.startExpMesh(builder);
-            ExpMesh.addVertexBuffer(builder, vb);
-            ExpMesh.addIndexBuffer(builder, ib);
-            ExpMesh.addIndexType(builder, mapIndexType(ibData.indexType));
-            ExpMesh.addIndexCount(builder, ibData.indexCount);
-            ExpMesh.addMaterial(builder, materials.get(mesh.renderType()));
-            ExpMesh.addVertexFormat(builder, vertexFormats.get(mesh.drawState().format()));
-            ExpMesh.addPrimitiveType(builder, mapMode(mesh.drawState().mode()));
-            writtenMeshes.add(ExpMesh.endExpMesh(builder));
+            if (!MeshOptimizer.canOptimize(group.getFirst())) {
+                // Such meshes are always in a group of their own
+                var mesh = group.getFirst();
+                var layout = MeshOptimizer.VertexLayout.of(mesh.drawState().format());
+                int vertexFormat = vertexFormats.computeIfAbsent(layout, l -> writeVertexFormat(l, builder));
+                int vb = ExpMesh.createVertexBufferVector(builder, mesh.vertexBuffer());
+                var ibData = createIndexBuffer(mesh.drawState(), mesh.indexBuffer());
+                int ib = ExpMesh.createIndexBufferVector(builder, ibData.data);
+                writtenBytes += mesh.vertexBuffer().capacity() + ibData.data.capacity();
+
+                ExpMesh.startExpMesh(builder);
+                ExpMesh.addVertexBuffer(builder, vb);
+                ExpMesh.addIndexBuffer(builder, ib);
+                ExpMesh.addIndexType(builder, mapIndexType(ibData.indexType));
+                ExpMesh.addIndexCount(builder, ibData.indexCount);
+                ExpMesh.addMaterial(builder, materials.get(mesh.renderType()));
+                ExpMesh.addVertexFormat(builder, vertexFormat);
+                ExpMesh.addPrimitiveType(builder, mapMode(mesh.drawState().mode()));
+                writtenMeshes.add(ExpMesh.endExpMesh(builder));
+                continue;
+            }
+
+            for (var mesh : MeshOptimizer.optimize(group, quantizePositions)) {
+                int vertexFormat = vertexFormats.computeIfAbsent(mesh.layout(), l -> writeVertexFormat(l, builder));
+                int vb = ExpMesh.createVertexBufferVector(builder, mesh.vertexBuffer());
+                int ib = ExpMesh.createIndexBufferVector(builder, mesh.indexBuffer());
+                writtenBytes += mesh.vertexBuffer().capacity() + mesh.indexBuffer().capacity();
+
+                ExpMesh.startExpMesh(builder);
+                ExpMesh.addVertexBuffer(builder, vb);
+                ExpMesh.addIndexBuffer(builder, ib);
+                ExpMesh.addIndexType(builder, ExpIndexElementType.USHORT);
+                ExpMesh.addIndexCount(builder, mesh.indexCount());
+                ExpMesh.addMaterial(builder, materials.get(mesh.renderType()));
+                ExpMesh.addVertexFormat(builder, vertexFormat);
+                ExpMesh.addPrimitiveType(builder, ExpPrimitiveType.TRIANGLES);
+                if (mesh.positionOffset() != null && mesh.positionScale() != null) {
+                    var offset = mesh.positionOffset();
+                    ExpMesh.addPositionOffset(builder, ExpVec3.createExpVec3(builder, offset.x, offset.y, offset.z));
+                    var scale = mesh.positionScale();
+                    ExpMesh.addPositionScale(builder, ExpVec3.createExpVec3(builder, scale.x, scale.y, scale.z));
+                }
+                writtenMeshes.add(ExpMesh.endExpMesh(builder));
+            }
         }
 
-        return ExpScene.createMeshesVector(builder, writtenMeshes.elements());
+        LOG.debug("Wrote {} captured meshes ({} bytes of vertices and indices) as {} meshes ({} bytes)",
+                meshes.size(), capturedBytes, writtenMeshes.size(), writtenBytes);
+
+        return ExpScene.createMeshesVector(builder, writtenMeshes.toIntArray());
     }
 
     private int mapIndexType(VertexFormat.IndexType indexType) {
@@ -0,0 +1,73 @@
+package guideme.scene.level;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.lighting.LevelLightEngine;
+
+/**
+ * Snapshot of the sky- and block-light levels in a box around the content of a {@link GuidebookLevel}. Each position
+ * stores both light levels packed into a single byte (sky light in the upper nibble).
+ * <p/>
+ * Positions outside the snapshot are treated as fully lit, which matches the default lighting of guidebook levels.
+ */
+final class BakedLighting {
+    private static final int FULL_BRIGHT = 15;
+
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final byte[] light;
+
+    private BakedLighting(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, byte[] light) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.light = light;
+    }
+
+    /**
+     * Copies the light levels from the light engine for all positions between min (inclusive) and max (exclusive).
+     * The light engine must not have any pending work.
+     */
+    static BakedLighting capture(LevelLightEngine lightEngine, BlockPos min, BlockPos max) {
+        var sizeX = max.getX() - min.getX();
+        var sizeY = max.getY() - min.getY();
+        var sizeZ = max.getZ() - min.getZ();
+        var light = new byte[sizeX * sizeY * sizeZ];
+
+        var skyLight = lightEngine.getLayerListener(LightLayer.SKY);
+        var blockLight = lightEngine.getLayerListener(LightLayer.BLOCK);
+        var pos = new BlockPos.MutableBlockPos();
+        var i = 0;
+        for (var y = 0; y < sizeY; y++) {
+            for (var z = 0; z < sizeZ; z++) {
+                for (var x = 0; x < sizeX; x++) {
+                    pos.setWithOffset(min, x, y, z);
+                    var sky = skyLight.getLightValue(pos);
+                    var block = blockLight.getLightValue(pos);
+                    light[i++] = (byte) (sky << 4 | block);
+                }
+            }
+        }
+
+        return new BakedLighting(min.getX(), min.getY(), min.getZ(), sizeX, sizeY, sizeZ, light);
+    }
+
+    int getBrightness(LightLayer layer, BlockPos pos) {
+        var x = pos.getX() - minX;
+        var y = pos.getY() - minY;
+        var z = pos.getZ() - minZ;
+        if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) {
+            return FULL_BRIGHT;
+        }
+
+        var packed = light[(y * sizeZ + z) * sizeX + x];
+        return layer == LightLayer.SKY ? (packed >> 4) & 0xF : packed & 0xF;
+    }
+}
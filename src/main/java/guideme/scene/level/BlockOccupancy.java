@@ -0,0 +1,62 @@
+package guideme.scene.level;
+
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.core.BlockPos;
+
+/**
+ * A bitset marking the filled (non-air) blocks in a box around the content of a {@link GuidebookLevel}. Lookups are
+ * cheaper than checking the set of filled blocks, which matters when rays are traversed through mostly empty space.
+ */
+final class BlockOccupancy {
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final long[] bits;
+
+    private BlockOccupancy(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, long[] bits) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.bits = bits;
+    }
+
+    /**
+     * Marks all filled blocks between min (inclusive) and max (exclusive), which must enclose all filled blocks.
+     */
+    static BlockOccupancy capture(LongSet filledBlocks, BlockPos min, BlockPos max) {
+        var sizeX = max.getX() - min.getX();
+        var sizeY = max.getY() - min.getY();
+        var sizeZ = max.getZ() - min.getZ();
+        var bits = new long[(int) (((long) sizeX * sizeY * sizeZ + 63) / 64)];
+
+        var it = filledBlocks.iterator();
+        while (it.hasNext()) {
+            var packedPos = it.nextLong();
+            var x = BlockPos.getX(packedPos) - min.getX();
+            var y = BlockPos.getY(packedPos) - min.getY();
+            var z = BlockPos.getZ(packedPos) - min.getZ();
+            var index = (y * sizeZ + z) * sizeX + x;
+            bits[index >>> 6] |= 1L << index;
+        }
+
+        return new BlockOccupancy(min.getX(), min.getY(), min.getZ(), sizeX, sizeY, sizeZ, bits);
+    }
+
+    boolean contains(BlockPos pos) {
+        var x = pos.getX() - minX;
+        var y = pos.getY() - minY;
+        var z = pos.getZ() - minZ;
+        if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) {
+            return false;
+        }
+
+        var index = (y * sizeZ + z) * sizeX + x;
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+}
@@ -0,0 +1,134 @@
+package guideme.scene.level;
+
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import net.minecraft.core.BlockPos;
+
+/**
+ * The filled blocks of a {@link GuidebookLevel} that can be seen from outside the level. Empty space is flood filled
+ * starting outside the bounds of the level, and only passes through blocks that don't fully occlude their neighbors.
+ * Blocks reached by the fill, as well as occluding blocks next to it, are visible. Everything else is enclosed and
+ * can't be seen from any camera position outside the level bounds.
+ */
+final class ExteriorVisibility {
+    private final int revision;
+
+    // Bounds of the flood fill, which includes a one block margin around the blocks of the level
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final long[] visible;
+
+    private ExteriorVisibility(int revision, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ,
+            long[] visible) {
+        this.revision = revision;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.visible = visible;
+    }
+
+    /**
+     * @param min Minimum (inclusive) of the blocks in the level.
+     * @param max Maximum (exclusive) of the blocks in the level.
+     */
+    static ExteriorVisibility compute(GuidebookLevel level, BlockPos min, BlockPos max) {
+        var originX = min.getX() - 1;
+        var originY = min.getY() - 1;
+        var originZ = min.getZ() - 1;
+        var sizeX = max.getX() - min.getX() + 2;
+        var sizeY = max.getY() - min.getY() + 2;
+        var sizeZ = max.getZ() - min.getZ() + 2;
+        var cellCount = sizeX * sizeY * sizeZ;
+
+        var occluding = new long[(cellCount + 63) / 64];
+        var it = level.getFilledBlocks().iterator();
+        while (it.hasNext()) {
+            var pos = it.next();
+            if (level.getBlockState(pos).isSolidRender()) {
+                set(occluding, ((pos.getY() - originY) * sizeZ + (pos.getZ() - originZ)) * sizeX
+                        + (pos.getX() - originX));
+            }
+        }
+
+        // The margin surrounds all blocks, so filling from one of its corners reaches all of the outside
+        var reached = new long[occluding.length];
+        var visible = new long[occluding.length];
+        var queue = new IntArrayFIFOQueue();
+        set(reached, 0);
+        queue.enqueue(0);
+        var strideY = sizeX * sizeZ;
+        while (!queue.isEmpty()) {
+            var index = queue.dequeueInt();
+            set(visible, index);
+
+            var x = index % sizeX;
+            var z = (index / sizeX) % sizeZ;
+            var y = index / strideY;
+            if (x > 0) {
+                visit(index - 1, occluding, reached, visible, queue);
+            }
+            if (x < sizeX - 1) {
+                visit(index + 1, occluding, reached, visible, queue);
+            }
+            if (z > 0) {
+                visit(index - sizeX, occluding, reached, visible, queue);
+            }
+            if (z < sizeZ - 1) {
+                visit(index + sizeX, occluding, reached, visible, queue);
+            }
+            if (y > 0) {
+                visit(index - strideY, occluding, reached, visible, queue);
+            }
+            if (y < sizeY - 1) {
+                visit(index + strideY, occluding, reached, visible, queue);
+            }
+        }
+
+        return new ExteriorVisibility(level.getRevision(), originX, originY, originZ, sizeX, sizeY, sizeZ, visible);
+    }
+
+    private static void visit(int index, long[] occluding, long[] reached, long[] visible, IntArrayFIFOQueue queue) {
+        if (get(reached, index)) {
+            return;
+        }
+        set(reached, index);
+        if (get(occluding, index)) {
+            // The side facing the fill can be seen, but the fill can't pass through the block
+            set(visible, index);
+        } else {
+            queue.enqueue(index);
+        }
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * @return The {@linkplain GuidebookLevel#getRevision() revision} of the level this was computed for.
+     */
+    int getRevision() {
+        return revision;
+    }
+
+    boolean isVisible(BlockPos pos) {
+        var x = pos.getX() - minX;
+        var y = pos.getY() - minY;
+        var z = pos.getZ() - minZ;
+        if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) {
+            return true;
+        }
+
+        return get(visible, (y * sizeZ + z) * sizeX + x);
+    }
+}
@@ -20,12 +20,13 @@ private GuidebookLevel getGuidebookLevel() {
     @Nullable
     public BlockState setBlockState(BlockPos pos, BlockState state, int flags) {
         getGuidebookLevel().prepareLighting(pos);
+        getGuidebookLevel().markChanged();
 
         var result = super.setBlockState(pos, state, flags);
         if (state.isAir()) {
             getGuidebookLevel().removeFilledBlock(pos);
         } else {
-            getGuidebookLevel().addFilledBlock(pos);
+            getGuidebookLevel().addFilledBlock(pos, state);
         }
         return result;
     }
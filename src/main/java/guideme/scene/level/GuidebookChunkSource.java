@@ -16,13 +16,33 @@ class GuidebookChunkSource extends ChunkSource {
 
     private final Long2ObjectMap<GuidebookChunk> chunks = new Long2ObjectOpenHashMap<>();
 
-    private final LevelLightEngine lightEngine;
+    private LevelLightEngine lightEngine;
 
     public GuidebookChunkSource(GuidebookLevel level) {
         this.level = level;
         this.lightEngine = new LevelLightEngine(this, true, true);
     }
 
+    /**
+     * Drops all chunks and lighting data.
+     */
+    void reset() {
+        chunks.clear();
+        lightEngine = new LevelLightEngine(this, true, true);
+    }
+
+    /**
+     * Creates all chunks in the given range (inclusive) that don't exist yet, so that {@link #getChunk} no longer
+     * modifies the chunk map when called for positions in that range.
+     */
+    void createChunks(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        for (var chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (var chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                getChunk(chunkX, chunkZ, ChunkStatus.FULL, true);
+            }
+        }
+    }
+
     @Nullable
     @Override
     public ChunkAccess getChunk(int chunkX, int chunkZ, ChunkStatus requiredStatus, boolean load) {
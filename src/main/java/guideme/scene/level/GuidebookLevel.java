@@ -2,6 +2,8 @@
 
 import guideme.internal.GuideME;
 import guideme.internal.util.Platform;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
 import java.util.Arrays;
@@ -11,6 +13,7 @@
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import net.minecraft.Util;
@@ -67,30 +70,91 @@
 import net.neoforged.neoforge.model.data.ModelData;
 import net.neoforged.neoforge.model.data.ModelDataManager;
 import org.jetbrains.annotations.Nullable;
+import org.joml.Vector3f;
 
 public class GuidebookLevel extends Level {
 
     private static final ResourceKey<Level> LEVEL_ID = ResourceKey.create(Registries.DIMENSION,
             GuideME.makeId("guidebook"));
 
+    /**
+     * Scenes whose light snapshot would exceed this many positions keep querying the light engine directly.
+     */
+    private static final long MAX_BAKED_LIGHTING_VOLUME = 4 * 1024 * 1024;
+
+    /**
+     * Scenes larger than this fall back to the set of filled blocks for occupancy checks.
+     */
+    private static final long MAX_OCCUPANCY_VOLUME = 16 * 1024 * 1024;
+
     private final TransientEntitySectionManager<Entity> entityStorage = new TransientEntitySectionManager<>(
             Entity.class, new EntityCallbacks());
 
-    private final ChunkSource chunkSource = new GuidebookChunkSource(this);
+    private final GuidebookChunkSource chunkSource = new GuidebookChunkSource(this);
     private final Holder<Biome> biome;
     private final RegistryAccess registryAccess;
     private final LongSet filledBlocks = new LongOpenHashSet();
+    /**
+     * Bounds of {@link #filledBlocks} (max exclusive), maintained incrementally while blocks are added.
+     */
+    private int blockMinX = Integer.MAX_VALUE;
+    private int blockMinY = Integer.MAX_VALUE;
+    private int blockMinZ = Integer.MAX_VALUE;
+    private int blockMaxX = Integer.MIN_VALUE;
+    private int blockMaxY = Integer.MIN_VALUE;
+    private int blockMaxZ = Integer.MIN_VALUE;
+    private boolean blockBoundsValid = true;
+    /**
+     * Bounds including entities, computed lazily after the content of the level changed. Entities can move without
+     * the level being notified, so these are only reused while the level contains no entities. The bounds of the
+     * blocks themselves are always maintained incrementally.
+     */
+    @Nullable
+    private Bounds cachedBounds;
+    @Nullable
+    private Vector3f cachedCenter;
+    /**
+     * Built lazily for {@link #isFilledBlock} after the content of the level changed.
+     */
+    @Nullable
+    private BlockOccupancy occupancy;
+    private boolean occupancyDirty = true;
+    private boolean cullEnclosedBlocks = true;
+    /**
+     * Computed by {@link #updateExteriorVisibility()}, and read by renderers on other threads.
+     */
+    @Nullable
+    private volatile ExteriorVisibility exteriorVisibility;
     /**
      * Sections for which we prepared lighting.
      */
     private final LongSet litSections = new LongOpenHashSet();
     private final DataLayer defaultDataLayer;
+    /**
+     * Set whenever blocks or entities change, and cleared when the lighting is baked again.
+     */
+    private boolean lightingDirty = true;
+    @Nullable
+    private BakedLighting bakedLighting;
+    private int revision;
+    /**
+     * Number of tasks that are currently reading this level on other threads.
+     */
+    private final AtomicInteger backgroundReads = new AtomicInteger();
+    @Nullable
+    private volatile Long2ObjectMap<ModelData> modelDataSnapshot;
+    private volatile int modelDataSnapshotRevision;
 
     private final TickRateManager tickRateManager = new TickRateManager();
     private final ClientLevel.ClientLevelData clientLevelData;
-    private final DeltaTracker.Timer tracker = new DeltaTracker.Timer(20.0F, 0L, def -> def);
+    private DeltaTracker.Timer tracker = new DeltaTracker.Timer(20.0F, 0L, def -> def);
     private float partialTick;
-    private final ModelDataManager modelDataManager = new ModelDataManager(this);
+    private ModelDataManager modelDataManager = new ModelDataManager(this);
+    /**
+     * Block entities register tickers with the level that can't be removed again, and entities live in their own
+     * storage. Levels that contained either are not reused by {@link GuidebookLevelPool}.
+     */
+    private boolean recyclable = true;
 
     public GuidebookLevel() {
         this(Platform.getClientRegistryAccess());
@@ -122,50 +186,218 @@ private GuidebookLevel(ClientLevel.ClientLevelData levelData, RegistryAccess reg
     }
 
     public Bounds getBounds() {
-        if (filledBlocks.isEmpty()) {
-            return new Bounds(BlockPos.ZERO, BlockPos.ZERO);
+        if (cachedBounds == null || hasEntities()) {
+            updateBoundsCache();
         }
+        return cachedBounds;
+    }
 
-        var min = new BlockPos.MutableBlockPos(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
-        var max = new BlockPos.MutableBlockPos(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE);
-        var cur = new BlockPos.MutableBlockPos();
+    /**
+     * @return The center of the box enclosing all blocks and entities. In contrast to {@link #getBounds()}, the
+     *         bounding boxes of entities are not rounded to block positions.
+     */
+    public Vector3f getCenter() {
+        if (cachedCenter == null || hasEntities()) {
+            updateBoundsCache();
+        }
+        return new Vector3f(cachedCenter);
+    }
 
-        filledBlocks.forEach(packedPos -> {
-            cur.set(packedPos);
-            min.setX(Math.min(min.getX(), cur.getX()));
-            min.setY(Math.min(min.getY(), cur.getY()));
-            min.setZ(Math.min(min.getZ(), cur.getZ()));
+    private void updateBoundsCache() {
+        if (!blockBoundsValid) {
+            recomputeBlockBounds();
+        }
 
-            max.setX(Math.max(max.getX(), cur.getX() + 1));
-            max.setY(Math.max(max.getY(), cur.getY() + 1));
-            max.setZ(Math.max(max.getZ(), cur.getZ() + 1));
-        });
+        var min = new Vector3f(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+        var max = new Vector3f(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+        if (!filledBlocks.isEmpty()) {
+            min.set(blockMinX, blockMinY, blockMinZ);
+            max.set(blockMaxX, blockMaxY, blockMaxZ);
+        }
 
+        var boundsMin = new BlockPos.MutableBlockPos(blockMinX, blockMinY, blockMinZ);
+        var boundsMax = new BlockPos.MutableBlockPos(blockMaxX, blockMaxY, blockMaxZ);
         for (var entity : getEntitiesForRendering()) {
             var bounds = entity.getBoundingBox();
 
-            min.setX(Math.min(min.getX(), (int) bounds.minX));
-            min.setY(Math.min(min.getY(), (int) bounds.minY));
-            min.setZ(Math.min(min.getZ(), (int) bounds.minZ));
+            boundsMin.setX(Math.min(boundsMin.getX(), (int) bounds.minX));
+            boundsMin.setY(Math.min(boundsMin.getY(), (int) bounds.minY));
+            boundsMin.setZ(Math.min(boundsMin.getZ(), (int) bounds.minZ));
 
-            max.setX(Math.max(max.getX(), (int) Math.ceil(bounds.maxX)));
-            max.setY(Math.max(max.getY(), (int) Math.ceil(bounds.maxY)));
-            max.setZ(Math.max(max.getZ(), (int) Math.ceil(bounds.maxZ)));
+            boundsMax.setX(Math.max(boundsMax.getX(), (int) Math.ceil(bounds.maxX)));
+            boundsMax.setY(Math.max(boundsMax.getY(), (int) Math.ceil(bounds.maxY)));
+            boundsMax.setZ(Math.max(boundsMax.getZ(), (int) Math.ceil(bounds.maxZ)));
+
+            min.set(Math.min(min.x, (float) bounds.minX),
+                    Math.min(min.y, (float) bounds.minY),
+                    Math.min(min.z, (float) bounds.minZ));
+            max.set(Math.max(max.x, (float) bounds.maxX),
+                    Math.max(max.y, (float) bounds.maxY),
+                    Math.max(max.z, (float) bounds.maxZ));
         }
 
-        return new Bounds(min, max);
+        if (filledBlocks.isEmpty()) {
+            cachedBounds = new Bounds(BlockPos.ZERO, BlockPos.ZERO);
+        } else {
+            cachedBounds = new Bounds(boundsMin.immutable(), boundsMax.immutable());
+        }
+        cachedCenter = min.add(max).div(2);
+    }
+
+    private boolean hasEntities() {
+        return getEntitiesForRendering().iterator().hasNext();
+    }
+
+    private void recomputeBlockBounds() {
+        clearBlockBounds();
+        var cur = new BlockPos.MutableBlockPos();
+        filledBlocks.forEach(packedPos -> {
+            cur.set(packedPos);
+            includeInBlockBounds(cur);
+        });
+        blockBoundsValid = true;
+    }
+
+    private void clearBlockBounds() {
+        blockMinX = blockMinY = blockMinZ = Integer.MAX_VALUE;
+        blockMaxX = blockMaxY = blockMaxZ = Integer.MIN_VALUE;
+    }
+
+    private void includeInBlockBounds(BlockPos pos) {
+        blockMinX = Math.min(blockMinX, pos.getX());
+        blockMinY = Math.min(blockMinY, pos.getY());
+        blockMinZ = Math.min(blockMinZ, pos.getZ());
+        blockMaxX = Math.max(blockMaxX, pos.getX() + 1);
+        blockMaxY = Math.max(blockMaxY, pos.getY() + 1);
+        blockMaxZ = Math.max(blockMaxZ, pos.getZ() + 1);
+    }
+
+    private void invalidateBoundsCache() {
+        cachedBounds = null;
+        cachedCenter = null;
     }
 
     public boolean isFilledBlock(BlockPos blockPos) {
+        if (occupancyDirty) {
+            var bounds = getBounds();
+            var volume = (long) (bounds.max().getX() - bounds.min().getX())
+                    * (bounds.max().getY() - bounds.min().getY())
+                    * (bounds.max().getZ() - bounds.min().getZ());
+            occupancy = volume <= MAX_OCCUPANCY_VOLUME
+                    ? BlockOccupancy.capture(filledBlocks, bounds.min(), bounds.max())
+                    : null;
+            occupancyDirty = false;
+        }
+
+        if (occupancy != null) {
+            return occupancy.contains(blockPos);
+        }
         return filledBlocks.contains(blockPos.asLong());
     }
 
+    /**
+     * Sets whether blocks that are fully enclosed by other blocks are skipped when rendering the level. Culling has to
+     * be disabled for scenes whose inside can become visible, i.e. because the camera clips into the structure.
+     */
+    public void setCullEnclosedBlocks(boolean cullEnclosedBlocks) {
+        if (this.cullEnclosedBlocks != cullEnclosedBlocks) {
+            this.cullEnclosedBlocks = cullEnclosedBlocks;
+            // Compiled meshes have to be rebuilt
+            markChanged();
+        }
+    }
+
+    public boolean isCullEnclosedBlocks() {
+        return cullEnclosedBlocks;
+    }
+
+    /**
+     * Computes which blocks can be seen from outside the level, if {@linkplain #setCullEnclosedBlocks enclosed blocks
+     * are culled}. Does nothing if the level didn't change since the last call. Like {@link #bakeLighting()}, this has
+     * to be called before the level is rendered on another thread.
+     */
+    public void updateExteriorVisibility() {
+        var visibility = exteriorVisibility;
+        if (!cullEnclosedBlocks || !hasFilledBlocks() || visibility != null && visibility.getRevision() == revision) {
+            return;
+        }
+
+        // Include the margin the flood fill needs around the blocks
+        var bounds = getBounds();
+        var volume = (long) (bounds.max().getX() - bounds.min().getX() + 2)
+                * (bounds.max().getY() - bounds.min().getY() + 2)
+                * (bounds.max().getZ() - bounds.min().getZ() + 2);
+        if (volume <= MAX_OCCUPANCY_VOLUME) {
+            exteriorVisibility = ExteriorVisibility.compute(this, bounds.min(), bounds.max());
+        }
+    }
+
+    /**
+     * @return False if the block at the given position is enclosed by other blocks and can't be seen from outside the
+     *         level. If the visibility is not {@linkplain #updateExteriorVisibility() up to date}, all blocks are
+     *         considered visible.
+     */
+    public boolean isVisibleFromOutside(BlockPos pos) {
+        if (!cullEnclosedBlocks) {
+            return true;
+        }
+        var visibility = exteriorVisibility;
+        return visibility == null || visibility.getRevision() != revision || visibility.isVisible(pos);
+    }
+
     void removeFilledBlock(BlockPos pos) {
-        filledBlocks.remove(pos.asLong());
+        if (filledBlocks.remove(pos.asLong())) {
+            // Only removing a block on the boundary can shrink the bounds, which requires a full recompute
+            if (pos.getX() == blockMinX || pos.getY() == blockMinY || pos.getZ() == blockMinZ
+                    || pos.getX() + 1 == blockMaxX || pos.getY() + 1 == blockMaxY || pos.getZ() + 1 == blockMaxZ) {
+                blockBoundsValid = false;
+            }
+            invalidateBoundsCache();
+        }
     }
 
-    void addFilledBlock(BlockPos pos) {
-        filledBlocks.add(pos.asLong());
+    void addFilledBlock(BlockPos pos, BlockState state) {
+        if (filledBlocks.add(pos.asLong())) {
+            if (blockBoundsValid) {
+                includeInBlockBounds(pos);
+            }
+            invalidateBoundsCache();
+        }
+        if (state.hasBlockEntity()) {
+            recyclable = false;
+        }
+    }
+
+    /**
+     * @return True if this level never contained block entities or entities and can be reset to an empty state.
+     */
+    boolean isRecyclable() {
+        return recyclable;
+    }
+
+    /**
+     * Clears all blocks and lighting from this level and restores it to the state of a freshly constructed level.
+     * Only valid for {@linkplain #isRecyclable() recyclable} levels.
+     */
+    void reset() {
+        if (!recyclable) {
+            throw new IllegalStateException("Cannot reset a level that contained block entities or entities");
+        }
+
+        chunkSource.reset();
+        filledBlocks.clear();
+        clearBlockBounds();
+        blockBoundsValid = true;
+        invalidateBoundsCache();
+        litSections.clear();
+        cullEnclosedBlocks = true;
+        markChanged();
+        modelDataManager = new ModelDataManager(this);
+        modelDataSnapshot = null;
+        tracker = new DeltaTracker.Timer(20.0F, 0L, def -> def);
+        partialTick = 0;
+        clientLevelData.setGameTime(0);
+        clientLevelData.setDayTime(6000);
     }
 
     /**
@@ -193,6 +425,72 @@ public void prepareLighting(BlockPos pos) {
         });
     }
 
+    /**
+     * Called whenever blocks or entities in this level change.
+     */
+    void markChanged() {
+        revision++;
+        lightingDirty = true;
+        bakedLighting = null;
+        invalidateBoundsCache();
+        occupancy = null;
+        occupancyDirty = true;
+    }
+
+    /**
+     * @return A counter that changes whenever blocks or entities in this level change. Renderers can use this to
+     *         detect when cached data derived from the level content has to be rebuilt.
+     */
+    public int getRevision() {
+        return revision;
+    }
+
+    /**
+     * Runs all pending light updates and snapshots the resulting light levels, so that rendering no longer has to
+     * query the light engine. Does nothing if no blocks or entities changed since the lighting was last baked.
+     */
+    public void bakeLighting() {
+        if (!lightingDirty) {
+            return;
+        }
+
+        var lightEngine = getLightEngine();
+        while (lightEngine.hasLightWork()) {
+            lightEngine.runLightUpdates();
+        }
+
+        // Include a one block margin, since faces of the outermost blocks sample light from their neighbors
+        var bounds = getBounds();
+        var min = bounds.min().offset(-1, -1, -1);
+        var max = bounds.max().offset(1, 1, 1);
+        var volume = (long) (max.getX() - min.getX()) * (max.getY() - min.getY()) * (max.getZ() - min.getZ());
+        if (volume <= MAX_BAKED_LIGHTING_VOLUME) {
+            bakedLighting = BakedLighting.capture(lightEngine, min, max);
+        } else {
+            bakedLighting = null;
+        }
+        lightingDirty = false;
+    }
+
+    @Override
+    public int getBrightness(LightLayer lightType, BlockPos pos) {
+        var baked = bakedLighting;
+        if (baked != null) {
+            return baked.getBrightness(lightType, pos);
+        }
+        return super.getBrightness(lightType, pos);
+    }
+
+    @Override
+    public int getRawBrightness(BlockPos pos, int amount) {
+        var baked = bakedLighting;
+        if (baked != null) {
+            var skyLight = baked.getBrightness(LightLayer.SKY, pos) - amount;
+            return Math.max(baked.getBrightness(LightLayer.BLOCK, pos), skyLight);
+        }
+        return super.getRawBrightness(pos, amount);
+    }
+
     public record Bounds(BlockPos min, BlockPos max) {
     }
 
@@ -209,8 +507,63 @@ public float getPartialTick() {
         return partialTick;
     }
 
+    /**
+     * Captures the current model data of all block entities, so that block models can be built on other threads
+     * without going through the {@link ModelDataManager}. The snapshot is used until the level changes.
+     */
+    public void snapshotModelData() {
+        var snapshot = new Long2ObjectOpenHashMap<ModelData>();
+        for (var blockEntity : getBlockEntities()) {
+            var pos = blockEntity.getBlockPos();
+            var modelData = modelDataManager.getAt(pos);
+            if (modelData != null) {
+                snapshot.put(pos.asLong(), modelData);
+            }
+        }
+        modelDataSnapshot = snapshot;
+        modelDataSnapshotRevision = revision;
+    }
+
+    /**
+     * Prepares this level to be read by a task on another thread, which has to call {@link #endBackgroundRead()} once
+     * it is done. Chunks are otherwise created lazily when they are first accessed, so all chunks covering the filled
+     * blocks and their neighbors are created here, on the owning thread. The level is not reset by
+     * {@link GuidebookLevelPool} while it is being read.
+     */
+    public void beginBackgroundRead() {
+        if (!filledBlocks.isEmpty()) {
+            if (!blockBoundsValid) {
+                recomputeBlockBounds();
+            }
+            chunkSource.createChunks(
+                    SectionPos.blockToSectionCoord(blockMinX) - 1,
+                    SectionPos.blockToSectionCoord(blockMinZ) - 1,
+                    SectionPos.blockToSectionCoord(blockMaxX - 1) + 1,
+                    SectionPos.blockToSectionCoord(blockMaxZ - 1) + 1);
+        }
+        backgroundReads.incrementAndGet();
+    }
+
+    /**
+     * Ends a read started with {@link #beginBackgroundRead()}. Can be called from any thread.
+     */
+    public void endBackgroundRead() {
+        backgroundReads.decrementAndGet();
+    }
+
+    /**
+     * @return True while tasks on other threads are reading this level.
+     */
+    boolean isReadInBackground() {
+        return backgroundReads.get() > 0;
+    }
+
     @Override
     public ModelData getModelData(BlockPos pos) {
+        var snapshot = modelDataSnapshot;
+        if (snapshot != null && modelDataSnapshotRevision == revision) {
+            return snapshot.getOrDefault(pos.asLong(), ModelData.EMPTY);
+        }
         return modelDataManager.getAt(pos);
     }
 
@@ -263,7 +616,9 @@ public Iterable<Entity> getEntitiesForRendering() {
 
     public void addEntity(Entity entity) {
         this.removeEntity(entity.getId(), Entity.RemovalReason.DISCARDED);
+        this.recyclable = false;
         this.entityStorage.addEntity(entity);
+        markChanged();
         entity.onAddedToLevel();
         prepareLighting(entity.getOnPos());
     }
@@ -273,6 +628,7 @@ public void removeEntity(int entityId, Entity.RemovalReason reason) {
         if (entity != null) {
             entity.setRemoved(reason);
             entity.onClientRemoval();
+            invalidateBoundsCache();
         }
     }
 
@@ -0,0 +1,65 @@
+package guideme.scene.level;
+
+import guideme.internal.util.Platform;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Recycles {@link GuidebookLevel} instances across scenes and page compiles to avoid setting up a new level (chunk
+ * source, light engine, entity storage, etc.) for every game scene.
+ * <p/>
+ * Levels are only pooled if they never contained block entities or entities, since those leave state behind in the
+ * level that can't be cleared. Levels that are still being read by a background task (i.e. a mesh build) are not pooled
+ * either, since resetting them would modify them while they are being read.
+ */
+public final class GuidebookLevelPool {
+    private static final int MAX_POOLED_LEVELS = 16;
+
+    private static final Deque<GuidebookLevel> pool = new ArrayDeque<>();
+
+    private GuidebookLevelPool() {
+    }
+
+    /**
+     * Returns an empty level for the current client registries, reusing a previously released level if possible.
+     */
+    public static synchronized GuidebookLevel acquire() {
+        var registryAccess = Platform.getClientRegistryAccess();
+
+        GuidebookLevel level;
+        while ((level = pool.pollFirst()) != null) {
+            // Levels created for a previous world or before a registry change can't be reused
+            if (level.registryAccess() == registryAccess) {
+                return level;
+            }
+        }
+
+        return new GuidebookLevel(registryAccess);
+    }
+
+    /**
+     * Returns a level to the pool. The caller must ensure that the level is no longer used by any scene, since it will
+     * be cleared immediately.
+     */
+    public static synchronized void release(GuidebookLevel level) {
+        if (!level.isRecyclable() || level.isReadInBackground() || pool.size() >= MAX_POOLED_LEVELS) {
+            return;
+        }
+
+        for (var pooledLevel : pool) {
+            if (pooledLevel == level) {
+                return; // Already released
+            }
+        }
+
+        level.reset();
+        pool.addFirst(level);
+    }
+
+    /**
+     * Drops all pooled levels.
+     */
+    public static synchronized void clear() {
+        pool.clear();
+    }
+}
@@ -1,6 +1,7 @@
 package guideme.style;
 
 import guideme.color.ColorValue;
+import net.minecraft.network.chat.Style;
 import net.minecraft.resources.ResourceLocation;
 
 /**
@@ -18,4 +19,16 @@ public record ResolvedTextStyle(
         WhiteSpaceMode whiteSpace,
         TextAlignment alignment,
         boolean dropShadow) {
+    /**
+     * Converts the properties of this style that are applied by Minecraft's font renderer. Color and font scale are
+     * applied separately when rendering.
+     */
+    public Style toMinecraftStyle() {
+        return Style.EMPTY
+                .withBold(bold)
+                .withItalic(italic)
+                .withUnderlined(underlined)
+                .withStrikethrough(strikethrough)
+                .withFont(font);
+    }
 }
@@ -0,0 +1,192 @@
+package guideme.document.block;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import guideme.document.LytRect;
+import guideme.document.flow.LytFlowAnchor;
+import guideme.document.flow.LytFlowText;
+import guideme.layout.LayoutContext;
+import guideme.layout.MockFontMetrics;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LytDocumentTest {
+    @Test
+    void testParallelLayoutMatchesSequentialLayout() {
+        var sequential = createDocument();
+        sequential.updateLayout(new LayoutContext(new MockFontMetrics()), 200);
+
+        var parallel = createDocument();
+        parallel.setParallelLayout(true);
+        var context = new LayoutContext(new MockFontMetrics());
+        parallel.updateLayout(context, 200);
+
+        assertThat(parallel.getContentHeight()).isEqualTo(sequential.getContentHeight());
+        assertThat(getBlockBounds(parallel)).isEqualTo(getBlockBounds(sequential));
+        // Each paragraph must have been laid out exactly once, by the parallel pass, which uses a context per block
+        // and snapshotted font metrics. The sequential pass has to reuse that layout.
+        var paragraphs = parallel.getBlocks().stream()
+                .filter(CountingParagraph.class::isInstance)
+                .map(CountingParagraph.class::cast)
+                .toList();
+        assertThat(paragraphs).isNotEmpty().allSatisfy(paragraph -> {
+            assertThat(paragraph.layoutCount).isEqualTo(1);
+            assertThat(paragraph.layoutContexts).doesNotContain(context);
+        });
+    }
+
+    @Test
+    void testVirtualLayoutOnlyLaysOutRequestedBlocks() {
+        var document = createDocument();
+        document.setVirtualLayout(true);
+        document.updateLayout(new LayoutContext(new MockFontMetrics()), 200);
+        assertThat(document.hasPendingLayout()).isTrue();
+
+        document.layoutUntil(100);
+
+        assertThat(document.hasPendingLayout()).isTrue();
+        // Blocks below the laid out part of the document are not picked
+        assertThat(document.pick(10, 500).node()).isSameAs(document);
+        assertThat(document.getContentHeight()).isGreaterThan(100);
+    }
+
+    @Test
+    void testCompletedVirtualLayoutMatchesFullLayout() {
+        var full = createDocument();
+        full.updateLayout(new LayoutContext(new MockFontMetrics()), 200);
+
+        var virtual = createDocument();
+        virtual.setVirtualLayout(true);
+        virtual.updateLayout(new LayoutContext(new MockFontMetrics()), 200);
+        virtual.layoutUntil(100);
+        virtual.layoutUntil(Integer.MAX_VALUE);
+
+        assertThat(virtual.hasPendingLayout()).isFalse();
+        assertThat(virtual.getContentHeight()).isEqualTo(full.getContentHeight());
+        assertThat(getBlockBounds(virtual)).isEqualTo(getBlockBounds(full));
+    }
+
+    @Test
+    void testLayoutThroughNode() {
+        var document = createDocument();
+        document.setVirtualLayout(true);
+        document.updateLayout(new LayoutContext(new MockFontMetrics()), 200);
+        var paragraph = document.getBlocks().get(40);
+
+        document.layoutThrough(paragraph);
+
+        var full = createDocument();
+        full.updateLayout(new LayoutContext(new MockFontMetrics()), 200);
+        assertThat(paragraph.getBounds()).isEqualTo(full.getBlocks().get(40).getBounds());
+    }
+
+    @Test
+    void testLayoutThroughNodeWithParallelLayoutStopsAtNode() {
+        var document = createDocument();
+        document.setVirtualLayout(true);
+        document.setParallelLayout(true);
+        document.updateLayout(new LayoutContext(new MockFontMetrics()), 200);
+        var blocks = document.getBlocks();
+
+        document.layoutThrough(blocks.get(30));
+
+        assertThat(blocks.subList(31, blocks.size()))
+                .filteredOn(CountingParagraph.class::isInstance)
+                .allSatisfy(block -> assertThat(((CountingParagraph) block).layoutCount).isZero());
+    }
+
+    @Test
+    void testSwitchingBackToPreviousWidthRestoresLayout() {
+        var document = new LytDocument();
+        var paragraphs = new ArrayList<CountingParagraph>();
+        for (var i = 0; i < 5; i++) {
+            var paragraph = new CountingParagraph();
+            paragraph.append(LytFlowText.of("Paragraph number " + i + " wraps across several lines"));
+            document.append(paragraph);
+            paragraphs.add(paragraph);
+        }
+        var context = new LayoutContext(new MockFontMetrics());
+        document.updateLayout(context, 200);
+        var narrowBounds = getBlockBounds(document);
+        var narrowHeight = document.getContentHeight();
+
+        document.updateLayout(context, 300);
+        document.updateLayout(context, 200);
+
+        assertThat(getBlockBounds(document)).isEqualTo(narrowBounds);
+        assertThat(document.getContentHeight()).isEqualTo(narrowHeight);
+        assertThat(paragraphs).allSatisfy(paragraph -> assertThat(paragraph.layoutCount).isEqualTo(2));
+
+        document.updateLayout(context, 300);
+        assertThat(paragraphs).allSatisfy(paragraph -> assertThat(paragraph.layoutCount).isEqualTo(2));
+    }
+
+    @Test
+    void testInvalidationDiscardsLayoutsForOtherWidths() {
+        var document = new LytDocument();
+        var paragraph = new CountingParagraph();
+        paragraph.append(LytFlowText.of("Some text"));
+        document.append(paragraph);
+        var context = new LayoutContext(new MockFontMetrics());
+        document.updateLayout(context, 200);
+        document.updateLayout(context, 300);
+
+        paragraph.append(LytFlowText.of(" and some more text"));
+        document.updateLayout(context, 200);
+
+        assertThat(paragraph.layoutCount).isEqualTo(3);
+    }
+
+    @Test
+    void testSwitchingBackToPreviousWidthRestoresAnchorPositions() {
+        var document = new LytDocument();
+        var first = new LytParagraph();
+        first.append(LytFlowText.of("The first paragraph wraps across several lines"));
+        document.append(first);
+        var second = new LytParagraph();
+        second.append(LytFlowText.of("Some text"));
+        var anchor = new LytFlowAnchor("anchor");
+        second.append(anchor);
+        document.append(second);
+        var context = new LayoutContext(new MockFontMetrics());
+        document.updateLayout(context, 200);
+        var narrowY = anchor.getLayoutY();
+
+        document.updateLayout(context, 300);
+        document.updateLayout(context, 200);
+
+        assertThat(narrowY).isPresent();
+        assertThat(anchor.getLayoutY()).isEqualTo(narrowY);
+    }
+
+    private static LytDocument createDocument() {
+        var document = new LytDocument();
+        for (var i = 0; i < 50; i++) {
+            var paragraph = new CountingParagraph();
+            paragraph.setMarginBottom(5);
+            paragraph.append(LytFlowText.of("Paragraph number " + i + " wraps across several lines"));
+            document.append(paragraph);
+            if (i % 10 == 0) {
+                document.append(new LytThematicBreak());
+            }
+        }
+        return document;
+    }
+
+    private static List<LytRect> getBlockBounds(LytDocument document) {
+        return document.getBlocks().stream().map(LytBlock::getBounds).toList();
+    }
+
+    static class CountingParagraph extends LytParagraph {
+        int layoutCount;
+        final List<LayoutContext> layoutContexts = new ArrayList<>();
+
+        @Override
+        public LytRect computeLayout(LayoutContext context, int x, int y, int availableWidth) {
+            layoutCount++;
+            layoutContexts.add(context);
+            return super.computeLayout(context, x, y, availableWidth);
+        }
+    }
+}
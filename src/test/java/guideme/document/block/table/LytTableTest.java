@@ -0,0 +1,48 @@
+package guideme.document.block.table;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import guideme.document.block.LytParagraph;
+import guideme.document.flow.LytFlowText;
+import guideme.layout.LayoutContext;
+import guideme.layout.MockFontMetrics;
+import org.junit.jupiter.api.Test;
+
+class LytTableTest {
+    @Test
+    void testPickFindsCellOfEveryRow() {
+        var table = new LytTable();
+        for (var i = 0; i < 100; i++) {
+            var row = table.appendRow();
+            for (var j = 0; j < 3; j++) {
+                var paragraph = new LytParagraph();
+                // Give rows different heights
+                paragraph.append(LytFlowText.of("x".repeat(1 + i % 7 * 5)));
+                row.appendCell().append(paragraph);
+            }
+        }
+        table.layout(new LayoutContext(new MockFontMetrics()), 0, 0, 200);
+
+        for (var row : table.getChildren()) {
+            var cell = row.getChildren().get(1);
+            var bounds = cell.getBounds();
+            var picked = table.pickNode(bounds.x() + 1, bounds.y() + bounds.height() / 2);
+            assertThat(picked).isNotNull();
+            // The paragraph may be picked instead of the cell itself
+            while (picked != cell && picked != null) {
+                picked = picked.getParent();
+            }
+            assertThat(picked).isSameAs(cell);
+        }
+    }
+
+    @Test
+    void testPickOutsideOfRowsReturnsTable() {
+        var table = new LytTable();
+        table.appendRow().appendCell();
+        table.layout(new LayoutContext(new MockFontMetrics()), 0, 0, 200);
+
+        assertThat(table.pickNode(10, 0)).isSameAs(table);
+        assertThat(table.pickNode(10, 1000)).isNull();
+    }
+}
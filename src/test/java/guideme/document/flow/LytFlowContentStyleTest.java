@@ -0,0 +1,54 @@
+package guideme.document.flow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import guideme.document.block.LytParagraph;
+import guideme.style.TextStyle;
+import org.junit.jupiter.api.Test;
+
+class LytFlowContentStyleTest {
+    @Test
+    void testResolvedStyleIsReused() {
+        var span = new LytFlowSpan();
+        span.setStyle(TextStyle.builder().bold(true).build());
+
+        assertThat(span.resolveStyle()).isSameAs(span.resolveStyle());
+    }
+
+    @Test
+    void testEqualStylesAreInterned() {
+        var paragraph = new LytParagraph();
+        var first = new LytFlowText();
+        var second = new LytFlowText();
+        paragraph.append(first);
+        paragraph.append(second);
+
+        assertThat(first.resolveStyle()).isSameAs(second.resolveStyle());
+    }
+
+    @Test
+    void testChangingParentStyleUpdatesResolvedStyle() {
+        var paragraph = new LytParagraph();
+        var text = new LytFlowText();
+        paragraph.append(text);
+        assertThat(text.resolveStyle().bold()).isFalse();
+
+        paragraph.setStyle(TextStyle.builder().bold(true).build());
+
+        assertThat(text.resolveStyle().bold()).isTrue();
+    }
+
+    @Test
+    void testReparentingUpdatesResolvedStyle() {
+        var text = new LytFlowText();
+        var regular = new LytFlowSpan();
+        regular.append(text);
+        assertThat(text.resolveStyle().italic()).isFalse();
+
+        var italic = new LytFlowSpan();
+        italic.setStyle(TextStyle.builder().italic(true).build());
+        text.setParent(italic);
+
+        assertThat(text.resolveStyle().italic()).isTrue();
+    }
+}
@@ -0,0 +1,147 @@
+package guideme.internal.scene;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.Vec3i;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.RotatedPillarBlock;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.FluidState;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CompactStructureTest {
+    private static final Vec3i SIZE = new Vec3i(5, 3, 4);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteAndReadBack() throws IOException {
+        var level = new TestBlockGetter();
+        var structure = CompactStructure.fromWorld(level, RegistryAccess.EMPTY, BlockPos.ZERO, SIZE);
+
+        var path = tempDir.resolve("test" + CompactStructure.EXTENSION);
+        structure.write(path);
+        var readBack = CompactStructure.read(Files.readAllBytes(path), BuiltInRegistries.BLOCK);
+
+        assertThat(readBack.getSize()).isEqualTo(SIZE);
+        for (var y = 0; y < SIZE.getY(); y++) {
+            for (var z = 0; z < SIZE.getZ(); z++) {
+                for (var x = 0; x < SIZE.getX(); x++) {
+                    assertThat(readBack.getBlockState(x, y, z))
+                            .as("block at %d, %d, %d", x, y, z)
+                            .isEqualTo(level.getBlockState(new BlockPos(x, y, z)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testOverflowingSizeIsRejected() throws IOException {
+        var tag = new CompoundTag();
+        tag.putInt("format", 1);
+        tag.putIntArray("size", new int[] { 2048, 2048, 2048 });
+        var palette = new ListTag();
+        palette.add(NbtUtils.writeBlockState(Blocks.AIR.defaultBlockState()));
+        tag.put("palette", palette);
+        tag.putLongArray("blocks", new long[0]);
+
+        var out = new ByteArrayOutputStream();
+        NbtIo.writeCompressed(tag, out);
+
+        assertThatThrownBy(() -> CompactStructure.read(out.toByteArray(), BuiltInRegistries.BLOCK))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("too large");
+    }
+
+    @Test
+    void testBlockEntitiesOutsideOfBlocksAreRejected() throws IOException {
+        // A single stone block at 0, 0, 0
+        assertThatThrownBy(() -> readSingleBlockStructure(1L, new int[] { 1, 0, 0 }))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("outside of structure size");
+        assertThatThrownBy(() -> readSingleBlockStructure(1L, new int[] { 0, -1, 0 }))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("outside of structure size");
+        // The block is air instead
+        assertThatThrownBy(() -> readSingleBlockStructure(0L, new int[] { 0, 0, 0 }))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("has no block");
+    }
+
+    private static CompactStructure readSingleBlockStructure(long blockData, int[] blockEntityPos)
+            throws IOException {
+        var tag = new CompoundTag();
+        tag.putInt("format", 1);
+        tag.putIntArray("size", new int[] { 1, 1, 1 });
+        var palette = new ListTag();
+        palette.add(NbtUtils.writeBlockState(Blocks.AIR.defaultBlockState()));
+        palette.add(NbtUtils.writeBlockState(Blocks.STONE.defaultBlockState()));
+        tag.put("palette", palette);
+        tag.putLongArray("blocks", new long[] { blockData });
+        var blockEntity = new CompoundTag();
+        blockEntity.putIntArray("pos", blockEntityPos);
+        blockEntity.put("nbt", new CompoundTag());
+        var blockEntities = new ListTag();
+        blockEntities.add(blockEntity);
+        tag.put("block_entities", blockEntities);
+
+        var out = new ByteArrayOutputStream();
+        NbtIo.writeCompressed(tag, out);
+        return CompactStructure.read(out.toByteArray(), BuiltInRegistries.BLOCK);
+    }
+
+    // A mix of air, a block with a property and a plain block, to use more than one bit per palette entry
+    private static class TestBlockGetter implements BlockGetter {
+        @Override
+        public BlockState getBlockState(BlockPos pos) {
+            if (pos.getX() < 0 || pos.getY() < 0 || pos.getZ() < 0
+                    || pos.getX() >= SIZE.getX() || pos.getY() >= SIZE.getY() || pos.getZ() >= SIZE.getZ()) {
+                return Blocks.AIR.defaultBlockState();
+            }
+            return switch ((pos.getX() + pos.getY() * 2 + pos.getZ()) % 4) {
+                case 0 -> Blocks.AIR.defaultBlockState();
+                case 1 -> Blocks.STONE.defaultBlockState();
+                case 2 -> Blocks.OAK_LOG.defaultBlockState().setValue(RotatedPillarBlock.AXIS, Direction.Axis.X);
+                default -> Blocks.OAK_LOG.defaultBlockState();
+            };
+        }
+
+        @Override
+        public @Nullable BlockEntity getBlockEntity(BlockPos pos) {
+            return null;
+        }
+
+        @Override
+        public FluidState getFluidState(BlockPos pos) {
+            return getBlockState(pos).getFluidState();
+        }
+
+        @Override
+        public int getHeight() {
+            return 256;
+        }
+
+        @Override
+        public int getMinY() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package guideme.layout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import guideme.document.DefaultStyles;
+import guideme.style.ResolvedTextStyle;
+import guideme.style.TextStyle;
+import org.junit.jupiter.api.Test;
+
+class CachingFontMetricsTest {
+    private static final ResolvedTextStyle REGULAR = TextStyle.EMPTY.mergeWith(DefaultStyles.BASE_STYLE);
+    private static final ResolvedTextStyle BOLD = TextStyle.builder().bold(true).build()
+            .mergeWith(DefaultStyles.BASE_STYLE);
+
+    private final CountingFontMetrics delegate = new CountingFontMetrics();
+    private final CachingFontMetrics metrics = new CachingFontMetrics(delegate);
+
+    @Test
+    void testAdvancesAreOnlyLookedUpOnce() {
+        assertThat(metrics.getAdvance('A', REGULAR)).isEqualTo(65f);
+        assertThat(metrics.getAdvance('A', REGULAR)).isEqualTo(65f);
+        assertThat(metrics.getAdvance('B', REGULAR)).isEqualTo(66f);
+
+        assertThat(delegate.lookups).isEqualTo(2);
+    }
+
+    @Test
+    void testSupplementaryCodePointsAreCached() {
+        var emoji = 0x1F600;
+        assertThat(metrics.getAdvance(emoji, REGULAR)).isEqualTo(emoji);
+        assertThat(metrics.getAdvance(emoji, REGULAR)).isEqualTo(emoji);
+
+        assertThat(delegate.lookups).isEqualTo(1);
+    }
+
+    @Test
+    void testBoldAdvancesAreCachedSeparately() {
+        assertThat(metrics.getAdvance('A', REGULAR)).isEqualTo(65f);
+        assertThat(metrics.getAdvance('A', BOLD)).isEqualTo(66f);
+        assertThat(metrics.getAdvance('A', REGULAR)).isEqualTo(65f);
+
+        assertThat(delegate.lookups).isEqualTo(2);
+    }
+
+    @Test
+    void testInvalidateDiscardsAdvances() {
+        metrics.getAdvance('A', REGULAR);
+        metrics.invalidate();
+        metrics.getAdvance('A', REGULAR);
+
+        assertThat(delegate.lookups).isEqualTo(2);
+    }
+
+    // The advance of every character is its code point, plus one when bold
+    static class CountingFontMetrics implements FontMetrics {
+        int lookups;
+
+        @Override
+        public float getAdvance(int codePoint, ResolvedTextStyle style) {
+            lookups++;
+            return style.bold() ? codePoint + 1 : codePoint;
+        }
+
+        @Override
+        public int getLineHeight(ResolvedTextStyle style) {
+            return 10;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package guideme.layout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import guideme.document.DefaultStyles;
+import guideme.style.ResolvedTextStyle;
+import guideme.style.TextStyle;
+import org.junit.jupiter.api.Test;
+
+class FontMetricsSnapshotTest {
+    private static final ResolvedTextStyle REGULAR = TextStyle.EMPTY.mergeWith(DefaultStyles.BASE_STYLE);
+    private static final ResolvedTextStyle BOLD = TextStyle.builder().bold(true).build()
+            .mergeWith(DefaultStyles.BASE_STYLE);
+
+    private final CachingFontMetricsTest.CountingFontMetrics source = new CachingFontMetricsTest.CountingFontMetrics();
+
+    @Test
+    void testCapturesAdvancesOfText() {
+        var snapshot = FontMetricsSnapshot.builder(source)
+                .addText("AB", REGULAR)
+                .addText("A", BOLD)
+                .build();
+
+        assertThat(snapshot.getAdvance('A', REGULAR)).isEqualTo(65f);
+        assertThat(snapshot.getAdvance('B', REGULAR)).isEqualTo(66f);
+        assertThat(snapshot.getAdvance(' ', REGULAR)).isEqualTo(32f);
+        assertThat(snapshot.getAdvance('A', BOLD)).isEqualTo(66f);
+        assertThat(snapshot.getLineHeight(REGULAR)).isEqualTo(10);
+    }
+
+    @Test
+    void testMissingMetricsAreRejected() {
+        var snapshot = FontMetricsSnapshot.builder(source)
+                .addText("A", REGULAR)
+                .build();
+
+        assertThatThrownBy(() -> snapshot.getAdvance('C', REGULAR)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> snapshot.getAdvance('A', BOLD)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> snapshot.getLineHeight(BOLD)).isInstanceOf(IllegalStateException.class);
+    }
+}
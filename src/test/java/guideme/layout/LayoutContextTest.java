@@ -0,0 +1,64 @@
+package guideme.layout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import guideme.document.LytRect;
+import java.util.OptionalInt;
+import org.junit.jupiter.api.Test;
+
+class LayoutContextTest {
+    private final LayoutContext context = new LayoutContext(new MockFontMetrics());
+
+    @Test
+    void testEdgesWithoutFloats() {
+        assertThat(context.hasFloats()).isFalse();
+        assertThat(context.getLeftFloatRightEdge()).isEmpty();
+        assertThat(context.getRightFloatLeftEdge()).isEmpty();
+        assertThat(context.getLeftFloatRightEdge(5)).isEqualTo(5);
+        assertThat(context.getRightFloatLeftEdge(95)).isEqualTo(95);
+        assertThat(context.getNextFloatBottomEdge(0)).isEmpty();
+    }
+
+    @Test
+    void testEdgesOfMultipleFloats() {
+        context.addLeftFloat(new LytRect(0, 0, 20, 30));
+        context.addLeftFloat(new LytRect(0, 0, 40, 10));
+        context.addRightFloat(new LytRect(70, 0, 30, 50));
+        context.addRightFloat(new LytRect(60, 0, 40, 20));
+
+        assertThat(context.hasFloats()).isTrue();
+        assertThat(context.getLeftFloatRightEdge()).isEqualTo(OptionalInt.of(40));
+        assertThat(context.getRightFloatLeftEdge()).isEqualTo(OptionalInt.of(60));
+        assertThat(context.getNextFloatBottomEdge(0)).isEqualTo(OptionalInt.of(10));
+        assertThat(context.getNextFloatBottomEdge(25)).isEqualTo(OptionalInt.of(30));
+    }
+
+    @Test
+    void testClearFloatsAbove() {
+        context.addLeftFloat(new LytRect(0, 0, 20, 30));
+        context.addLeftFloat(new LytRect(0, 0, 40, 10));
+        context.addRightFloat(new LytRect(60, 0, 40, 20));
+
+        context.clearFloatsAbove(10);
+        assertThat(context.getLeftFloatRightEdge()).isEqualTo(OptionalInt.of(20));
+        assertThat(context.getRightFloatLeftEdge()).isEqualTo(OptionalInt.of(60));
+
+        context.clearFloatsAbove(20);
+        assertThat(context.getRightFloatLeftEdge()).isEmpty();
+        assertThat(context.getNextFloatBottomEdge(20)).isEqualTo(OptionalInt.of(30));
+
+        context.clearFloatsAbove(30);
+        assertThat(context.hasFloats()).isFalse();
+    }
+
+    @Test
+    void testClearFloatsReturnsLowestBottom() {
+        context.addLeftFloat(new LytRect(0, 0, 20, 30));
+        context.addRightFloat(new LytRect(60, 0, 40, 50));
+
+        assertThat(context.clearFloats(true, false)).isEqualTo(OptionalInt.of(30));
+        assertThat(context.getRightFloatLeftEdge()).isEqualTo(OptionalInt.of(60));
+        assertThat(context.clearFloats(true, true)).isEqualTo(OptionalInt.of(50));
+        assertThat(context.clearFloats(true, true)).isEmpty();
+    }
+}
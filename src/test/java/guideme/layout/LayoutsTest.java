@@ -1,14 +1,24 @@
 package guideme.layout;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import guideme.document.LytRect;
 import guideme.document.block.AlignItems;
+import guideme.document.block.LytGuiSprite;
+import guideme.document.block.LytHBox;
 import guideme.document.block.LytBlock;
+import guideme.document.block.LytParagraph;
+import guideme.document.block.LytVBox;
+import guideme.document.flow.LytFlowInlineBlock;
+import guideme.document.flow.LytFlowSpan;
+import guideme.document.flow.LytFlowText;
 import guideme.render.RenderContext;
 import java.util.List;
 import java.util.stream.Stream;
 import net.minecraft.client.renderer.MultiBufferSource;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -46,6 +56,7 @@ private static class TestCase {
     private static class TestBox extends LytBlock {
         private final int layoutWidth;
         private final int layoutHeight;
+        private int layoutCount;
 
         public TestBox(int layoutWidth, int layoutHeight) {
             this.layoutWidth = layoutWidth;
@@ -54,6 +65,7 @@ public TestBox(int layoutWidth, int layoutHeight) {
 
         @Override
         protected LytRect computeLayout(LayoutContext context, int x, int y, int availableWidth) {
+            layoutCount++;
             return new LytRect(x, y, layoutWidth, layoutHeight);
         }
 
@@ -247,4 +259,132 @@ void testVerticalLayout(String testName, TestCase testCase) {
                     "bounds of child " + i + " are not as expected");
         }
     }
+
+    @Test
+    void testRelayoutWithSameWidthReusesLayout() {
+        var context = new LayoutContext(new MockFontMetrics());
+        var child1 = new TestBox(30, 20);
+        var child2 = new TestBox(40, 15);
+        var box = new LytVBox();
+        box.setGap(10);
+        box.append(child1);
+        box.append(child2);
+
+        box.layout(context, 0, 0, 100);
+        var result = box.layout(context, 10, 20, 100);
+
+        assertEquals(new LytRect(10, 20, 40, 45), result);
+        assertEquals(new LytRect(10, 20, 30, 20), child1.getBounds());
+        assertEquals(new LytRect(10, 50, 40, 15), child2.getBounds());
+        assertEquals(1, child1.layoutCount);
+        assertEquals(1, child2.layoutCount);
+    }
+
+    @Test
+    void testRelayoutWithDifferentWidthRecomputesLayout() {
+        var context = new LayoutContext(new MockFontMetrics());
+        var child = new TestBox(30, 20);
+        var box = new LytVBox();
+        box.append(child);
+
+        box.layout(context, 0, 0, 100);
+        box.layout(context, 0, 0, 80);
+
+        assertEquals(2, child.layoutCount);
+    }
+
+    @Test
+    void testInvalidatingChildOnlyRecomputesChild() {
+        var context = new LayoutContext(new MockFontMetrics());
+        var child1 = new TestBox(30, 20);
+        var child2 = new TestBox(40, 15);
+        var box = new LytVBox();
+        box.setGap(10);
+        box.append(child1);
+        box.append(child2);
+
+        box.layout(context, 0, 0, 100);
+        child1.invalidateLayout();
+        var result = box.layout(context, 0, 0, 100);
+
+        assertEquals(new LytRect(0, 0, 40, 45), result);
+        assertEquals(new LytRect(0, 30, 40, 15), child2.getBounds());
+        assertEquals(2, child1.layoutCount);
+        assertEquals(1, child2.layoutCount);
+    }
+
+    @Test
+    void testLayoutIsNotReusedWithPendingFloats() {
+        var context = new LayoutContext(new MockFontMetrics());
+        var child = new TestBox(30, 20);
+
+        child.layout(context, 0, 0, 100);
+        context.addLeftFloat(new LytRect(0, 0, 10, 10));
+        child.layout(context, 0, 0, 100);
+
+        assertEquals(2, child.layoutCount);
+    }
+
+    @Test
+    void testChangingFlowContentInvalidatesParagraph() {
+        var context = new LayoutContext(new MockFontMetrics());
+        var text = LytFlowText.of("short");
+        var span = new LytFlowSpan();
+        span.append(text);
+        var paragraph = new LytParagraph();
+        paragraph.append(span);
+        var box = new LytVBox();
+        box.append(paragraph);
+
+        box.layout(context, 0, 0, 100);
+        var boundsBefore = paragraph.getBounds();
+        text.setText("a text that wraps across several lines");
+        box.layout(context, 0, 0, 100);
+
+        assertNotEquals(boundsBefore, paragraph.getBounds());
+    }
+
+    @Test
+    void testInvalidatingBlockInInlineBlockInvalidatesParagraph() {
+        var context = new LayoutContext(new MockFontMetrics());
+        var child = new TestBox(30, 20);
+        var paragraph = new LytParagraph();
+        paragraph.append(LytFlowInlineBlock.of(child));
+        var box = new LytVBox();
+        box.append(paragraph);
+
+        box.layout(context, 0, 0, 100);
+        var layoutCount = child.layoutCount;
+        child.invalidateLayout();
+        box.layout(context, 0, 0, 100);
+
+        assertTrue(child.layoutCount > layoutCount);
+    }
+
+    @Test
+    void testChangingBlockPropertiesInvalidatesLayout() {
+        var context = new LayoutContext(new MockFontMetrics());
+        var sprite = new LytGuiSprite();
+        var box = new LytHBox();
+        box.append(new TestBox(60, 10));
+        box.append(sprite);
+        var root = new LytVBox();
+        root.append(box);
+
+        root.layout(context, 0, 0, 100);
+        assertEquals(new LytRect(60, 0, 16, 16), sprite.getBounds());
+
+        sprite.setSize(30, 30);
+        root.layout(context, 0, 0, 100);
+        assertEquals(new LytRect(60, 0, 30, 30), sprite.getBounds());
+
+        var wrapped = new TestBox(60, 10);
+        box.append(wrapped);
+        root.layout(context, 0, 0, 100);
+        assertEquals(30, wrapped.getBounds().y());
+
+        box.setWrap(false);
+        root.layout(context, 0, 0, 100);
+        assertEquals(0, wrapped.getBounds().y());
+    }
 }
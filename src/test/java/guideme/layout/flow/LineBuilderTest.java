@@ -8,6 +8,8 @@
 import guideme.layout.LayoutContext;
 import guideme.style.ResolvedTextStyle;
 import guideme.style.TextAlignment;
+import guideme.style.TextStyle;
+import guideme.style.WhiteSpaceMode;
 import java.util.ArrayList;
 import org.junit.jupiter.api.Test;
 
@@ -68,7 +70,37 @@ void testBreakBetweenCJKCharacters() {
                 "A Bを変", "更す");
     }
 
+    /**
+     * A word that doesn't fit into a line of its own is broken mid-word, even when it follows a line break.
+     */
+    @Test
+    void testForceBreakLongWordAfterLineBreak() {
+        var lines = getLines(3, "A ", "BC DEFGHI");
+
+        assertThat(lines).extracting(this::getTextContent).containsExactly(
+                "A ",
+                "BC ",
+                "DEF",
+                "GHI");
+    }
+
+    /**
+     * The line following a preserved line break has the full width available.
+     */
+    @Test
+    void testPreservedLineBreakResetsLineWidth() {
+        var lines = getLines(3, WhiteSpaceMode.PRE_WRAP, "X", "AB\nCDE");
+
+        assertThat(lines).extracting(this::getTextContent).containsExactly(
+                "XAB",
+                "CDE");
+    }
+
     private static ArrayList<Line> getLines(int charsPerLine, String... textChunks) {
+        return getLines(charsPerLine, WhiteSpaceMode.NORMAL, textChunks);
+    }
+
+    private static ArrayList<Line> getLines(int charsPerLine, WhiteSpaceMode whiteSpace, String... textChunks) {
         var lines = new ArrayList<Line>();
         var floats = new ArrayList<LineBlock>();
         var context = new LayoutContext(new MockFontMetrics());
@@ -77,7 +109,9 @@ private static ArrayList<Line> getLines(int charsPerLine, String... textChunks)
         for (String textChunk : textChunks) {
             var flowContent = new LytFlowText();
             flowContent.setText(textChunk);
-            flowContent.setParent(new LytFlowSpan());
+            var span = new LytFlowSpan();
+            span.setStyle(TextStyle.builder().whiteSpace(whiteSpace).build());
+            flowContent.setParent(span);
             lineBuilder.accept(flowContent);
         }
 
@@ -89,7 +123,7 @@ private String getTextContent(Line line) {
         var result = new StringBuilder();
         for (var el = line.firstElement(); el != null; el = el.next) {
             if (el instanceof LineTextRun run) {
-                result.append(run.text);
+                result.append(run.getText());
             }
         }
         return result.toString();